@@ -0,0 +1,506 @@
+package io.github.kdesp73.databridge.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * The {@code RowMapperProcessor} class is an annotation processor that generates a
+ * {@code RowMapperFactory} for every class annotated with {@code @GenerateMapper}.
+ * <p>
+ * The generated factory resolves column indexes once per result shape and returns a mapper that
+ * reads every column with its typed getter ({@code getInt}, {@code getLong}, ...) or the
+ * {@code ColumnReader} registered in {@code Converters}, and builds the row by calling the
+ * constructor, assigning fields or calling setters directly. No reflection is involved, so the
+ * mappers need no warm-up and work in native images.
+ * </p>
+ * <p>
+ * The factories are listed in {@code META-INF/services/io.github.kdesp73.databridge.helpers.RowMapperFactory},
+ * where {@code Adapter} finds them with {@link java.util.ServiceLoader}. The mapping rules follow the
+ * reflection-based mapping of {@code Adapter}:
+ * </p>
+ * <ul>
+ *     <li>records are created through their canonical constructor;</li>
+ *     <li>classes with a {@code @RowConstructor} constructor are created through it;</li>
+ *     <li>other classes are created through their no-arg constructor, then each non-static field is
+ *     assigned directly or, when it is private, through its {@code setXxx} method;</li>
+ *     <li>columns are matched by {@code @Column}, or by the snake_case name, then the plain name.</li>
+ * </ul>
+ *
+ * @author KDesp73
+ */
+@SupportedAnnotationTypes(RowMapperProcessor.GENERATE_MAPPER)
+public class RowMapperProcessor extends AbstractProcessor {
+
+    static final String GENERATE_MAPPER = "io.github.kdesp73.databridge.helpers.GenerateMapper";
+
+    private static final String HELPERS = "io.github.kdesp73.databridge.helpers.";
+    private static final String COLUMN = HELPERS + "Column";
+    private static final String ROW_CONSTRUCTOR = HELPERS + "RowConstructor";
+    private static final String FACTORY = HELPERS + "RowMapperFactory";
+    private static final String SERVICES = "META-INF/services/" + FACTORY;
+
+    private final Set<String> factories = new TreeSet<>();
+
+    /**
+     * Supports the latest source version, the generated code only uses Java 16 features.
+     *
+     * @return the latest supported source version.
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * Generates a factory for every annotated class and writes the service file in the last round.
+     *
+     * @param annotations the annotation types requested to be processed.
+     * @param roundEnv the environment of the current round.
+     * @return {@code true}, the annotation is claimed by this processor.
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.RECORD) {
+                    error(element, "@GenerateMapper can only be used on classes and records");
+                    continue;
+                }
+                try {
+                    generate((TypeElement) element);
+                } catch (IOException e) {
+                    error(element, "Cannot write the row mapper: " + e.getMessage());
+                }
+            }
+        }
+
+        if (roundEnv.processingOver() && !factories.isEmpty()) {
+            try {
+                writeServices();
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + SERVICES + ": " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generates the factory source for one class.
+     *
+     * @param type the annotated class.
+     * @throws IOException if the source file cannot be written.
+     */
+    private void generate(TypeElement type) throws IOException {
+        if (!isAccessible(type)) {
+            return;
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String typeName = type.getQualifiedName().toString();
+        String factoryName = flatName(type) + "RowMapperFactory";
+
+        List<String> lines = new ArrayList<>();
+        String body;
+        ExecutableElement rowConstructor = rowConstructor(type);
+        if (type.getKind() == ElementKind.RECORD) {
+            List<String> arguments = new ArrayList<>();
+            List<? extends RecordComponentElement> components = type.getRecordComponents();
+            for (int i = 0; i < components.size(); i++) {
+                RecordComponentElement component = components.get(i);
+                arguments.add(argument(lines, i, component.asType(), component, component.getSimpleName().toString()));
+            }
+            body = "resultSet -> new " + typeName + "(" + joinArguments(arguments) + ")";
+        } else if (rowConstructor != null) {
+            if (rowConstructor.getModifiers().contains(Modifier.PRIVATE)) {
+                error(rowConstructor, "@RowConstructor must not be private to be used by a generated mapper");
+                return;
+            }
+            List<String> arguments = new ArrayList<>();
+            List<? extends VariableElement> parameters = rowConstructor.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                VariableElement parameter = parameters.get(i);
+                arguments.add(argument(lines, i, parameter.asType(), parameter, parameter.getSimpleName().toString()));
+            }
+            body = "resultSet -> new " + typeName + "(" + joinArguments(arguments) + ")";
+        } else {
+            body = assignFields(type, typeName, lines);
+            if (body == null) {
+                return;
+            }
+        }
+
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(packageName.isEmpty() ? factoryName : packageName + "." + factoryName, type).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("@javax.annotation.processing.Generated(\"" + RowMapperProcessor.class.getName() + "\")");
+            out.println("public final class " + factoryName + " implements " + FACTORY + "<" + typeName + "> {");
+            out.println();
+            out.println("    @Override");
+            out.println("    public Class<" + typeName + "> type() {");
+            out.println("        return " + typeName + ".class;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    @SuppressWarnings(\"unchecked\")");
+            out.println("    public " + HELPERS + "RowMapper<" + typeName + "> create(java.sql.ResultSetMetaData metaData) throws java.sql.SQLException {");
+            for (String line : lines) {
+                out.println("        " + line);
+            }
+            out.println("        return " + body + ";");
+            out.println("    }");
+            out.println("}");
+        }
+        factories.add(packageName.isEmpty() ? factoryName : packageName + "." + factoryName);
+    }
+
+    /**
+     * Builds the mapper lambda of a class mapped through its no-arg constructor and fields.
+     *
+     * @param type the annotated class.
+     * @param typeName the qualified name of the class.
+     * @param lines the statements preceding the lambda, to append to.
+     * @return the lambda source, or {@code null} if the class cannot be mapped.
+     */
+    private String assignFields(TypeElement type, String typeName, List<String> lines) {
+        boolean hasConstructor = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                hasConstructor = true;
+            }
+        }
+        if (!hasConstructor) {
+            error(type, "A generated mapper needs a record, a @RowConstructor or a non-private no-arg constructor");
+            return null;
+        }
+
+        StringBuilder body = new StringBuilder("resultSet -> {\n");
+        body.append("            ").append(typeName).append(" row = new ").append(typeName).append("();\n");
+        int index = 0;
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC)) {
+                continue;
+            }
+            String name = field.getSimpleName().toString();
+            String target;
+            if (!modifiers.contains(Modifier.PRIVATE) && !modifiers.contains(Modifier.FINAL)) {
+                target = "row." + name + " = %s";
+            } else if (setter(type, field) != null) {
+                target = "row." + setter(type, field) + "(%s)";
+            } else {
+                error(field, "Field " + name + " is private or final and has no setter, so a generated mapper cannot set it");
+                return null;
+            }
+            String value = read(lines, index, field.asType(), field, name);
+            body.append("            if (c").append(index).append(" != 0) ").append(String.format(target, value)).append(";\n");
+            index++;
+        }
+        body.append("            return row;\n        }");
+        return body.toString();
+    }
+
+    /**
+     * Declares the column index (and reader) of one value and returns the expression reading it.
+     *
+     * @param lines the statements preceding the lambda, to append to.
+     * @param index the position of the value.
+     * @param type the type of the value.
+     * @param element the element carrying the {@code @Column} annotation.
+     * @param name the name of the field, parameter or component.
+     * @return the expression reading the value from {@code resultSet}, valid when the column exists.
+     */
+    private String read(List<String> lines, int index, TypeMirror type, Element element, String name) {
+        String column = column(element);
+        String snakeCase = toSnakeCase(name);
+        String names = column != null ? constant(column)
+            : snakeCase.equals(name) ? constant(name)
+            : constant(snakeCase) + ", " + constant(name);
+        lines.add("final int c" + index + " = " + FACTORY + ".column(metaData, " + names + ");");
+
+        String c = "c" + index;
+        return switch (type.getKind()) {
+            case INT -> "resultSet.getInt(" + c + ")";
+            case LONG -> "resultSet.getLong(" + c + ")";
+            case DOUBLE -> "resultSet.getDouble(" + c + ")";
+            case FLOAT -> "resultSet.getFloat(" + c + ")";
+            case SHORT -> "resultSet.getShort(" + c + ")";
+            case BYTE -> "resultSet.getByte(" + c + ")";
+            case BOOLEAN -> "resultSet.getBoolean(" + c + ")";
+            case CHAR -> FACTORY + ".getChar(resultSet, " + c + ")";
+            default -> {
+                TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+                lines.add("final " + HELPERS + "ColumnReader<" + erasure + "> r" + index + " = " + HELPERS + "Converters.reader(" + erasure + ".class);");
+                String value = "r" + index + ".read(resultSet, " + c + ")";
+                yield processingEnv.getTypeUtils().isSameType(erasure, type) ? value : "(" + type + ") " + value;
+            }
+        };
+    }
+
+    /**
+     * Returns the expression reading a constructor argument, or its default value when the column is missing.
+     *
+     * @param lines the statements preceding the lambda, to append to.
+     * @param index the position of the argument.
+     * @param type the type of the argument.
+     * @param element the element carrying the {@code @Column} annotation.
+     * @param name the name of the parameter or component.
+     * @return the argument expression.
+     */
+    private String argument(List<String> lines, int index, TypeMirror type, Element element, String name) {
+        String value = read(lines, index, type, element, name);
+        String missing = switch (type.getKind()) {
+            case INT, LONG, DOUBLE, FLOAT -> "0";
+            case SHORT -> "(short) 0";
+            case BYTE -> "(byte) 0";
+            case BOOLEAN -> "false";
+            case CHAR -> "'\\0'";
+            default -> "null";
+        };
+        return "c" + index + " == 0 ? " + missing + " : " + value;
+    }
+
+    /**
+     * Returns the constructor annotated with {@code @RowConstructor}, if any.
+     *
+     * @param type the annotated class.
+     * @return the constructor, or {@code null}.
+     */
+    private static ExecutableElement rowConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (annotation(constructor, ROW_CONSTRUCTOR) != null) {
+                return constructor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the name of the non-private setter of a field, if any.
+     *
+     * @param type the class declaring the field.
+     * @param field the field.
+     * @return the setter name, or {@code null}.
+     */
+    private String setter(TypeElement type, VariableElement field) {
+        String name = field.getSimpleName().toString();
+        String setter = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(setter)
+                && method.getParameters().size() == 1
+                && !method.getModifiers().contains(Modifier.PRIVATE)
+                && !method.getModifiers().contains(Modifier.STATIC)
+                && processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(), field.asType())) {
+                return setter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks that the generated factory, placed in the package of the class, can use it.
+     *
+     * @param type the annotated class.
+     * @return {@code true} if the class can be mapped.
+     */
+    private boolean isAccessible(TypeElement type) {
+        if (!type.getTypeParameters().isEmpty()) {
+            error(type, "@GenerateMapper cannot be used on generic classes");
+            return false;
+        }
+        for (Element element = type; element instanceof TypeElement enclosing; element = element.getEnclosingElement()) {
+            if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+                error(type, "@GenerateMapper classes and their enclosing classes must not be private");
+                return false;
+            }
+            if (enclosing.getNestingKind() == NestingKind.MEMBER && !enclosing.getModifiers().contains(Modifier.STATIC)
+                && enclosing.getKind() != ElementKind.RECORD) {
+                error(type, "@GenerateMapper nested classes must be static");
+                return false;
+            }
+            if (enclosing.getNestingKind() == NestingKind.LOCAL || enclosing.getNestingKind() == NestingKind.ANONYMOUS) {
+                error(type, "@GenerateMapper cannot be used on local classes");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the simple names of a class and its enclosing classes joined with underscores.
+     *
+     * @param type the class.
+     * @return the flat name.
+     */
+    private static String flatName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element element = type.getEnclosingElement(); element instanceof TypeElement enclosing; element = element.getEnclosingElement()) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+        }
+        return name.toString();
+    }
+
+    /**
+     * Returns the column name given with {@code @Column}, if any.
+     *
+     * @param element the field, parameter or record component.
+     * @return the column name, or {@code null}.
+     */
+    private static String column(Element element) {
+        AnnotationMirror annotation = annotation(element, COLUMN);
+        if (annotation == null) {
+            return null;
+        }
+        for (var entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                AnnotationValue value = entry.getValue();
+                return String.valueOf(value.getValue());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds an annotation of the given type on an element.
+     *
+     * @param element the annotated element.
+     * @param name the qualified name of the annotation type.
+     * @return the annotation, or {@code null}.
+     */
+    private static AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            Element annotationType = mirror.getAnnotationType().asElement();
+            if (annotationType instanceof TypeElement typeElement && typeElement.getQualifiedName().contentEquals(name)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the service file, keeping the factories listed by a previous incremental build whose
+     * class still exists and still maps a class annotated with {@code @GenerateMapper}.
+     *
+     * @throws IOException if the file cannot be read or written.
+     */
+    private void writeServices() throws IOException {
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICES);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank() && !line.startsWith("#") && isCurrent(line.trim())) {
+                        factories.add(line.trim());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // No previous service file
+        }
+
+        FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICES);
+        try (Writer writer = file.openWriter()) {
+            for (String factory : factories) {
+                writer.write(factory);
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Checks that a factory listed by a previous build was generated for a class that still exists
+     * and is still annotated with {@code @GenerateMapper}.
+     *
+     * @param factory the qualified name of the factory.
+     * @return {@code true} if the factory should stay listed.
+     */
+    private boolean isCurrent(String factory) {
+        TypeElement element = processingEnv.getElementUtils().getTypeElement(factory);
+        if (element == null) {
+            return false;
+        }
+        for (TypeMirror implemented : element.getInterfaces()) {
+            if (implemented instanceof DeclaredType declared
+                && ((TypeElement) declared.asElement()).getQualifiedName().contentEquals(FACTORY)
+                && declared.getTypeArguments().size() == 1
+                && declared.getTypeArguments().get(0) instanceof DeclaredType mapped
+                && mapped.getKind() == TypeKind.DECLARED) {
+                return annotation(mapped.asElement(), GENERATE_MAPPER) != null;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts a camelCase name to snake_case, following the rule used by {@code Adapter}.
+     *
+     * @param camelCase the camelCase name.
+     * @return the snake_case name.
+     */
+    private static String toSnakeCase(String camelCase) {
+        return camelCase.replaceAll("([a-z])([A-Z]+)", "$1_$2").toLowerCase();
+    }
+
+    /**
+     * Returns a Java string literal for the given value.
+     *
+     * @param value the value.
+     * @return the quoted and escaped literal.
+     */
+    private String constant(String value) {
+        return processingEnv.getElementUtils().getConstantExpression(value);
+    }
+
+    /**
+     * Joins constructor arguments, one per line.
+     *
+     * @param arguments the argument expressions.
+     * @return the joined arguments.
+     */
+    private static String joinArguments(List<String> arguments) {
+        if (arguments.isEmpty()) {
+            return "";
+        }
+        return "\n            " + String.join(",\n            ", arguments);
+    }
+
+    /**
+     * Reports a compilation error on an element.
+     *
+     * @param element the element.
+     * @param message the error message.
+     */
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
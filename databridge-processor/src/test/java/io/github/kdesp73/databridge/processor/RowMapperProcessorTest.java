@@ -0,0 +1,150 @@
+package io.github.kdesp73.databridge.processor;
+
+import java.io.IOException;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowMapperProcessorTest {
+
+    private static Compilation compile(String name, String source) {
+        return Compiler.javac().withProcessors(new RowMapperProcessor()).compile(JavaFileObjects.forSourceString(name, source));
+    }
+
+    private static String generated(Compilation compilation, String name) throws IOException {
+        assertEquals(Compilation.Status.SUCCESS, compilation.status(), compilation.diagnostics().toString());
+        JavaFileObject file = compilation.generatedSourceFile(name).orElseThrow(() -> new AssertionError(name + " was not generated"));
+        return file.getCharContent(true).toString();
+    }
+
+    @Test
+    void recordsAreCreatedThroughTheCanonicalConstructor() throws IOException {
+        String factory = generated(compile("demo.Country", """
+            package demo;
+
+            import io.github.kdesp73.databridge.helpers.Column;
+            import io.github.kdesp73.databridge.helpers.GenerateMapper;
+
+            @GenerateMapper
+            public record Country(long id, @Column("iso") String code, java.util.List<String> tags, char flag) {}
+            """), "demo.CountryRowMapperFactory");
+
+        assertTrue(factory.contains("RowMapperFactory.column(metaData, \"id\")"));
+        assertTrue(factory.contains("RowMapperFactory.column(metaData, \"iso\")"), "@Column overrides the name.");
+        assertTrue(factory.contains("c0 == 0 ? 0 : resultSet.getLong(c0)"));
+        assertTrue(factory.contains("c1 == 0 ? null : r1.read(resultSet, c1)"), "A String needs no cast.");
+        assertTrue(factory.contains("(java.util.List<java.lang.String>) r2.read(resultSet, c2)"), "A generic type is cast from its erasure.");
+        assertTrue(factory.contains("RowMapperFactory.getChar(resultSet, c3)"));
+        assertFalse(factory.contains("(java.lang.String)"));
+    }
+
+    @Test
+    void rowConstructorsAreCalledWithSnakeCaseColumns() throws IOException {
+        String factory = generated(compile("demo.User", """
+            package demo;
+
+            import io.github.kdesp73.databridge.helpers.GenerateMapper;
+            import io.github.kdesp73.databridge.helpers.RowConstructor;
+
+            @GenerateMapper
+            public class User {
+                final String firstName;
+
+                public User() {
+                    this(null);
+                }
+
+                @RowConstructor
+                User(String firstName) {
+                    this.firstName = firstName;
+                }
+            }
+            """), "demo.UserRowMapperFactory");
+
+        assertTrue(factory.contains("RowMapperFactory.column(metaData, \"first_name\", \"firstName\")"));
+        assertTrue(factory.contains("resultSet -> new demo.User("));
+    }
+
+    @Test
+    void fieldsAreAssignedDirectlyOrThroughSetters() throws IOException {
+        String factory = generated(compile("demo.Order", """
+            package demo;
+
+            import io.github.kdesp73.databridge.helpers.GenerateMapper;
+
+            @GenerateMapper
+            public class Order {
+                static int created;
+                int quantity;
+                private java.math.BigDecimal total;
+
+                public void setTotal(java.math.BigDecimal total) {
+                    this.total = total;
+                }
+            }
+            """), "demo.OrderRowMapperFactory");
+
+        assertTrue(factory.contains("if (c0 != 0) row.quantity = resultSet.getInt(c0);"));
+        assertTrue(factory.contains("if (c1 != 0) row.setTotal(r1.read(resultSet, c1));"));
+        assertFalse(factory.contains("created"), "Static fields are not mapped.");
+    }
+
+    @Test
+    void nestedClassesGetFlatFactoryNames() throws IOException {
+        Compilation compilation = compile("demo.Shop", """
+            package demo;
+
+            import io.github.kdesp73.databridge.helpers.GenerateMapper;
+
+            public class Shop {
+                @GenerateMapper
+                public static class Item {
+                    public String name;
+                }
+
+                @GenerateMapper
+                record Price(double amount) {}
+            }
+            """);
+
+        assertTrue(generated(compilation, "demo.Shop_ItemRowMapperFactory").contains("new demo.Shop.Item()"));
+        assertTrue(generated(compilation, "demo.Shop_PriceRowMapperFactory").contains("new demo.Shop.Price("));
+
+        JavaFileObject services = compilation.generatedFile(StandardLocation.CLASS_OUTPUT, "",
+            "META-INF/services/io.github.kdesp73.databridge.helpers.RowMapperFactory").orElseThrow();
+        assertEquals("demo.Shop_ItemRowMapperFactory\ndemo.Shop_PriceRowMapperFactory\n", services.getCharContent(true).toString());
+    }
+
+    @Test
+    void unmappableClassesAreReported() {
+        Compilation compilation = compile("demo.Outer", """
+            package demo;
+
+            import io.github.kdesp73.databridge.helpers.GenerateMapper;
+
+            public class Outer {
+                @GenerateMapper
+                public class Inner {
+                    public int id;
+                }
+
+                @GenerateMapper
+                public static class Locked {
+                    private int id;
+                }
+            }
+            """);
+
+        assertEquals(Compilation.Status.FAILURE, compilation.status());
+        String errors = compilation.errors().stream().map(error -> error.getMessage(null)).toList().toString();
+        assertTrue(errors.contains("@GenerateMapper nested classes must be static"), errors);
+        assertTrue(errors.contains("Field id is private or final and has no setter"), errors);
+        assertTrue(compilation.errors().stream().allMatch(error -> error.getKind() == Diagnostic.Kind.ERROR));
+    }
+}
@@ -0,0 +1,215 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import javax.sql.rowset.CachedRowSet;
+import io.github.kdesp73.databridge.helpers.Adapter;
+import io.github.kdesp73.databridge.helpers.Again;
+
+/**
+ * The {@code AsyncDatabaseConnection} class runs the blocking calls of a {@link DatabaseConnection}
+ * on virtual threads and exposes them as {@link CompletableFuture}s.
+ * <p>
+ * Every call gets its own virtual thread, so thousands of calls can be in flight without tying up
+ * platform threads, including while {@link Again} waits between retries. The number of calls running
+ * against the database at the same time is bounded by a {@link Semaphore}: for a
+ * {@link PooledDatabaseConnection} the bound is the maximum pool size, for any other connection it
+ * is {@code 1}, because a single JDBC connection must not be used by several threads at once.
+ * Calls beyond the bound wait on their virtual thread without blocking the caller.
+ * </p>
+ * <pre>
+ * try (AsyncDatabaseConnection db = new AsyncDatabaseConnection(AvailableConnections.POSTGRES.getPool())) {
+ *     CompletableFuture&lt;List&lt;Person&gt;&gt; people = db.queryAsync(Person.class, "SELECT * FROM people WHERE age &gt; ?", 30);
+ *     CompletableFuture&lt;Integer&gt; updated = db.updateAsync("UPDATE people SET active = ? WHERE id = ?", true, 7);
+ *     CompletableFuture.allOf(people, updated).join();
+ * }
+ * </pre>
+ *
+ * @author KDesp73
+ */
+public class AsyncDatabaseConnection implements AutoCloseable {
+
+    private final DatabaseConnection connection;
+    private final Semaphore permits;
+    private final int concurrency;
+    private final ExecutorService executor;
+
+    /**
+     * Wraps the given connection. Pools allow as many concurrent calls as their maximum size,
+     * other connections one call at a time.
+     *
+     * @param connection the connection to run the calls on.
+     */
+    public AsyncDatabaseConnection(DatabaseConnection connection) {
+        this(connection, connection instanceof PooledDatabaseConnection pool ? pool.getMaxSize() : 1);
+    }
+
+    /**
+     * Wraps the given connection, allowing at most {@code concurrency} calls to run at the same time.
+     *
+     * @param connection the connection to run the calls on.
+     * @param concurrency the maximum number of concurrent calls.
+     */
+    public AsyncDatabaseConnection(DatabaseConnection connection, int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        }
+        this.connection = connection;
+        this.concurrency = concurrency;
+        this.permits = new Semaphore(concurrency, true);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query asynchronously.
+     * <p>
+     * The result is a disconnected {@link CachedRowSet} copy of the rows, read before the call
+     * leaves the concurrency bound, so reading it never races the next call on a single connection.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return a future completed with the result of the query.
+     */
+    public CompletableFuture<ResultSet> queryAsync(String query, StatementBinder binder) {
+        return submit(() -> {
+            ResultSet resultSet = connection.executeQuery(query, binder);
+            return resultSet instanceof CachedRowSet ? resultSet : PooledDatabaseConnection.materialize(resultSet);
+        });
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query asynchronously, binding the given values in order.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param params the parameter values.
+     * @return a future completed with the result of the query.
+     * @see #queryAsync(String, StatementBinder)
+     */
+    public CompletableFuture<ResultSet> queryAsync(String query, Object... params) {
+        return queryAsync(query, StatementBinder.of(params));
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query asynchronously and maps its rows with {@link Adapter}.
+     * The statement is released before the future completes.
+     *
+     * @param <T> the type of the mapped rows.
+     * @param type the class the rows are mapped to.
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param params the parameter values.
+     * @return a future completed with the mapped rows.
+     */
+    public <T> CompletableFuture<List<T>> queryAsync(Class<T> type, String query, Object... params) {
+        return submit(() -> {
+            try (QueryResult result = connection.query(query, params)) {
+                return Adapter.load(result.getResultSet(), type);
+            }
+        });
+    }
+
+    /**
+     * Executes a parameterized UPDATE SQL query asynchronously.
+     *
+     * @param query the SQL query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return a future completed with the number of rows affected by the query.
+     */
+    public CompletableFuture<Integer> updateAsync(String query, StatementBinder binder) {
+        return submit(() -> connection.executeUpdate(query, binder));
+    }
+
+    /**
+     * Executes a parameterized UPDATE SQL query asynchronously, binding the given values in order.
+     *
+     * @param query the SQL query string with {@code ?} placeholders.
+     * @param params the parameter values.
+     * @return a future completed with the number of rows affected by the query.
+     */
+    public CompletableFuture<Integer> updateAsync(String query, Object... params) {
+        return updateAsync(query, StatementBinder.of(params));
+    }
+
+    /**
+     * Executes a general SQL query asynchronously.
+     *
+     * @param query the SQL query string to execute.
+     * @return a future completed with {@code true} if the query returned a result set.
+     */
+    public CompletableFuture<Boolean> executeAsync(String query) {
+        return submit(() -> connection.execute(query));
+    }
+
+    /**
+     * Runs an arbitrary task against the wrapped connection asynchronously, within the concurrency bound.
+     *
+     * @param <T> the type of the result.
+     * @param task the task to run.
+     * @return a future completed with the result of the task, or exceptionally with the exception it threw.
+     */
+    public <T> CompletableFuture<T> submit(Again.RetryableTask<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(new SQLException("Interrupted while waiting to run a query.", e));
+                }
+                try {
+                    return task.execute();
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                } finally {
+                    permits.release();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new SQLException("Asynchronous connection is closed.", e));
+        }
+    }
+
+    /**
+     * Returns the wrapped connection.
+     *
+     * @return the {@link DatabaseConnection} the calls run on.
+     */
+    public DatabaseConnection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Returns the maximum number of calls running at the same time.
+     *
+     * @return the concurrency bound.
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Returns the number of calls currently running against the database.
+     *
+     * @return the number of running calls.
+     */
+    public int getRunning() {
+        return concurrency - permits.availablePermits();
+    }
+
+    /**
+     * Stops accepting calls, waits for the submitted ones to finish and closes the wrapped connection.
+     *
+     * @throws SQLException if the wrapped connection cannot be closed.
+     */
+    @Override
+    public void close() throws SQLException {
+        executor.close();
+        connection.close();
+    }
+}
@@ -32,32 +32,38 @@ public enum AvailableConnections {
     /**
      * SQLite connection type.
      */
-    SQLITE(SQLiteConnection.class),
+    SQLITE(SQLiteConnection.class, 999),
 
     /**
      * PostgreSQL connection type.
      */
-    POSTGRES(PostgresConnection.class),
+    POSTGRES(PostgresConnection.class, 65535),
 
     /**
      * MS Access connection type.
      */
-    MSACCESS(MSAccessConnection.class),
+    MSACCESS(MSAccessConnection.class, 1000),
 
 	/**
 	 * Oracle connection type.
 	 */
-	ORACLE(OracleConnection.class);
+	ORACLE(OracleConnection.class, 65535);
 
+    private final Class<? extends DatabaseConnection> type;
+    private final int maxParameters;
     private DatabaseConnection connection;
+    private PooledDatabaseConnection pool;
 
     /**
      * Constructs an {@code AvailableConnections} enum constant and tries to instantiate
      * the corresponding connection class via reflection.
      *
      * @param clazz The class of the database connection to instantiate.
+     * @param maxParameters The maximum number of parameters of a single statement.
      */
-    AvailableConnections(Class<? extends DatabaseConnection> clazz) {
+    AvailableConnections(Class<? extends DatabaseConnection> clazz, int maxParameters) {
+        this.type = clazz;
+        this.maxParameters = maxParameters;
         try {
             this.connection = clazz.getDeclaredConstructor().newInstance();
         } catch (ReflectiveOperationException ex) {
@@ -85,6 +91,67 @@ public enum AvailableConnections {
         return connection;
     }
 
+    /**
+     * Returns a connection pool for this connection type, creating and connecting it on first use.
+     * <p>
+     * The pool is configured through the {@code db.pool.*} keys of {@code Config} and opens its
+     * connections with the same URL, user, and password as {@link #getConnection()}. Every call
+     * returns the same pool until it is closed.
+     *
+     * @return A connected {@link PooledDatabaseConnection} for this connection type.
+     * @throws SQLException If there is an error opening the initial pooled connections.
+     * @throws UnsupportedOperationException If the configuration properties are not properly set up.
+     */
+    public synchronized PooledDatabaseConnection getPool() throws SQLException {
+        if (this.pool != null && !this.pool.isClosed()) {
+            return this.pool;
+        }
+        Config c = Config.getInstance();
+        if (c == null) {
+            throw new UnsupportedOperationException("You need to have config.properties set up. Run `Config.generate()`");
+        }
+        PooledDatabaseConnection created = new PooledDatabaseConnection(this.type);
+        created.connect(c.getDbUrl(), c.getDbUser(), c.getDbPassword());
+        this.pool = created;
+        return created;
+    }
+
+    /**
+     * Returns the maximum number of {@code ?} parameters a single statement may have on this database:
+     * 999 for SQLite (the default of {@code SQLITE_MAX_VARIABLE_NUMBER} before 3.32), 65535 for
+     * PostgreSQL and Oracle, and a conservative 1000 for MS Access through UCanAccess.
+     *
+     * @return The parameter limit.
+     */
+    public int getMaxParameters() {
+        return maxParameters;
+    }
+
+    /**
+     * Returns the connection type of the given connection, looking through pools, their leases and caches.
+     *
+     * @param connection The connection to identify.
+     * @return The {@code AvailableConnections} constant implemented by the connection.
+     * @throws IllegalArgumentException If the connection is not one of the supported types.
+     */
+    public static AvailableConnections of(DatabaseConnection connection) {
+        if (connection instanceof CachingDatabaseConnection caching) {
+            return of(caching.getDelegate());
+        }
+        Class<? extends DatabaseConnection> type = connection.getClass();
+        if (connection instanceof PooledDatabaseConnection pool) {
+            type = pool.getType();
+        } else if (connection instanceof PooledDatabaseConnection.Lease lease) {
+            type = lease.getPool().getType();
+        }
+        for (AvailableConnections available : values()) {
+            if (available.type.isAssignableFrom(type)) {
+                return available;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported connection type: " + type.getName());
+    }
+
     /**
      * Returns the name of the enum constant as a string.
      *
@@ -0,0 +1,659 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.sql.rowset.CachedRowSet;
+import io.github.kdesp73.databridge.helpers.Config;
+import io.github.kdesp73.databridge.helpers.PreparedQuery;
+import io.github.kdesp73.databridge.helpers.SqlFingerprint;
+
+/**
+ * The {@code CachingDatabaseConnection} class keeps the results of SELECT queries in memory in
+ * front of another {@link DatabaseConnection}, so that repeated reads of the same data do not
+ * reach the database.
+ * <p>
+ * Results are keyed by the {@link SqlFingerprint#canonicalize(String) canonical} text of the query
+ * and its bound values, so queries differing only in whitespace, case or comments share an entry,
+ * while queries with other literals or lists of another length never do. Only values the cache
+ * can see take part in the key: those passed as {@code Object...}, a {@link PreparedQuery} or no
+ * binder at all. Queries bound through other {@link StatementBinder}s, streams and queries inside a
+ * transaction of the wrapped connection always go to the database.
+ * </p>
+ * <p>
+ * A result is read into a {@link CachedRowSet} once and every hit returns a copy of it, so caching
+ * suits small, often read results such as lookup tables. Entries are evicted with W-TinyLFU once
+ * the cache holds {@code db.cache.size} results and expire {@code db.cache.ttl} milliseconds after
+ * they were read.
+ * Every {@code executeUpdate}, {@code executeBatch} and {@code execute} going through this connection
+ * removes the results read from the table it writes to; statements whose table cannot be told,
+ * like procedure calls, clear the whole cache. Writes made by other connections are only seen once
+ * the results expire.
+ * </p>
+ * <p>
+ * Unless {@code db.cache.coalesce} is {@code false}, identical queries missing the cache at the same
+ * time share a single execution: the first one runs on the database and the others wait for its
+ * result and get copies of it, so a burst of requests for an uncached or just invalidated result
+ * costs one query. A write going through this connection stops later queries from joining an
+ * execution started before it. With a size of {@code 0} the connection only coalesces queries.
+ * </p>
+ * <pre>
+ * DatabaseConnection db = new CachingDatabaseConnection(AvailableConnections.POSTGRES.getPool());
+ * ResultSet countries = db.executeQuery("SELECT * FROM countries WHERE region = ?", "EU"); // database
+ * countries = db.executeQuery("select * from countries where region = ?", "EU");            // cache
+ * db.executeUpdate("UPDATE countries SET name = ? WHERE code = ?", "Czechia", "CZ");        // invalidates
+ * </pre>
+ *
+ * @author KDesp73
+ */
+public class CachingDatabaseConnection implements DatabaseConnection {
+
+    private static final Set<String> STOP = Set.of(
+        "where", "join", "inner", "left", "right", "full", "cross", "natural", "outer", "on", "using",
+        "group", "order", "limit", "offset", "fetch", "union", "intersect", "except", "minus", "having",
+        "window", "for", "set", "values", "select", "returning", "lateral", "connect", "start", "pivot");
+
+    private final DatabaseConnection connection;
+    private final long ttl;
+    private final LongSupplier clock;
+    private final TinyLfuCache<Key, CachedRowSet> cache;
+    private final boolean coalesce;
+    private final Map<Key, CompletableFuture<CachedRowSet>> inFlight = new HashMap<>();
+
+    private long generation;
+    private long hits;
+    private long misses;
+    private long invalidations;
+    private long coalesced;
+
+    /**
+     * Wraps a connection, configured with the {@code db.cache.size}, {@code db.cache.ttl} and
+     * {@code db.cache.coalesce} keys of {@link Config}.
+     *
+     * @param connection the connection queries are run on.
+     */
+    public CachingDatabaseConnection(DatabaseConnection connection) {
+        this(connection, Config.getInstance().getDbCacheSize(), Config.getInstance().getDbCacheTtl(), Config.getInstance().getDbCacheCoalesce());
+    }
+
+    /**
+     * Wraps a connection, coalescing identical concurrent queries.
+     *
+     * @param connection the connection queries are run on.
+     * @param size the maximum number of cached results; {@code 0} disables caching.
+     * @param ttl the milliseconds a result stays valid; {@code 0} keeps it until evicted or invalidated.
+     */
+    public CachingDatabaseConnection(DatabaseConnection connection, int size, long ttl) {
+        this(connection, size, ttl, true);
+    }
+
+    /**
+     * Wraps a connection.
+     *
+     * @param connection the connection queries are run on.
+     * @param size the maximum number of cached results; {@code 0} disables caching.
+     * @param ttl the milliseconds a result stays valid; {@code 0} keeps it until evicted or invalidated.
+     * @param coalesce whether identical queries missing the cache at the same time share one execution.
+     */
+    public CachingDatabaseConnection(DatabaseConnection connection, int size, long ttl, boolean coalesce) {
+        this(connection, size, ttl, coalesce, System::nanoTime);
+    }
+
+    CachingDatabaseConnection(DatabaseConnection connection, int size, long ttl, boolean coalesce, LongSupplier clock) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException("Time to live must not be negative: " + ttl);
+        }
+        this.connection = Objects.requireNonNull(connection);
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+        this.clock = clock;
+        this.coalesce = coalesce;
+        this.cache = new TinyLfuCache<>(size);
+    }
+
+    /**
+     * Returns the wrapped connection.
+     *
+     * @return the connection queries are run on.
+     */
+    public DatabaseConnection getDelegate() {
+        return connection;
+    }
+
+    @Override
+    public void connect(String url, String username, String password) throws SQLException {
+        connection.connect(url, username, password);
+    }
+
+    /**
+     * Executes a SELECT SQL query, returning a cached copy of its result if there is one.
+     *
+     * @param query the SQL SELECT query string to execute.
+     * @return a disconnected {@link ResultSet} holding the rows of the result.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public ResultSet executeQuery(String query) throws SQLException {
+        return cached(query, List.of(), StatementBinder.NONE);
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query, returning a cached copy of its result if there is one
+     * and the binder is a {@link PreparedQuery} or {@link StatementBinder#NONE}.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return a disconnected {@link ResultSet} holding the rows of the result, or the result of the
+     *         wrapped connection if it cannot be cached.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public ResultSet executeQuery(String query, StatementBinder binder) throws SQLException {
+        List<Object> params = parameters(binder);
+        return params == null ? connection.executeQuery(query, binder) : cached(query, params, binder);
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query, binding the given values in order, returning a
+     * cached copy of its result if there is one.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param params the parameter values.
+     * @return a disconnected {@link ResultSet} holding the rows of the result.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public ResultSet executeQuery(String query, Object... params) throws SQLException {
+        return cached(query, values(params), StatementBinder.of(params));
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query like {@link #executeQuery(String, StatementBinder)},
+     * wrapping the result in a {@link QueryResult}.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link QueryResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public QueryResult query(String query, StatementBinder binder) throws SQLException {
+        List<Object> params = parameters(binder);
+        if (params == null) {
+            return connection.query(query, binder);
+        }
+        ResultSet resultSet = cached(query, params, binder);
+        return resultSet == null ? null : new QueryResult(resultSet, resultSet);
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query like {@link #executeQuery(String, Object...)},
+     * wrapping the result in a {@link QueryResult}.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param params the parameter values.
+     * @return a {@link QueryResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public QueryResult query(String query, Object... params) throws SQLException {
+        ResultSet resultSet = cached(query, values(params), StatementBinder.of(params));
+        return resultSet == null ? null : new QueryResult(resultSet, resultSet);
+    }
+
+    @Override
+    public StreamingResult executeStream(String query, int fetchSize, StatementBinder binder) throws SQLException {
+        return connection.executeStream(query, fetchSize, binder);
+    }
+
+    @Override
+    public int executeUpdate(String query) throws SQLException {
+        try {
+            return connection.executeUpdate(query);
+        } finally {
+            invalidateWrittenBy(query);
+        }
+    }
+
+    @Override
+    public int executeUpdate(String query, StatementBinder binder) throws SQLException {
+        try {
+            return connection.executeUpdate(query, binder);
+        } finally {
+            invalidateWrittenBy(query);
+        }
+    }
+
+    @Override
+    public <T> List<int[]> executeBatch(String query, Iterable<T> rows, RowBinder<T> binder, int batchSize) throws SQLException {
+        try {
+            return connection.executeBatch(query, rows, binder, batchSize);
+        } finally {
+            invalidateWrittenBy(query);
+        }
+    }
+
+    @Override
+    public boolean execute(String query) throws SQLException {
+        try {
+            return connection.execute(query);
+        } finally {
+            invalidateWrittenBy(query);
+        }
+    }
+
+    /**
+     * Removes every cached result.
+     */
+    public synchronized void clear() {
+        advance();
+        invalidations += cache.clear();
+    }
+
+    /**
+     * Removes the results read from any of the given tables, e.g. after they were written to by another connection.
+     *
+     * @param tables the names of the tables.
+     */
+    public synchronized void invalidate(String... tables) {
+        Set<String> names = new HashSet<>();
+        for (String table : tables) {
+            names.add(table(table));
+        }
+        advance();
+        invalidations += cache.invalidate(names);
+    }
+
+    /**
+     * Returns the number of queries that shared the execution of an identical query running at the same time.
+     *
+     * @return the number of coalesced queries.
+     */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Returns the number of queries answered from the cache.
+     *
+     * @return the number of cache hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of cacheable queries that were run on the database.
+     *
+     * @return the number of cache misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of results evicted to make room for others.
+     *
+     * @return the number of evictions.
+     */
+    public synchronized long getEvictions() {
+        return cache.evictions();
+    }
+
+    /**
+     * Returns the number of results removed because a table they were read from was written to.
+     *
+     * @return the number of invalidated results.
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the size of the cache.
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * Clears the cache and closes the wrapped connection.
+     *
+     * @throws SQLException if the wrapped connection cannot be closed.
+     */
+    @Override
+    public void close() throws SQLException {
+        clear();
+        connection.close();
+    }
+
+    @Override
+    public Connection get() {
+        return connection.get();
+    }
+
+    /**
+     * Returns a copy of the cached result of a query, reading and caching it on a miss.
+     *
+     * @param query the SQL query.
+     * @param params the bound values.
+     * @param binder the binder setting the bound values.
+     * @return a disconnected result.
+     * @throws SQLException if the query fails.
+     */
+    private ResultSet cached(String query, List<Object> params, StatementBinder binder) throws SQLException {
+        String normalized = SqlFingerprint.normalize(query);
+        if (!normalized.startsWith("select ") || normalized.endsWith(" for update") || inTransaction()) {
+            return connection.executeQuery(query, binder);
+        }
+
+        Key key = new Key(SqlFingerprint.canonicalize(query), params);
+        long started;
+        CachedRowSet hit;
+        CompletableFuture<CachedRowSet> flight = null;
+        CompletableFuture<CachedRowSet> leading = null;
+        synchronized (this) {
+            hit = cache.get(key, clock.getAsLong());
+            started = generation;
+            if (hit != null) {
+                hits++;
+            } else if (coalesce && (flight = inFlight.get(key)) != null) {
+                coalesced++;
+            } else {
+                misses++;
+                if (coalesce) {
+                    leading = new CompletableFuture<>();
+                    inFlight.put(key, leading);
+                }
+            }
+        }
+        if (hit != null) {
+            return copy(hit);
+        } else if (flight != null) {
+            CachedRowSet rows = await(flight);
+            return rows == null ? null : copy(rows);
+        }
+
+        CachedRowSet rows;
+        try {
+            rows = materialize(connection.executeQuery(query, binder));
+        } catch (SQLException | RuntimeException | Error e) {
+            finish(key, leading, null, e);
+            throw e;
+        }
+        finish(key, leading, rows, null);
+        if (rows == null) {
+            return null;
+        }
+        synchronized (this) {
+            // A write that finished while the query ran may not be part of its result
+            if (generation == started) {
+                cache.put(key, rows, read(normalized), ttl == 0 ? 0 : expiry());
+            }
+        }
+        return copy(rows);
+    }
+
+    /**
+     * Hands the result of a leading execution to the queries waiting for it.
+     *
+     * @param key the key of the query.
+     * @param leading the future of the execution, or {@code null} if queries are not coalesced.
+     * @param rows the result.
+     * @param failure the error the execution failed with, or {@code null}.
+     */
+    private void finish(Key key, CompletableFuture<CachedRowSet> leading, CachedRowSet rows, Throwable failure) {
+        if (leading == null) {
+            return;
+        }
+        synchronized (this) {
+            inFlight.remove(key, leading);
+        }
+        if (failure != null) {
+            leading.completeExceptionally(failure);
+        } else {
+            leading.complete(rows);
+        }
+    }
+
+    /**
+     * Waits for the result of an identical query running on another thread.
+     *
+     * @param flight the future of the running query.
+     * @return the result.
+     * @throws SQLException if the running query failed.
+     */
+    private static CachedRowSet await(CompletableFuture<CachedRowSet> flight) throws SQLException {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException cause) {
+                throw new SQLException(cause.getMessage(), cause.getSQLState(), cause.getErrorCode(), cause);
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Removes the results read from the table a statement writes to.
+     *
+     * @param sql the SQL statement.
+     */
+    private void invalidateWrittenBy(String sql) {
+        Set<String> tables = written(SqlFingerprint.normalize(sql));
+        synchronized (this) {
+            if (tables == null) {
+                advance();
+                invalidations += cache.clear();
+            } else if (!tables.isEmpty()) {
+                advance();
+                invalidations += cache.invalidate(tables);
+            }
+        }
+    }
+
+    /**
+     * Starts a new generation after a write: results read before it are not cached and later
+     * queries do not join executions started before it.
+     */
+    private void advance() {
+        generation++;
+        inFlight.clear();
+    }
+
+    private long expiry() {
+        long expiresAt = clock.getAsLong() + ttl;
+        return expiresAt == 0 ? 1 : expiresAt;
+    }
+
+    /**
+     * Returns whether the wrapped connection is in a transaction, whose reads must not be shared.
+     */
+    private boolean inTransaction() {
+        if (connection instanceof PooledDatabaseConnection) {
+            return false;
+        }
+        try {
+            Connection plain = connection.get();
+            return plain != null && !plain.getAutoCommit();
+        } catch (SQLException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the bound values of a binder, or {@code null} if the cache cannot see them.
+     */
+    private static List<Object> parameters(StatementBinder binder) {
+        if (binder == null || binder == StatementBinder.NONE) {
+            return List.of();
+        } else if (binder instanceof PreparedQuery prepared) {
+            return values(prepared.getParameters().toArray());
+        }
+        return null;
+    }
+
+    /**
+     * Copies bound values into a list comparable by value, turning arrays into lists.
+     */
+    private static List<Object> values(Object[] params) {
+        if (params == null) {
+            return List.of();
+        }
+        List<Object> values = new ArrayList<>(params.length);
+        for (Object param : params) {
+            values.add(param instanceof Object[] array ? values(array) : param);
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    private static CachedRowSet materialize(ResultSet resultSet) throws SQLException {
+        return resultSet instanceof CachedRowSet rows ? rows : PooledDatabaseConnection.materialize(resultSet);
+    }
+
+    /**
+     * Copies a cached result into a new {@link CachedRowSet} referencing the same values, so that
+     * moving, updating or closing the copy leaves the cached result untouched.
+     */
+    private static ResultSet copy(CachedRowSet rows) throws SQLException {
+        CachedRowSet copy = PooledDatabaseConnection.ROW_SETS.createCachedRowSet();
+        synchronized (rows) {
+            rows.beforeFirst();
+            copy.populate(rows);
+        }
+        copy.beforeFirst();
+        return copy;
+    }
+
+    /**
+     * Finds the tables a normalized SELECT reads from: the names following FROM and JOIN, and the
+     * other tables of a comma separated FROM list.
+     *
+     * @param normalized the normalized query.
+     * @return the names of the tables, lower-cased and without schema.
+     */
+    static Set<String> read(String normalized) {
+        List<String> tokens = tokens(normalized);
+        Set<String> tables = new HashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (!tokens.get(i).equals("from") && !tokens.get(i).equals("join")) {
+                continue;
+            }
+            int j = i + 1;
+            while (j < tokens.size() && !tokens.get(j).equals("(")) {
+                tables.add(table(tokens.get(j++)));
+                while (j < tokens.size() && !STOP.contains(tokens.get(j)) && !tokens.get(j).equals(",")
+                    && !tokens.get(j).equals("(") && !tokens.get(j).equals(")")) {
+                    j++;
+                }
+                if (j >= tokens.size() || !tokens.get(j).equals(",")) {
+                    break;
+                }
+                j++;
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Finds the table a normalized statement writes to.
+     *
+     * @param normalized the normalized statement.
+     * @return the name of the table, lower-cased and without schema, no names if the statement
+     *         writes nothing, or {@code null} if it cannot be told.
+     */
+    static Set<String> written(String normalized) {
+        List<String> tokens = tokens(normalized);
+        if (tokens.isEmpty()) {
+            return Set.of();
+        }
+        String target = switch (tokens.get(0)) {
+            case "select", "set", "begin", "commit", "rollback", "savepoint", "release", "explain", "show", "pragma" -> "";
+            case "insert", "replace", "merge" -> after(tokens, "into");
+            case "update" -> tokens.size() > 1 ? tokens.get(1) : null;
+            case "delete" -> after(tokens, "from");
+            case "truncate" -> tokens.size() > 1 && !tokens.get(1).equals("table") ? tokens.get(1) : after(tokens, "table");
+            case "alter", "drop" -> after(tokens, "table");
+            default -> null;
+        };
+        if (target == null) {
+            return null;
+        }
+        return target.isEmpty() ? Set.of() : Set.of(table(target));
+    }
+
+    private static String after(List<String> tokens, String keyword) {
+        int at = tokens.indexOf(keyword);
+        if (at < 0 || at + 1 >= tokens.size() || tokens.get(at + 1).equals("(")) {
+            return null;
+        }
+        String name = tokens.get(at + 1);
+        return name.equals("if") ? null : name;
+    }
+
+    /**
+     * Splits a normalized statement into words, keeping parentheses and commas as tokens of their own.
+     */
+    private static List<String> tokens(String normalized) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        char quote = 0;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (c == '"' || c == '`' || c == '[') {
+                quote = c == '[' ? ']' : c;
+                start = start < 0 ? i : start;
+            } else if (c == ' ' || c == '(' || c == ')' || c == ',' || c == ';') {
+                if (start >= 0) {
+                    tokens.add(normalized.substring(start, i));
+                    start = -1;
+                }
+                if (c != ' ') {
+                    tokens.add(String.valueOf(c));
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(normalized.substring(start));
+        }
+        return tokens;
+    }
+
+    /**
+     * Turns a possibly qualified, possibly quoted table name into the name results are tagged with.
+     */
+    private static String table(String name) {
+        String unquoted = name.replace("\"", "").replace("`", "").replace("[", "").replace("]", "");
+        return unquoted.substring(unquoted.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The key of a cached result.
+     *
+     * @param sql the canonical query, with its literals and lists as written.
+     * @param params the bound values.
+     */
+    private record Key(String sql, List<Object> params) {}
+}
@@ -3,6 +3,8 @@ package io.github.kdesp73.databridge.connections;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import io.github.kdesp73.databridge.helpers.Config;
 
 /**
  * The {@code DatabaseConnection} interface provides methods for interacting with
@@ -38,6 +40,97 @@ public interface DatabaseConnection extends AutoCloseable {
      */
     ResultSet executeQuery(String query) throws SQLException;
 
+    /**
+     * Executes a parameterized SELECT SQL query and returns the result as a {@link ResultSet}.
+     * <p>
+     * The query uses {@code ?} placeholders whose values are set by the binder, so the same
+     * statement (and its server-side plan) can be reused for different values.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link ResultSet} containing the result of the query.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    ResultSet executeQuery(String query, StatementBinder binder) throws SQLException;
+
+    /**
+     * Executes a parameterized SELECT SQL query, binding the given values in order.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param params the parameter values.
+     * @return a {@link ResultSet} containing the result of the query.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    default ResultSet executeQuery(String query, Object... params) throws SQLException {
+        return executeQuery(query, StatementBinder.of(params));
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query and returns a {@link QueryResult} that releases
+     * the underlying statement when closed.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link QueryResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    QueryResult query(String query, StatementBinder binder) throws SQLException;
+
+    /**
+     * Executes a parameterized SELECT SQL query, binding the given values in order, and returns
+     * a {@link QueryResult} that releases the underlying statement when closed.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param params the parameter values.
+     * @return a {@link QueryResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    default QueryResult query(String query, Object... params) throws SQLException {
+        return query(query, StatementBinder.of(params));
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query whose rows are streamed from the database
+     * in chunks of {@code fetchSize} rows rather than loaded in memory at once.
+     * <p>
+     * The result is forward-only and read-only. If the driver needs a transaction for a
+     * server-side cursor, the connection leaves auto-commit mode until the result is closed.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param fetchSize the number of rows fetched per round trip; {@code 0} uses {@code db.fetch.size}.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link StreamingResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    StreamingResult executeStream(String query, int fetchSize, StatementBinder binder) throws SQLException;
+
+    /**
+     * Executes a parameterized SELECT SQL query whose rows are streamed from the database,
+     * binding the given values in order.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param fetchSize the number of rows fetched per round trip; {@code 0} uses {@code db.fetch.size}.
+     * @param params the parameter values.
+     * @return a {@link StreamingResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    default StreamingResult executeStream(String query, int fetchSize, Object... params) throws SQLException {
+        return executeStream(query, fetchSize, StatementBinder.of(params));
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query whose rows are streamed from the database
+     * in chunks of {@code db.fetch.size} rows.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link StreamingResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    default StreamingResult executeStream(String query, StatementBinder binder) throws SQLException {
+        return executeStream(query, 0, binder);
+    }
+
     /**
      * Executes an UPDATE SQL query (e.g., INSERT, UPDATE, DELETE) and returns the number
      * of rows affected by the operation.
@@ -48,6 +141,76 @@ public interface DatabaseConnection extends AutoCloseable {
      */
     int executeUpdate(String query) throws SQLException;
 
+    /**
+     * Executes a parameterized UPDATE SQL query (e.g., INSERT, UPDATE, DELETE) and returns the
+     * number of rows affected by the operation.
+     *
+     * @param query the SQL UPDATE query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return the number of rows affected by the update.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    int executeUpdate(String query, StatementBinder binder) throws SQLException;
+
+    /**
+     * Executes a parameterized UPDATE SQL query, binding the given values in order.
+     *
+     * @param query the SQL UPDATE query string with {@code ?} placeholders.
+     * @param params the parameter values.
+     * @return the number of rows affected by the update.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    default int executeUpdate(String query, Object... params) throws SQLException {
+        return executeUpdate(query, StatementBinder.of(params));
+    }
+
+    /**
+     * Executes a parameterized UPDATE SQL query once per row using JDBC batches.
+     * <p>
+     * Rows are bound with {@code binder} and sent to the database in batches of at most
+     * {@code batchSize} rows. When the connection is in auto-commit mode each batch runs in its
+     * own transaction and is retried as a whole after a transient failure. Run the batch inside a
+     * {@link io.github.kdesp73.databridge.helpers.Transaction} to make the whole operation atomic;
+     * a failed batch is then thrown at once instead of being retried.
+     *
+     * @param <T> the type of the rows.
+     * @param query the SQL UPDATE query string with {@code ?} placeholders.
+     * @param rows the rows to bind, iterated once.
+     * @param binder the binder setting the parameter values of each row.
+     * @param batchSize the maximum number of rows sent in a single batch.
+     * @return the update counts reported by the driver, one array per batch.
+     * @throws SQLException if a database access error occurs or a batch fails.
+     */
+    <T> List<int[]> executeBatch(String query, Iterable<T> rows, RowBinder<T> binder, int batchSize) throws SQLException;
+
+    /**
+     * Executes a parameterized UPDATE SQL query once per row using JDBC batches of the size
+     * configured with {@code db.batch.size}.
+     *
+     * @param <T> the type of the rows.
+     * @param query the SQL UPDATE query string with {@code ?} placeholders.
+     * @param rows the rows to bind, iterated once.
+     * @param binder the binder setting the parameter values of each row.
+     * @return the update counts reported by the driver, one array per batch.
+     * @throws SQLException if a database access error occurs or a batch fails after all retries.
+     */
+    default <T> List<int[]> executeBatch(String query, Iterable<T> rows, RowBinder<T> binder) throws SQLException {
+        return executeBatch(query, rows, binder, Config.getInstance().getDbBatchSize());
+    }
+
+    /**
+     * Executes a parameterized UPDATE SQL query once per row using JDBC batches of the size
+     * configured with {@code db.batch.size}. Each row holds the parameter values in order.
+     *
+     * @param query the SQL UPDATE query string with {@code ?} placeholders.
+     * @param rows the parameter values of each row, iterated once.
+     * @return the update counts reported by the driver, one array per batch.
+     * @throws SQLException if a database access error occurs or a batch fails after all retries.
+     */
+    default List<int[]> executeBatch(String query, Iterable<Object[]> rows) throws SQLException {
+        return executeBatch(query, rows, RowBinder.values());
+    }
+
     /**
      * Executes a DDL SQL query (e.g., CREATE, ALTER, DROP) and returns whether the execution
      * was successful.
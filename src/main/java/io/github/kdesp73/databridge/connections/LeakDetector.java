@@ -0,0 +1,59 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import io.github.kdesp73.databridge.helpers.Config;
+import io.github.kdesp73.databridge.helpers.SQLogger;
+import io.github.kdesp73.databridge.helpers.SQLogger.LogLevel;
+import io.github.kdesp73.databridge.helpers.SQLogger.LogType;
+
+/**
+ * Reports resources that are still open after a threshold, along with the stack trace
+ * of the code that opened them.
+ *
+ * @author KDesp73
+ */
+final class LeakDetector {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "databridge-leak-detector");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Private constructor to avoid external instantiation
+     */
+    private LeakDetector() {}
+
+    /**
+     * Starts watching a resource opened by the caller. The returned future must be
+     * cancelled when the resource is closed.
+     *
+     * @param resource the name of the resource type, used in the report.
+     * @param threshold the time in milliseconds after which an open resource is reported.
+     * @return the scheduled check.
+     */
+    static ScheduledFuture<?> watch(String resource, long threshold) {
+        Throwable origin = new Throwable(resource + " opened here");
+        return SCHEDULER.schedule(() -> report(resource, threshold, origin), threshold, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Logs a resource that was not closed in time.
+     *
+     * @param resource the name of the resource type.
+     * @param threshold the leak detection threshold in milliseconds.
+     * @param origin the throwable capturing where the resource was opened.
+     */
+    private static void report(String resource, long threshold, Throwable origin) {
+        StringBuilder message = new StringBuilder()
+            .append(String.format("[WARN %s] Possible leak: %s not closed within %dms", SQLogger.getCurrentTimestamp(), resource, threshold));
+        for (StackTraceElement element : origin.getStackTrace()) {
+            message.append("\n    at ").append(element);
+        }
+        SQLogger.getLogger(LogLevel.WARN, LogType.ALL).log(Config.getInstance().getLogLevel(), message.toString());
+    }
+}
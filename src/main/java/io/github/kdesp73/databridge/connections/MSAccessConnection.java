@@ -1,7 +1,9 @@
 package io.github.kdesp73.databridge.connections;
 
 import java.sql.*;
+import java.util.List;
 import io.github.kdesp73.databridge.helpers.Again;
+import io.github.kdesp73.databridge.helpers.Config;
 
 /**
  * The {@code MSAccessConnection} class implements the {@link DatabaseConnection} interface
@@ -19,6 +21,7 @@ import io.github.kdesp73.databridge.helpers.Again;
 public class MSAccessConnection implements DatabaseConnection {
 
     private Connection connection;
+    private StatementCache statements;
 
     /**
      * Returns the underlying {@link Connection} object for the MS Access database.
@@ -30,6 +33,16 @@ public class MSAccessConnection implements DatabaseConnection {
         return this.connection;
     }
 
+    /**
+     * Returns the cache of prepared statements used by this connection, e.g. to read its
+     * hit, miss, and eviction counters.
+     *
+     * @return the {@link StatementCache} of this connection, or {@code null} if not connected.
+     */
+    public StatementCache getStatementCache() {
+        return this.statements;
+    }
+
     /**
      * Establishes a connection to the MS Access database.
      * <p>
@@ -50,6 +63,7 @@ public class MSAccessConnection implements DatabaseConnection {
         try {
             Class.forName("net.ucanaccess.jdbc.UcanaccessDriver");
             connection = DriverManager.getConnection(url, username, password);
+            statements = new StatementCache(connection);
         } catch (ClassNotFoundException e) {
             throw new SQLException("UCanAccess driver not found. Check https://mvnrepository.com/artifact/net.sf.ucanaccess/ucanaccess to get the latest version", e);
         }
@@ -66,18 +80,51 @@ public class MSAccessConnection implements DatabaseConnection {
      */
     @Override
     public int executeUpdate(String query) throws SQLException {
+        return executeUpdate(query, StatementBinder.NONE);
+    }
+
+    /**
+     * Executes a parameterized UPDATE SQL query (INSERT, UPDATE, DELETE) on the MS Access database.
+     * <p>
+     * This method attempts the query execution with retries in case of failure, using the {@link Again} helper.
+     *
+     * @param query the SQL query string to execute.
+     * @param binder the binder setting the parameter values.
+     * @return the number of rows affected by the query.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public int executeUpdate(String query, StatementBinder binder) throws SQLException {
         validateConnection();
-        return Again.retryWithDelay(() -> {
-            try (PreparedStatement statement = connection.prepareStatement(query)) {
-                return statement.executeUpdate();
-            }
-        }, Again.retries(), Again.delay());
+        return Again.retryWithDelay(() -> statements.executeUpdate(query, binder), Again.retries(), Again.delay());
+    }
+
+    /**
+     * Executes a parameterized UPDATE SQL query once per row on the MS Access database using JDBC batches.
+     * <p>
+     * Each batch of at most {@code batchSize} rows is retried as a whole using the {@link Again} helper.
+     *
+     * @param <T> the type of the rows.
+     * @param query the SQL query string with {@code ?} placeholders.
+     * @param rows the rows to bind, iterated once.
+     * @param binder the binder setting the parameter values of each row.
+     * @param batchSize the maximum number of rows sent in a single batch.
+     * @return the update counts reported by the driver, one array per batch.
+     * @throws SQLException if a database access error occurs or a batch fails after all retries.
+     */
+    @Override
+    public <T> List<int[]> executeBatch(String query, Iterable<T> rows, RowBinder<T> binder, int batchSize) throws SQLException {
+        validateConnection();
+        return statements.executeBatch(query, rows, binder, batchSize);
     }
 
     /**
      * Executes a SELECT SQL query and returns the result as a {@link ResultSet}.
      * <p>
      * This method attempts the query execution with retries in case of failure, using the {@link Again} helper.
+     * <p>
+     * The statement comes from the connection's {@link StatementCache} and is reused by later
+     * executions of the same query once the returned {@link ResultSet} is closed.
      *
      * @param query the SQL SELECT query string to execute.
      * @return a {@link ResultSet} containing the result of the query.
@@ -85,11 +132,62 @@ public class MSAccessConnection implements DatabaseConnection {
      */
     @Override
     public ResultSet executeQuery(String query) throws SQLException {
+        return executeQuery(query, StatementBinder.NONE);
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query and returns the result as a {@link ResultSet}.
+     * <p>
+     * This method attempts the query execution with retries in case of failure, using the {@link Again} helper.
+     * <p>
+     * The statement comes from the connection's {@link StatementCache} and is reused by later
+     * executions of the same query once the returned {@link ResultSet} is closed.
+     *
+     * @param query the SQL SELECT query string to execute.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link ResultSet} containing the result of the query.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public ResultSet executeQuery(String query, StatementBinder binder) throws SQLException {
         validateConnection();
-        return Again.retryWithDelay(() -> {
-            PreparedStatement statement = connection.prepareStatement(query);
-            return statement.executeQuery();
-        }, Again.retries(), Again.delay());
+        return Again.retryWithDelay(() -> statements.executeQuery(query, binder), Again.retries(), Again.delay());
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query on the MS Access database and returns a {@link QueryResult}
+     * that hands its statement back to the connection's {@link StatementCache} when closed.
+     * <p>
+     * This method attempts the query execution with retries in case of failure, using the {@link Again} helper.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link QueryResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public QueryResult query(String query, StatementBinder binder) throws SQLException {
+        validateConnection();
+        return Again.retryWithDelay(() -> statements.query(query, binder), Again.retries(), Again.delay());
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query on the MS Access database and streams its rows
+     * in chunks of {@code fetchSize} rows using a forward-only, read-only cursor.
+     * <p>
+     * The fetch size is passed to the driver as a hint.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param fetchSize the number of rows fetched per round trip; {@code 0} uses {@code db.fetch.size}.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link StreamingResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public StreamingResult executeStream(String query, int fetchSize, StatementBinder binder) throws SQLException {
+        validateConnection();
+        int rows = fetchSize > 0 ? fetchSize : Config.getInstance().getDbFetchSize();
+        return Again.retryWithDelay(() -> StreamingResult.open(connection, query, rows, binder, false), Again.retries(), Again.delay());
     }
 
     /**
@@ -120,6 +218,7 @@ public class MSAccessConnection implements DatabaseConnection {
     public void close() {
         if (connection != null) {
             try {
+                statements.close();
                 connection.close();
             } catch (SQLException e) {
                 System.err.println("Error closing database connection: " + e.getMessage());
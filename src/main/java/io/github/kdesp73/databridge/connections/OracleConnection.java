@@ -1,6 +1,7 @@
 package io.github.kdesp73.databridge.connections;
 
 import java.sql.*;
+import java.util.List;
 import io.github.kdesp73.databridge.helpers.Again;
 import io.github.kdesp73.databridge.helpers.Config;
 import io.github.kdesp73.databridge.helpers.SQLogger;
@@ -19,6 +20,7 @@ import io.github.kdesp73.databridge.helpers.SQLogger;
 public class OracleConnection implements DatabaseConnection {
 
     private Connection connection;
+    private StatementCache statements;
 
     /**
      * Returns the underlying {@link Connection} object for the Oracle database.
@@ -30,6 +32,16 @@ public class OracleConnection implements DatabaseConnection {
         return this.connection;
     }
 
+    /**
+     * Returns the cache of prepared statements used by this connection, e.g. to read its
+     * hit, miss, and eviction counters.
+     *
+     * @return the {@link StatementCache} of this connection, or {@code null} if not connected.
+     */
+    public StatementCache getStatementCache() {
+        return this.statements;
+    }
+
     /**
      * Establishes a connection to the Oracle database.
      *
@@ -46,6 +58,7 @@ public class OracleConnection implements DatabaseConnection {
         try {
             Class.forName("oracle.jdbc.driver.OracleDriver");
             connection = DriverManager.getConnection(url, username, password);
+            statements = new StatementCache(connection);
         } catch (ClassNotFoundException e) {
             SQLogger.getLogger(SQLogger.LogLevel.ERRO, SQLogger.LogType.FILE).log(Config.getInstance().getLogLevel(),
                 "Oracle Connection Failed", e);
@@ -62,15 +75,45 @@ public class OracleConnection implements DatabaseConnection {
      */
     @Override
     public int executeUpdate(String query) throws SQLException {
-        return Again.retryWithDelay(() -> {
-            try (PreparedStatement statement = connection.prepareStatement(query)) {
-                return statement.executeUpdate();
-            }
-        }, Again.retries(), Again.delay());
+        return executeUpdate(query, StatementBinder.NONE);
+    }
+
+    /**
+     * Executes a parameterized UPDATE SQL query (INSERT, UPDATE, DELETE) on the Oracle database.
+     *
+     * @param query the SQL query string to execute.
+     * @param binder the binder setting the parameter values.
+     * @return the number of rows affected by the query.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public int executeUpdate(String query, StatementBinder binder) throws SQLException {
+        return Again.retryWithDelay(() -> statements.executeUpdate(query, binder), Again.retries(), Again.delay());
+    }
+
+    /**
+     * Executes a parameterized UPDATE SQL query once per row on the Oracle database using JDBC batches.
+     * <p>
+     * Each batch of at most {@code batchSize} rows is retried as a whole using the {@link Again} helper.
+     *
+     * @param <T> the type of the rows.
+     * @param query the SQL query string with {@code ?} placeholders.
+     * @param rows the rows to bind, iterated once.
+     * @param binder the binder setting the parameter values of each row.
+     * @param batchSize the maximum number of rows sent in a single batch.
+     * @return the update counts reported by the driver, one array per batch.
+     * @throws SQLException if a database access error occurs or a batch fails after all retries.
+     */
+    @Override
+    public <T> List<int[]> executeBatch(String query, Iterable<T> rows, RowBinder<T> binder, int batchSize) throws SQLException {
+        return statements.executeBatch(query, rows, binder, batchSize);
     }
 
     /**
      * Executes a SELECT SQL query and returns the result as a {@link ResultSet}.
+     * <p>
+     * The statement comes from the connection's {@link StatementCache} and is reused by later
+     * executions of the same query once the returned {@link ResultSet} is closed.
      *
      * @param query the SQL SELECT query string to execute.
      * @return a {@link ResultSet} containing the result of the query.
@@ -78,10 +121,57 @@ public class OracleConnection implements DatabaseConnection {
      */
     @Override
     public ResultSet executeQuery(String query) throws SQLException {
-        return Again.retryWithDelay(() -> {
-            PreparedStatement statement = connection.prepareStatement(query);
-            return statement.executeQuery();
-        }, Again.retries(), Again.delay());
+        return executeQuery(query, StatementBinder.NONE);
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query and returns the result as a {@link ResultSet}.
+     * <p>
+     * The statement comes from the connection's {@link StatementCache} and is reused by later
+     * executions of the same query once the returned {@link ResultSet} is closed.
+     *
+     * @param query the SQL SELECT query string to execute.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link ResultSet} containing the result of the query.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public ResultSet executeQuery(String query, StatementBinder binder) throws SQLException {
+        return Again.retryWithDelay(() -> statements.executeQuery(query, binder), Again.retries(), Again.delay());
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query on the Oracle database and returns a {@link QueryResult}
+     * that hands its statement back to the connection's {@link StatementCache} when closed.
+     * <p>
+     * This method attempts the query execution with retries in case of failure, using the {@link Again} helper.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link QueryResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public QueryResult query(String query, StatementBinder binder) throws SQLException {
+        return Again.retryWithDelay(() -> statements.query(query, binder), Again.retries(), Again.delay());
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query on the Oracle database and streams its rows
+     * in chunks of {@code fetchSize} rows using a forward-only, read-only cursor.
+     * <p>
+     * The Oracle driver fetches {@code fetchSize} rows per round trip, so no transaction is needed.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param fetchSize the number of rows fetched per round trip; {@code 0} uses {@code db.fetch.size}.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link StreamingResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public StreamingResult executeStream(String query, int fetchSize, StatementBinder binder) throws SQLException {
+        int rows = fetchSize > 0 ? fetchSize : Config.getInstance().getDbFetchSize();
+        return Again.retryWithDelay(() -> StreamingResult.open(connection, query, rows, binder, false), Again.retries(), Again.delay());
     }
 
     /**
@@ -108,6 +198,7 @@ public class OracleConnection implements DatabaseConnection {
     @Override
     public void close() throws SQLException {
         if (connection != null) {
+            statements.close();
             connection.close();
         }
     }
@@ -121,7 +212,7 @@ public class OracleConnection implements DatabaseConnection {
      * @param functionName the name of the Oracle function to call.
      * @param params the parameters to pass to the function.
      * @return a {@link ResultSet} containing the results of the function call. The caller is responsible
-     *         for closing the {@link ResultSet}.
+     *         for closing the {@link ResultSet}, which also closes its statement.
      * @throws SQLException if an error occurs during the function call.
      */
     public ResultSet callFunction(String functionName, Object... params) throws SQLException {
@@ -137,6 +228,7 @@ public class OracleConnection implements DatabaseConnection {
 
         try {
             PreparedStatement stmt = connection.prepareStatement(sql.toString());
+            stmt.closeOnCompletion();
             for (int i = 0; i < params.length; i++) {
                 stmt.setObject(i + 1, params[i]);
             }
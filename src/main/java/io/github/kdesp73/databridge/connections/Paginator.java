@@ -0,0 +1,213 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import io.github.kdesp73.databridge.exceptions.UncheckedSQLException;
+import io.github.kdesp73.databridge.helpers.Adapter;
+import io.github.kdesp73.databridge.helpers.PreparedQuery;
+import io.github.kdesp73.databridge.helpers.QueryBuilder;
+import io.github.kdesp73.databridge.helpers.RowMapper;
+
+/**
+ * The {@code Paginator} class reads a whole table page by page with keyset (seek) pagination,
+ * fetching the next page in the background while the current one is processed.
+ * <p>
+ * Instead of skipping rows with an offset, which gets slower with every page, each page starts
+ * after the last key of the previous one: {@code WHERE key > ? ORDER BY key} limited to the page
+ * size in the syntax of the database. With an index on the key every page costs the same. The key
+ * column must be unique and not null, and rows are returned in ascending key order.
+ * </p>
+ * <p>
+ * As soon as a page is handed to the caller, the next one is fetched on an {@link Executor}, a new
+ * virtual thread unless one is given, so reading and processing overlap. At most one query runs at
+ * a time per iteration, but it runs on another thread than the caller: use a
+ * {@link PooledDatabaseConnection}, or don't use the connection elsewhere while iterating.
+ * </p>
+ * <pre>
+ * Paginator&lt;Event&gt; events = Paginator.of(conn, Event.class, "events", "id", 1000);
+ * for (List&lt;Event&gt; page : events) {
+ *     process(page);
+ * }
+ * long errors = events.stream().filter(Event::isError).count();
+ * </pre>
+ *
+ * @param <T> the type of the rows.
+ * @author KDesp73
+ */
+public class Paginator<T> implements Iterable<List<T>> {
+
+    private final DatabaseConnection connection;
+    private final String keyColumn;
+    private final int pageSize;
+    private final RowMapper<T> mapper;
+    private final Executor executor;
+    private final PreparedQuery first;
+    private final PreparedQuery after;
+
+    /**
+     * Creates a paginator over a table, picking the syntax from the type of the connection.
+     *
+     * @param connection the connection the pages are read with.
+     * @param table the table to read.
+     * @param keyColumn the unique, not null column the rows are ordered by.
+     * @param pageSize the number of rows per page.
+     * @param mapper the mapper turning each row into an object.
+     */
+    public Paginator(DatabaseConnection connection, String table, String keyColumn, int pageSize, RowMapper<T> mapper) {
+        this(connection, AvailableConnections.of(connection), table, keyColumn, pageSize, mapper, task -> Thread.ofVirtual().start(task));
+    }
+
+    /**
+     * Creates a paginator over a table.
+     *
+     * @param connection the connection the pages are read with.
+     * @param dialect the database the queries are written for.
+     * @param table the table to read.
+     * @param keyColumn the unique, not null column the rows are ordered by.
+     * @param pageSize the number of rows per page.
+     * @param mapper the mapper turning each row into an object.
+     * @param executor the executor pages are fetched on.
+     */
+    public Paginator(DatabaseConnection connection, AvailableConnections dialect, String table, String keyColumn,
+                     int pageSize, RowMapper<T> mapper, Executor executor) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        this.connection = Objects.requireNonNull(connection);
+        this.keyColumn = Objects.requireNonNull(keyColumn);
+        this.pageSize = pageSize;
+        this.mapper = Objects.requireNonNull(mapper);
+        this.executor = Objects.requireNonNull(executor);
+        this.first = new QueryBuilder(dialect).select().from(table).orderBy(keyColumn).limit(pageSize).prepare();
+        this.after = new QueryBuilder(dialect).select().from(table).where(keyColumn + " > ?", (Object) null)
+            .orderBy(keyColumn).limit(pageSize).prepare();
+    }
+
+    /**
+     * Creates a paginator over a table whose rows are mapped with {@link Adapter#mapper(Class)}.
+     *
+     * @param <T> the type of the rows.
+     * @param connection the connection the pages are read with.
+     * @param type the class the rows are mapped to.
+     * @param table the table to read.
+     * @param keyColumn the unique, not null column the rows are ordered by.
+     * @param pageSize the number of rows per page.
+     * @return the paginator.
+     */
+    public static <T> Paginator<T> of(DatabaseConnection connection, Class<T> type, String table, String keyColumn, int pageSize) {
+        return new Paginator<>(connection, table, keyColumn, pageSize, Adapter.mapper(type));
+    }
+
+    /**
+     * Returns an iterator over the pages, starting to fetch the first one right away. Every page
+     * but the last holds exactly the page size of rows. Errors are thrown as {@link UncheckedSQLException}.
+     *
+     * @return an iterator over the pages.
+     */
+    @Override
+    public Iterator<List<T>> iterator() {
+        return new Pages();
+    }
+
+    /**
+     * Returns a lazy stream of the rows of every page, in key order.
+     *
+     * @return a stream of the rows.
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .flatMap(List::stream);
+    }
+
+    /**
+     * Starts fetching a page in the background.
+     *
+     * @param query the query of the page.
+     * @return a future completed with the page.
+     */
+    private CompletableFuture<Page<T>> fetch(PreparedQuery query) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (ResultSet resultSet = query.executeQuery(connection)) {
+                if (resultSet == null) {
+                    throw new SQLException("Query failed: " + query.getSql());
+                }
+                List<T> rows = new ArrayList<>(pageSize);
+                Object lastKey = null;
+                while (resultSet.next()) {
+                    rows.add(mapper.map(resultSet));
+                    lastKey = resultSet.getObject(keyColumn);
+                }
+                return new Page<>(rows, lastKey);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * The rows of a page and the key of its last row.
+     *
+     * @param <T> the type of the rows.
+     * @param rows the rows.
+     * @param lastKey the key the next page starts after.
+     */
+    private record Page<T>(List<T> rows, Object lastKey) {}
+
+    /**
+     * Hands out the fetched pages, starting the fetch of the next page before returning one.
+     */
+    private final class Pages implements Iterator<List<T>> {
+        private CompletableFuture<Page<T>> pending = fetch(first);
+        private Page<T> ready;
+
+        @Override
+        public boolean hasNext() {
+            if (ready != null) {
+                return true;
+            }
+            if (pending == null) {
+                return false;
+            }
+            try {
+                ready = pending.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof SQLException cause) {
+                    throw new UncheckedSQLException(cause);
+                }
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            } finally {
+                pending = null;
+            }
+            if (ready.rows().isEmpty()) {
+                ready = null;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public List<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Page<T> page = ready;
+            ready = null;
+            if (page.rows().size() == pageSize) {
+                pending = fetch(after.bind(page.lastKey()));
+            }
+            return page.rows();
+        }
+    }
+}
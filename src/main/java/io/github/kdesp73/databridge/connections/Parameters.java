@@ -0,0 +1,169 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * The {@code Parameters} class is a reusable, ordered list of statement parameters that
+ * keeps primitive values unboxed.
+ * <p>
+ * Values are appended with the typed {@code add} methods and bound with the matching typed
+ * setter of {@link PreparedStatement}. Calling {@link #clear()} allows the same instance to
+ * be refilled for the next execution, so hot loops allocate nothing per call.
+ * </p>
+ * <pre>
+ * Parameters params = new Parameters();
+ * for (Order order : orders) {
+ *     params.clear().add(order.getQuantity()).add(order.getId());
+ *     conn.executeUpdate("UPDATE orders SET quantity = ? WHERE id = ?", params);
+ * }
+ * </pre>
+ *
+ * @author KDesp73
+ */
+public class Parameters implements StatementBinder {
+
+    private static final byte INT = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte OBJECT = 4;
+
+    private byte[] types;
+    private long[] primitives;
+    private Object[] objects;
+    private int size;
+
+    /**
+     * Creates an empty parameter list.
+     */
+    public Parameters() {
+        this(8);
+    }
+
+    /**
+     * Creates an empty parameter list with room for the given number of values.
+     *
+     * @param capacity the initial capacity.
+     */
+    public Parameters(int capacity) {
+        int initial = Math.max(1, capacity);
+        this.types = new byte[initial];
+        this.primitives = new long[initial];
+        this.objects = new Object[initial];
+    }
+
+    /**
+     * Appends an {@code int} parameter.
+     *
+     * @param value the value.
+     * @return this instance.
+     */
+    public Parameters add(int value) {
+        return push(INT, value, null);
+    }
+
+    /**
+     * Appends a {@code long} parameter.
+     *
+     * @param value the value.
+     * @return this instance.
+     */
+    public Parameters add(long value) {
+        return push(LONG, value, null);
+    }
+
+    /**
+     * Appends a {@code double} parameter.
+     *
+     * @param value the value.
+     * @return this instance.
+     */
+    public Parameters add(double value) {
+        return push(DOUBLE, Double.doubleToRawLongBits(value), null);
+    }
+
+    /**
+     * Appends a {@code boolean} parameter.
+     *
+     * @param value the value.
+     * @return this instance.
+     */
+    public Parameters add(boolean value) {
+        return push(BOOLEAN, value ? 1 : 0, null);
+    }
+
+    /**
+     * Appends an object parameter, bound with {@link PreparedStatement#setObject(int, Object)}
+     * or as SQL {@code NULL}.
+     *
+     * @param value the value.
+     * @return this instance.
+     */
+    public Parameters add(Object value) {
+        return push(OBJECT, 0, value);
+    }
+
+    /**
+     * Removes every parameter so the instance can be reused.
+     *
+     * @return this instance.
+     */
+    public Parameters clear() {
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+        return this;
+    }
+
+    /**
+     * Returns the number of parameters.
+     *
+     * @return the number of parameters.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Binds every parameter, in order, starting from the first placeholder.
+     *
+     * @param statement the statement to bind.
+     * @throws SQLException if a parameter cannot be set.
+     */
+    @Override
+    public void bind(PreparedStatement statement) throws SQLException {
+        for (int i = 0; i < size; i++) {
+            int index = i + 1;
+            switch (types[i]) {
+                case INT -> statement.setInt(index, (int) primitives[i]);
+                case LONG -> statement.setLong(index, primitives[i]);
+                case DOUBLE -> statement.setDouble(index, Double.longBitsToDouble(primitives[i]));
+                case BOOLEAN -> statement.setBoolean(index, primitives[i] != 0);
+                default -> StatementBinder.bind(statement, index, objects[i]);
+            }
+        }
+    }
+
+    /**
+     * Appends a value, growing the backing arrays when needed.
+     *
+     * @param type the type tag of the value.
+     * @param primitive the primitive bits of the value.
+     * @param object the object value.
+     * @return this instance.
+     */
+    private Parameters push(byte type, long primitive, Object object) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            primitives = Arrays.copyOf(primitives, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+        }
+        types[size] = type;
+        primitives[size] = primitive;
+        objects[size] = object;
+        size++;
+        return this;
+    }
+}
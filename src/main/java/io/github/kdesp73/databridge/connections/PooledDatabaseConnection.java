@@ -0,0 +1,712 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetProvider;
+import io.github.kdesp73.databridge.helpers.Config;
+import io.github.kdesp73.databridge.helpers.SQLogger;
+import io.github.kdesp73.databridge.helpers.SQLogger.LogLevel;
+import io.github.kdesp73.databridge.helpers.SQLogger.LogType;
+
+/**
+ * The {@code PooledDatabaseConnection} class implements the {@link DatabaseConnection} interface
+ * on top of a pool of physical connections of a single type (e.g. {@link PostgresConnection}).
+ * <p>
+ * Callers that need a dedicated connection (for a {@link io.github.kdesp73.databridge.helpers.Transaction}
+ * or to keep a {@link ResultSet} open) borrow one with {@link #lease()} and give it back by closing
+ * the returned {@link Lease}. The {@code execute*} methods of the pool itself borrow a connection
+ * for the duration of a single call. Because the connection goes back to the pool right after the call,
+ * {@link #executeQuery(String)} returns a disconnected {@link CachedRowSet} copy of the result.
+ * <p>
+ * The pool keeps between {@code minSize} and {@code maxSize} connections open. Idle connections
+ * are evicted after {@code idleTimeout} milliseconds (never below {@code minSize}), every connection
+ * is retired after {@code maxLifetime} milliseconds, and connections that have been idle for a while
+ * are validated with {@link Connection#isValid(int)} before being handed out. Leasing and returning
+ * only touch a {@link Semaphore} and a lock-free deque, so they scale with the number of callers.
+ * <p>
+ * The pool settings are read from the {@code db.pool.*} keys of {@link Config} unless given explicitly.
+ *
+ * @author KDesp73
+ */
+public class PooledDatabaseConnection implements DatabaseConnection {
+
+    // Connections idle for less than this are handed out without validation
+    private static final long VALIDATION_INTERVAL_MS = 500;
+
+    // Pause between two polls of the idle deque while a returned connection is in transit
+    private static final long SPIN_WAIT_NS = 50000;
+
+    // Upper bound for the interval between two housekeeping runs
+    private static final long HOUSEKEEPING_PERIOD_MS = 30000;
+
+    // Looked up once: RowSetProvider.newFactory() searches the class path on every call
+    static final RowSetFactory ROW_SETS = rowSetFactory();
+
+    private final Class<? extends DatabaseConnection> type;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeout;
+    private final long maxLifetime;
+    private final long acquireTimeout;
+    private final int validationTimeout;
+
+    private final ConcurrentLinkedDeque<Entry> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final Semaphore permits;
+
+    private volatile String url;
+    private volatile String username;
+    private volatile String password;
+    private volatile boolean closed;
+    private ScheduledExecutorService housekeeper;
+
+    /**
+     * Creates a pool of connections of the given type, configured through the {@code db.pool.*}
+     * keys of {@link Config}.
+     *
+     * @param type the {@link DatabaseConnection} implementation to pool.
+     */
+    public PooledDatabaseConnection(Class<? extends DatabaseConnection> type) {
+        this(type,
+            Config.getInstance().getDbPoolMinSize(),
+            Config.getInstance().getDbPoolMaxSize(),
+            Config.getInstance().getDbPoolIdleTimeout(),
+            Config.getInstance().getDbPoolMaxLifetime(),
+            Config.getInstance().getDbPoolAcquireTimeout(),
+            Config.getInstance().getDbPoolValidationTimeout());
+    }
+
+    /**
+     * Creates a pool of connections of the given type with explicit settings.
+     *
+     * @param type the {@link DatabaseConnection} implementation to pool.
+     * @param minSize the number of connections kept open even when idle.
+     * @param maxSize the maximum number of connections open at the same time.
+     * @param idleTimeout the time in milliseconds after which an idle connection is evicted.
+     * @param maxLifetime the time in milliseconds after which a connection is retired.
+     * @param acquireTimeout the time in milliseconds {@link #lease()} waits for a free connection.
+     * @param validationTimeout the timeout in seconds passed to {@link Connection#isValid(int)}.
+     * @throws IllegalArgumentException if the sizes are inconsistent.
+     */
+    public PooledDatabaseConnection(Class<? extends DatabaseConnection> type, int minSize, int maxSize,
+                                    long idleTimeout, long maxLifetime, long acquireTimeout, int validationTimeout) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.type = type;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeout = idleTimeout;
+        this.maxLifetime = maxLifetime;
+        this.acquireTimeout = acquireTimeout;
+        this.validationTimeout = validationTimeout;
+        this.permits = new Semaphore(maxSize);
+    }
+
+    /**
+     * Stores the credentials used to open pooled connections, opens the minimum number of
+     * connections and starts the background eviction task.
+     *
+     * @param url the database URL passed to each pooled connection.
+     * @param username the username for database authentication.
+     * @param password the password for database authentication.
+     * @throws SQLException if the initial connections cannot be opened.
+     */
+    @Override
+    public synchronized void connect(String url, String username, String password) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+
+        if (housekeeper == null) {
+            housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "databridge-pool-" + type.getSimpleName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(VALIDATION_INTERVAL_MS, Math.min(HOUSEKEEPING_PERIOD_MS, idleTimeout / 2));
+            housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+        }
+        fill();
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none is idle and the pool
+     * is not full. The connection is returned to the pool when the lease is closed.
+     *
+     * @return a {@link Lease} wrapping a pooled connection.
+     * @throws SQLTimeoutException if no connection became available within the acquire timeout.
+     * @throws SQLException if the pool is closed or a new connection cannot be opened.
+     */
+    public Lease lease() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out after " + acquireTimeout + "ms waiting for a pooled connection.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection.", e);
+        }
+
+        try {
+            while (true) {
+                Entry entry = idle.pollFirst();
+                if (entry != null) {
+                    if (isUsable(entry)) {
+                        return new Lease(entry);
+                    }
+                    discard(entry);
+                } else if (reserve()) {
+                    return new Lease(open());
+                } else if (closed) {
+                    throw new SQLException("Connection pool is closed.");
+                } else {
+                    // Every connection is open but one is on its way back to the idle deque
+                    LockSupport.parkNanos(SPIN_WAIT_NS);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a SELECT SQL query on a pooled connection and returns a disconnected copy
+     * of the result, so the connection can go back to the pool immediately.
+     *
+     * @param query the SQL SELECT query string to execute.
+     * @return a {@link CachedRowSet} holding the rows of the result.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public ResultSet executeQuery(String query) throws SQLException {
+        try (Lease lease = lease()) {
+            return materialize(lease.executeQuery(query));
+        }
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query on a pooled connection. The connection stays
+     * leased until the returned result is closed.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link QueryResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public QueryResult query(String query, StatementBinder binder) throws SQLException {
+        Lease lease = lease();
+        try {
+            QueryResult result = lease.query(query, binder);
+            if (result == null) {
+                throw new SQLException("Query failed: " + query);
+            }
+            return result.onClose(lease);
+        } catch (SQLException | RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query on a pooled connection and streams its rows.
+     * The connection stays leased until the returned result is closed.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param fetchSize the number of rows fetched per round trip; {@code 0} uses {@code db.fetch.size}.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link StreamingResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public StreamingResult executeStream(String query, int fetchSize, StatementBinder binder) throws SQLException {
+        Lease lease = lease();
+        try {
+            StreamingResult result = lease.executeStream(query, fetchSize, binder);
+            if (result == null) {
+                throw new SQLException("Query failed: " + query);
+            }
+            return result.onClose(lease);
+        } catch (SQLException | RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Executes an UPDATE SQL query (INSERT, UPDATE, DELETE) on a pooled connection.
+     *
+     * @param query the SQL query string to execute.
+     * @return the number of rows affected by the query.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public int executeUpdate(String query) throws SQLException {
+        try (Lease lease = lease()) {
+            return lease.executeUpdate(query);
+        }
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query on a pooled connection and returns a
+     * disconnected copy of the result.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link CachedRowSet} holding the rows of the result.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public ResultSet executeQuery(String query, StatementBinder binder) throws SQLException {
+        try (Lease lease = lease()) {
+            return materialize(lease.executeQuery(query, binder));
+        }
+    }
+
+    /**
+     * Executes a parameterized UPDATE SQL query on a pooled connection.
+     *
+     * @param query the SQL UPDATE query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return the number of rows affected by the query.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public int executeUpdate(String query, StatementBinder binder) throws SQLException {
+        try (Lease lease = lease()) {
+            return lease.executeUpdate(query, binder);
+        }
+    }
+
+    /**
+     * Executes a parameterized UPDATE SQL query once per row on a single pooled connection
+     * using JDBC batches.
+     *
+     * @param <T> the type of the rows.
+     * @param query the SQL query string with {@code ?} placeholders.
+     * @param rows the rows to bind, iterated once.
+     * @param binder the binder setting the parameter values of each row.
+     * @param batchSize the maximum number of rows sent in a single batch.
+     * @return the update counts reported by the driver, one array per batch.
+     * @throws SQLException if a database access error occurs or a batch fails after all retries.
+     */
+    @Override
+    public <T> List<int[]> executeBatch(String query, Iterable<T> rows, RowBinder<T> binder, int batchSize) throws SQLException {
+        try (Lease lease = lease()) {
+            return lease.executeBatch(query, rows, binder, batchSize);
+        }
+    }
+
+    /**
+     * Executes a DDL SQL query (e.g., CREATE, ALTER, DROP) on a pooled connection.
+     *
+     * @param query the SQL DDL query string to execute.
+     * @return {@code true} if the query executed successfully, {@code false} otherwise.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    @Override
+    public boolean execute(String query) throws SQLException {
+        try (Lease lease = lease()) {
+            return lease.execute(query);
+        }
+    }
+
+    /**
+     * The pool does not expose a single {@link Connection}. Use {@link #lease()} and
+     * {@link Lease#get()} instead.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public Connection get() {
+        throw new UnsupportedOperationException("A pool has no single Connection. Use lease() to borrow one.");
+    }
+
+    /**
+     * Closes the pool and every idle connection. Leased connections are closed when they are returned.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+            housekeeper = null;
+        }
+        Entry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            discard(entry);
+        }
+    }
+
+    /**
+     * Returns whether the pool has been closed.
+     *
+     * @return {@code true} if {@link #close()} has been called.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns the {@link DatabaseConnection} implementation this pool opens.
+     *
+     * @return the pooled connection type.
+     */
+    public Class<? extends DatabaseConnection> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the maximum number of connections this pool may open.
+     *
+     * @return the maximum pool size.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of connections currently open, leased or idle.
+     *
+     * @return the number of open connections.
+     */
+    public int getTotalConnections() {
+        return total.get();
+    }
+
+    /**
+     * Returns the number of open connections waiting in the pool.
+     *
+     * @return the number of idle connections.
+     */
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    /**
+     * Returns the number of connections currently leased.
+     *
+     * @return the number of leased connections.
+     */
+    public int getActiveConnections() {
+        return maxSize - permits.availablePermits();
+    }
+
+    /**
+     * Reserves room for one more connection without exceeding {@code maxSize}.
+     *
+     * @return {@code true} if the caller may open a new connection.
+     */
+    private boolean reserve() {
+        int count;
+        do {
+            count = total.get();
+            if (count >= maxSize) {
+                return false;
+            }
+        } while (!total.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    /**
+     * Opens a new physical connection in a slot previously taken with {@link #reserve()}.
+     * The slot is given back if the connection cannot be opened.
+     *
+     * @return the pool entry of the new connection.
+     * @throws SQLException if the connection cannot be opened.
+     */
+    private Entry open() throws SQLException {
+        try {
+            if (url == null) {
+                throw new SQLException("Connection pool is not connected. Call connect() first.");
+            }
+            DatabaseConnection connection;
+            try {
+                connection = type.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new SQLException("Failed to instantiate " + type.getName(), e);
+            }
+            connection.connect(url, username, password);
+            return new Entry(connection);
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether an idle connection can be handed out, validating it if it has
+     * been idle for longer than {@link #VALIDATION_INTERVAL_MS}.
+     *
+     * @param entry the pool entry to check.
+     * @return {@code true} if the connection is open, valid and not expired.
+     */
+    private boolean isUsable(Entry entry) {
+        long now = System.currentTimeMillis();
+        if (now - entry.createdAt >= maxLifetime) {
+            return false;
+        }
+        try {
+            Connection connection = entry.connection.get();
+            if (connection == null || connection.isClosed()) {
+                return false;
+            }
+            return now - entry.lastUsed < VALIDATION_INTERVAL_MS || connection.isValid(validationTimeout);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Puts a connection back in the pool, or closes it if it is expired, broken or the pool is closed.
+     *
+     * @param entry the pool entry to return.
+     */
+    private void release(Entry entry) {
+        try {
+            if (closed || System.currentTimeMillis() - entry.createdAt >= maxLifetime || !reset(entry)) {
+                discard(entry);
+            } else {
+                entry.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(entry);
+                if (closed && idle.remove(entry)) {
+                    discard(entry);
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Rolls back any transaction left open by the previous holder and restores auto-commit.
+     *
+     * @param entry the pool entry to reset.
+     * @return {@code true} if the connection is still usable.
+     */
+    private boolean reset(Entry entry) {
+        try {
+            Connection connection = entry.connection.get();
+            if (connection == null || connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes a pooled connection and removes it from the pool count.
+     *
+     * @param entry the pool entry to close.
+     */
+    private void discard(Entry entry) {
+        total.decrementAndGet();
+        try {
+            entry.connection.close();
+        } catch (Exception e) {
+            SQLogger.getLogger(LogLevel.WARN, LogType.FILE).log(Config.getInstance().getLogLevel(), "Error closing pooled connection", e);
+        }
+    }
+
+    /**
+     * Evicts idle and expired connections and tops the pool back up to its minimum size.
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        for (Entry entry : idle) {
+            boolean expired = now - entry.createdAt >= maxLifetime;
+            boolean stale = now - entry.lastUsed >= idleTimeout && total.get() > minSize;
+            if ((expired || stale) && idle.remove(entry)) {
+                discard(entry);
+            }
+        }
+        try {
+            fill();
+        } catch (SQLException e) {
+            SQLogger.getLogger(LogLevel.WARN, LogType.FILE).log(Config.getInstance().getLogLevel(), "Failed to refill connection pool", e);
+        }
+    }
+
+    /**
+     * Opens connections until the pool holds at least {@code minSize} of them.
+     *
+     * @throws SQLException if a connection cannot be opened.
+     */
+    private void fill() throws SQLException {
+        while (!closed && total.get() < minSize && reserve()) {
+            idle.offerLast(open());
+        }
+    }
+
+    /**
+     * Copies a {@link ResultSet} into a disconnected {@link CachedRowSet} and closes the original,
+     * which hands its statement back to the {@link StatementCache} it came from.
+     *
+     * @param resultSet the result set to copy.
+     * @return the disconnected copy.
+     * @throws SQLException if the rows cannot be read.
+     */
+    static CachedRowSet materialize(ResultSet resultSet) throws SQLException {
+        if (resultSet == null) {
+            return null;
+        }
+        try {
+            CachedRowSet rowSet = ROW_SETS.createCachedRowSet();
+            rowSet.populate(resultSet);
+            return rowSet;
+        } finally {
+            resultSet.close();
+        }
+    }
+
+    private static RowSetFactory rowSetFactory() {
+        try {
+            return RowSetProvider.newFactory();
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * A physical connection held by the pool along with its bookkeeping timestamps.
+     */
+    private static final class Entry {
+        private final DatabaseConnection connection;
+        private final long createdAt;
+        private volatile long lastUsed;
+
+        private Entry(DatabaseConnection connection) {
+            this.connection = connection;
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsed = createdAt;
+        }
+    }
+
+    /**
+     * A connection borrowed from a {@link PooledDatabaseConnection}. Closing the lease returns
+     * the connection to the pool instead of closing it. A lease must not be used after it is closed.
+     */
+    public final class Lease implements DatabaseConnection {
+
+        private final Entry entry;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * Returns the pool this connection was borrowed from.
+         *
+         * @return the {@link PooledDatabaseConnection} owning this lease.
+         */
+        public PooledDatabaseConnection getPool() {
+            return PooledDatabaseConnection.this;
+        }
+
+        /**
+         * Pooled connections are opened by the pool.
+         *
+         * @throws UnsupportedOperationException always.
+         */
+        @Override
+        public void connect(String url, String username, String password) {
+            throw new UnsupportedOperationException("Pooled connections are connected by the pool.");
+        }
+
+        @Override
+        public ResultSet executeQuery(String query) throws SQLException {
+            return delegate().executeQuery(query);
+        }
+
+        @Override
+        public int executeUpdate(String query) throws SQLException {
+            return delegate().executeUpdate(query);
+        }
+
+        @Override
+        public QueryResult query(String query, StatementBinder binder) throws SQLException {
+            return delegate().query(query, binder);
+        }
+
+        @Override
+        public StreamingResult executeStream(String query, int fetchSize, StatementBinder binder) throws SQLException {
+            return delegate().executeStream(query, fetchSize, binder);
+        }
+
+        @Override
+        public ResultSet executeQuery(String query, StatementBinder binder) throws SQLException {
+            return delegate().executeQuery(query, binder);
+        }
+
+        @Override
+        public int executeUpdate(String query, StatementBinder binder) throws SQLException {
+            return delegate().executeUpdate(query, binder);
+        }
+
+        @Override
+        public <T> List<int[]> executeBatch(String query, Iterable<T> rows, RowBinder<T> binder, int batchSize) throws SQLException {
+            return delegate().executeBatch(query, rows, binder, batchSize);
+        }
+
+        @Override
+        public boolean execute(String query) throws SQLException {
+            return delegate().execute(query);
+        }
+
+        /**
+         * Returns the connection to the pool. Calling this method more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (returned.compareAndSet(false, true)) {
+                release(entry);
+            }
+        }
+
+        @Override
+        public Connection get() {
+            return entry.connection.get();
+        }
+
+        /**
+         * Returns the pooled connection, failing if the lease has already been returned.
+         *
+         * @return the pooled {@link DatabaseConnection}.
+         * @throws SQLException if the lease has been closed.
+         */
+        private DatabaseConnection delegate() throws SQLException {
+            if (returned.get()) {
+                throw new SQLException("Connection has already been returned to the pool.");
+            }
+            return entry.connection;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ScheduledFuture;
+import io.github.kdesp73.databridge.helpers.Config;
+
+/**
+ * The {@code QueryResult} class wraps a {@link ResultSet} together with the statement that
+ * produced it, so that closing the result also releases the statement.
+ * <p>
+ * Results returned by {@link DatabaseConnection#query(String, StatementBinder)} hand their
+ * statement back to the connection's {@link StatementCache} (or close it) when they are closed.
+ * Always close them, preferably with try-with-resources:
+ * </p>
+ * <pre>
+ * try (QueryResult result = conn.query("SELECT * FROM people WHERE age &gt; ?", 30)) {
+ *     List&lt;Person&gt; people = Adapter.load(result.getResultSet(), Person.class);
+ * }
+ * </pre>
+ * <p>
+ * When {@code db.leak.detection.threshold} is set to a positive number of milliseconds, results
+ * still open after that time are reported through the {@link io.github.kdesp73.databridge.helpers.SQLogger}
+ * together with the stack trace of the code that opened them.
+ * </p>
+ *
+ * @author KDesp73
+ */
+public class QueryResult implements AutoCloseable {
+
+    private final ResultSet resultSet;
+    private final AutoCloseable release;
+    private final ScheduledFuture<?> leakCheck;
+    private AutoCloseable onClose;
+    private boolean closed;
+
+    /**
+     * Creates a query result over an open result set.
+     *
+     * @param resultSet the open result set.
+     * @param release the action releasing the statement once the result set is closed.
+     */
+    public QueryResult(ResultSet resultSet, AutoCloseable release) {
+        this.resultSet = resultSet;
+        this.release = release;
+        long threshold = Config.getInstance().getDbLeakDetectionThreshold();
+        this.leakCheck = threshold > 0 ? LeakDetector.watch(getClass().getSimpleName(), threshold) : null;
+    }
+
+    /**
+     * Returns the wrapped result set.
+     *
+     * @return the open {@link ResultSet}.
+     */
+    public ResultSet getResultSet() {
+        return resultSet;
+    }
+
+    /**
+     * Returns whether this result has been closed.
+     *
+     * @return {@code true} if {@link #close()} has been called.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Registers an action run after the result is closed, e.g. to return a pooled connection.
+     *
+     * @param action the action to run.
+     * @return this instance.
+     */
+    QueryResult onClose(AutoCloseable action) {
+        this.onClose = action;
+        return this;
+    }
+
+    /**
+     * Closes the result set and releases its statement. Calling this method more than once
+     * has no effect.
+     *
+     * @throws SQLException if an error occurs while closing the result or releasing the statement.
+     */
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (leakCheck != null) {
+            leakCheck.cancel(false);
+        }
+        try {
+            resultSet.close();
+            run(release);
+        } finally {
+            run(onClose);
+        }
+    }
+
+    /**
+     * Runs a close action, rethrowing checked exceptions as {@link SQLException}.
+     *
+     * @param action the action to run, or {@code null}.
+     * @throws SQLException if the action fails.
+     */
+    private static void run(AutoCloseable action) throws SQLException {
+        if (action == null) {
+            return;
+        }
+        try {
+            action.close();
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException(e);
+        }
+    }
+}
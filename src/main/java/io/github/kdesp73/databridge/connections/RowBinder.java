@@ -0,0 +1,44 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * The {@code RowBinder} interface sets the parameters of a {@link PreparedStatement}
+ * from a single row of a batch.
+ * <p>
+ * Used with {@link DatabaseConnection#executeBatch(String, Iterable, RowBinder, int)} to bind
+ * each element of a collection with the typed setters of {@link PreparedStatement}:
+ * </p>
+ * <pre>
+ * conn.executeBatch("INSERT INTO people (id, name) VALUES (?, ?)", people, (statement, person) -&gt; {
+ *     statement.setLong(1, person.getId());
+ *     statement.setString(2, person.getName());
+ * }, 500);
+ * </pre>
+ *
+ * @param <T> the type of the rows.
+ * @author KDesp73
+ */
+@FunctionalInterface
+public interface RowBinder<T> {
+
+    /**
+     * Sets the parameters of the statement from the given row.
+     *
+     * @param statement the statement to bind.
+     * @param row the row holding the parameter values.
+     * @throws SQLException if a parameter cannot be set.
+     */
+    void bind(PreparedStatement statement, T row) throws SQLException;
+
+    /**
+     * Returns a binder for rows given as arrays of values, bound in order starting from
+     * the first parameter.
+     *
+     * @return a binder for {@code Object[]} rows.
+     */
+    static RowBinder<Object[]> values() {
+        return (statement, row) -> StatementBinder.of(row).bind(statement);
+    }
+}
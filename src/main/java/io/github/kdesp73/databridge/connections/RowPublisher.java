@@ -0,0 +1,237 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import io.github.kdesp73.databridge.helpers.Adapter;
+import io.github.kdesp73.databridge.helpers.Config;
+import io.github.kdesp73.databridge.helpers.RowMapper;
+import io.github.kdesp73.databridge.helpers.SQLogger;
+import io.github.kdesp73.databridge.helpers.SQLogger.LogLevel;
+import io.github.kdesp73.databridge.helpers.SQLogger.LogType;
+
+/**
+ * The {@code RowPublisher} class is a {@link Flow.Publisher} that emits the rows of a query,
+ * reading them only as fast as its subscriber requests them.
+ * <p>
+ * Every subscription runs the query on its own with
+ * {@link DatabaseConnection#executeStream(String, int, StatementBinder)}, so the driver fetches
+ * rows in chunks of the fetch size and no more than one chunk is held in memory. A row is read
+ * from the {@link ResultSet} and mapped only when the subscriber has outstanding demand; without
+ * demand the cursor simply stays where it is. The result is closed when every row has been
+ * emitted, when an error occurs or when the subscription is cancelled.
+ * </p>
+ * <p>
+ * Rows are read and emitted on an {@link Executor}, a new virtual thread per burst of demand
+ * unless one is given. Emissions of a single subscription never overlap.
+ * </p>
+ * <pre>
+ * RowPublisher&lt;Event&gt; events = RowPublisher.of(conn, Event.class, "SELECT * FROM events WHERE day = ?", day);
+ * events.subscribe(subscriber);
+ * </pre>
+ *
+ * @param <T> the type of the emitted rows.
+ * @author KDesp73
+ */
+public class RowPublisher<T> implements Flow.Publisher<T> {
+
+    private final DatabaseConnection connection;
+    private final String query;
+    private final int fetchSize;
+    private final StatementBinder binder;
+    private final RowMapper<T> mapper;
+    private final Executor executor;
+
+    /**
+     * Creates a publisher over a query, using the configured fetch size and virtual threads.
+     *
+     * @param connection the connection the query runs on.
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @param mapper the mapper turning each row into an object.
+     */
+    public RowPublisher(DatabaseConnection connection, String query, StatementBinder binder, RowMapper<T> mapper) {
+        this(connection, query, 0, binder, mapper, task -> Thread.ofVirtual().start(task));
+    }
+
+    /**
+     * Creates a publisher over a query.
+     *
+     * @param connection the connection the query runs on.
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param fetchSize the number of rows fetched per round trip, or {@code 0} to use {@code db.fetch.size}.
+     * @param binder the binder setting the parameter values.
+     * @param mapper the mapper turning each row into an object.
+     * @param executor the executor rows are read and emitted on.
+     */
+    public RowPublisher(DatabaseConnection connection, String query, int fetchSize, StatementBinder binder, RowMapper<T> mapper, Executor executor) {
+        this.connection = Objects.requireNonNull(connection);
+        this.query = Objects.requireNonNull(query);
+        this.fetchSize = fetchSize;
+        this.binder = Objects.requireNonNull(binder);
+        this.mapper = Objects.requireNonNull(mapper);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Creates a publisher over a query whose rows are mapped with {@link Adapter#mapper(Class)}.
+     *
+     * @param <T> the type of the emitted rows.
+     * @param connection the connection the query runs on.
+     * @param type the class the rows are mapped to.
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param params the parameter values.
+     * @return a publisher of the mapped rows.
+     */
+    public static <T> RowPublisher<T> of(DatabaseConnection connection, Class<T> type, String query, Object... params) {
+        return new RowPublisher<>(connection, query, StatementBinder.of(params), Adapter.mapper(type));
+    }
+
+    /**
+     * Subscribes to the rows of the query. The query is executed once the subscriber first requests rows.
+     *
+     * @param subscriber the subscriber.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        subscriber.onSubscribe(new RowSubscription(subscriber));
+    }
+
+    /**
+     * A single execution of the query, driven by the demand of its subscriber.
+     */
+    private final class RowSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+
+        // Only touched by the drain loop
+        private StreamingResult result;
+        private boolean done;
+
+        private RowSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested " + n + " rows, expected a positive number.");
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        /**
+         * Starts the drain loop unless it is already running, in which case it will run once more.
+         */
+        private void schedule() {
+            if (pending.getAndIncrement() != 0) {
+                return;
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                done = true;
+                closeResult();
+                subscriber.onError(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Emits rows while there is demand, then returns, keeping the cursor open.
+         */
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                done = true;
+                closeResult();
+                return;
+            }
+            if (invalidRequest != null) {
+                fail(invalidRequest);
+                return;
+            }
+            try {
+                if (result == null) {
+                    result = connection.executeStream(query, fetchSize, binder);
+                    if (result == null) {
+                        throw new SQLException("Query failed: " + query);
+                    }
+                }
+                ResultSet resultSet = result.getResultSet();
+                while (demand.get() > 0) {
+                    if (cancelled) {
+                        done = true;
+                        closeResult();
+                        return;
+                    }
+                    if (!resultSet.next()) {
+                        done = true;
+                        result.close();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    T row = mapper.map(resultSet);
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    subscriber.onNext(row);
+                }
+            } catch (SQLException | RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Ends the subscription with an error.
+         *
+         * @param error the cause.
+         */
+        private void fail(Throwable error) {
+            done = true;
+            closeResult();
+            subscriber.onError(error);
+        }
+
+        /**
+         * Closes the result of the query, logging any error.
+         */
+        private void closeResult() {
+            if (result == null) {
+                return;
+            }
+            try {
+                result.close();
+            } catch (SQLException e) {
+                SQLogger.getLogger(LogLevel.ERRO, LogType.ALL).log(Config.getInstance().getLogLevel(), "Error while closing streamed result", e);
+            }
+        }
+    }
+}
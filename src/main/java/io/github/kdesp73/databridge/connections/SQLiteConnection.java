@@ -1,7 +1,9 @@
 package io.github.kdesp73.databridge.connections;
 
 import java.sql.*;
+import java.util.List;
 import io.github.kdesp73.databridge.helpers.Again;
+import io.github.kdesp73.databridge.helpers.Config;
 
 /**
  * The {@code SQLiteConnection} class implements the {@link DatabaseConnection} interface
@@ -21,6 +23,7 @@ import io.github.kdesp73.databridge.helpers.Again;
 public class SQLiteConnection implements DatabaseConnection {
 
     private Connection connection;
+    private StatementCache statements;
 
     /**
      * Returns the underlying {@link Connection} object for the SQLite database.
@@ -32,6 +35,16 @@ public class SQLiteConnection implements DatabaseConnection {
         return this.connection;
     }
 
+    /**
+     * Returns the cache of prepared statements used by this connection, e.g. to read its
+     * hit, miss, and eviction counters.
+     *
+     * @return the {@link StatementCache} of this connection, or {@code null} if not connected.
+     */
+    public StatementCache getStatementCache() {
+        return this.statements;
+    }
+
     /**
      * Establishes a connection to the SQLite database.
      * <p>
@@ -54,6 +67,7 @@ public class SQLiteConnection implements DatabaseConnection {
         try {
             Class.forName("org.sqlite.JDBC");
             connection = DriverManager.getConnection(url);
+            statements = new StatementCache(connection);
         } catch (ClassNotFoundException e) {
             throw new SQLException("SQLite driver not found. Check https://mvnrepository.com/artifact/org.xerial/sqlite-jdbc/3.47.0.0 to get the latest version", e);
         }
@@ -72,14 +86,53 @@ public class SQLiteConnection implements DatabaseConnection {
      */
     @Override
     public int executeUpdate(String query) throws SQLException {
+        return executeUpdate(query, StatementBinder.NONE);
+    }
+
+    /**
+     * Executes a parameterized UPDATE SQL query (INSERT, UPDATE, DELETE) on the SQLite database.
+     * <p>
+     * The query is validated to ensure it is an INSERT, UPDATE, or DELETE statement before execution.
+     * </p>
+     *
+     * @param query the SQL query string to execute.
+     * @param binder the binder setting the parameter values.
+     * @return the number of rows affected by the query.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     * @throws IllegalArgumentException if the query is not an INSERT, UPDATE, or DELETE statement.
+     */
+    @Override
+    public int executeUpdate(String query, StatementBinder binder) throws SQLException {
         if (!query.toLowerCase().matches("^(insert|update|delete).*")) {
             throw new IllegalArgumentException("Only INSERT, UPDATE, and DELETE statements are allowed.");
         }
-        return Again.retryWithDelay(() -> {
-            try (PreparedStatement statement = connection.prepareStatement(query)) {
-                return statement.executeUpdate();
-            }
-        }, Again.retries(), Again.delay());
+        return Again.retryWithDelay(() -> statements.executeUpdate(query, binder), Again.retries(), Again.delay());
+    }
+
+    /**
+     * Executes a parameterized UPDATE SQL query once per row on the SQLite database using JDBC batches.
+     * <p>
+     * Each batch of at most {@code batchSize} rows is retried as a whole using the {@link Again} helper.
+     * </p>
+     * <p>
+     * The query is validated to ensure it is an INSERT, UPDATE, or DELETE statement before execution.
+     * </p>
+     *
+     * @param <T> the type of the rows.
+     * @param query the SQL query string with {@code ?} placeholders.
+     * @param rows the rows to bind, iterated once.
+     * @param binder the binder setting the parameter values of each row.
+     * @param batchSize the maximum number of rows sent in a single batch.
+     * @return the update counts reported by the driver, one array per batch.
+     * @throws SQLException if a database access error occurs or a batch fails after all retries.
+     * @throws IllegalArgumentException if the query is not an INSERT, UPDATE, or DELETE statement.
+     */
+    @Override
+    public <T> List<int[]> executeBatch(String query, Iterable<T> rows, RowBinder<T> binder, int batchSize) throws SQLException {
+        if (!query.toLowerCase().matches("^(insert|update|delete).*")) {
+            throw new IllegalArgumentException("Only INSERT, UPDATE, and DELETE statements are allowed.");
+        }
+        return statements.executeBatch(query, rows, binder, batchSize);
     }
 
     /**
@@ -87,6 +140,9 @@ public class SQLiteConnection implements DatabaseConnection {
      * <p>
      * The query is validated to ensure it is a SELECT statement before execution.
      * </p>
+     * <p>
+     * The statement comes from the connection's {@link StatementCache} and is reused by later
+     * executions of the same query once the returned {@link ResultSet} is closed.
      *
      * @param query the SQL SELECT query string to execute.
      * @return a {@link ResultSet} containing the result of the query.
@@ -95,13 +151,72 @@ public class SQLiteConnection implements DatabaseConnection {
      */
     @Override
     public ResultSet executeQuery(String query) throws SQLException {
+        return executeQuery(query, StatementBinder.NONE);
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query and returns the result as a {@link ResultSet}.
+     * <p>
+     * The query is validated to ensure it is a SELECT statement before execution.
+     * </p>
+     * <p>
+     * The statement comes from the connection's {@link StatementCache} and is reused by later
+     * executions of the same query once the returned {@link ResultSet} is closed.
+     *
+     * @param query the SQL SELECT query string to execute.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link ResultSet} containing the result of the query.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     * @throws IllegalArgumentException if the query is not a SELECT statement.
+     */
+    @Override
+    public ResultSet executeQuery(String query, StatementBinder binder) throws SQLException {
         if (!query.toLowerCase().startsWith("select")) {
             throw new IllegalArgumentException("Only SELECT statements are allowed.");
         }
-        return Again.retryWithDelay(() -> {
-            PreparedStatement statement = connection.prepareStatement(query);
-            return statement.executeQuery();
-        }, Again.retries(), Again.delay());
+        return Again.retryWithDelay(() -> statements.executeQuery(query, binder), Again.retries(), Again.delay());
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query on the SQLite database and returns a {@link QueryResult}
+     * that hands its statement back to the connection's {@link StatementCache} when closed.
+     * <p>
+     * This method attempts the query execution with retries in case of failure, using the {@link Again} helper.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link QueryResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     * @throws IllegalArgumentException if the query is not a SELECT statement.
+     */
+    @Override
+    public QueryResult query(String query, StatementBinder binder) throws SQLException {
+        if (!query.toLowerCase().startsWith("select")) {
+            throw new IllegalArgumentException("Only SELECT statements are allowed.");
+        }
+        return Again.retryWithDelay(() -> statements.query(query, binder), Again.retries(), Again.delay());
+    }
+
+    /**
+     * Executes a parameterized SELECT SQL query on the SQLite database and streams its rows
+     * in chunks of {@code fetchSize} rows using a forward-only, read-only cursor.
+     * <p>
+     * The fetch size is passed to the driver as a hint.
+     *
+     * @param query the SQL SELECT query string with {@code ?} placeholders.
+     * @param fetchSize the number of rows fetched per round trip; {@code 0} uses {@code db.fetch.size}.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link StreamingResult} that must be closed once read.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     * @throws IllegalArgumentException if the query is not a SELECT statement.
+     */
+    @Override
+    public StreamingResult executeStream(String query, int fetchSize, StatementBinder binder) throws SQLException {
+        if (!query.toLowerCase().startsWith("select")) {
+            throw new IllegalArgumentException("Only SELECT statements are allowed.");
+        }
+        int rows = fetchSize > 0 ? fetchSize : Config.getInstance().getDbFetchSize();
+        return Again.retryWithDelay(() -> StreamingResult.open(connection, query, rows, binder, false), Again.retries(), Again.delay());
     }
 
     /**
@@ -135,6 +250,7 @@ public class SQLiteConnection implements DatabaseConnection {
     @Override
     public void close() throws SQLException {
         if (connection != null && !connection.isClosed()) {
+            statements.close();
             connection.close();
         }
     }
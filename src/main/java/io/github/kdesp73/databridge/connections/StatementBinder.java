@@ -0,0 +1,105 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+
+/**
+ * The {@code StatementBinder} interface sets the parameters of a {@link PreparedStatement}
+ * before it is executed.
+ * <p>
+ * Binding through a lambda lets callers use the typed setters of {@link PreparedStatement}
+ * directly, so primitive values are never boxed:
+ * </p>
+ * <pre>
+ * conn.executeUpdate("UPDATE users SET age = ? WHERE id = ?", statement -&gt; {
+ *     statement.setInt(1, age);
+ *     statement.setLong(2, id);
+ * });
+ * </pre>
+ *
+ * @author KDesp73
+ */
+@FunctionalInterface
+public interface StatementBinder {
+
+    /**
+     * A binder for statements without parameters.
+     */
+    StatementBinder NONE = statement -> {};
+
+    /**
+     * Sets the parameters of the given statement.
+     *
+     * @param statement the statement to bind.
+     * @throws SQLException if a parameter cannot be set.
+     */
+    void bind(PreparedStatement statement) throws SQLException;
+
+    /**
+     * Returns a binder that sets the given values, in order, starting from the first parameter.
+     * {@code null} values are bound with {@link PreparedStatement#setNull(int, int)}.
+     *
+     * @param params the parameter values.
+     * @return a binder for the given values.
+     */
+    static StatementBinder of(Object... params) {
+        if (params == null || params.length == 0) {
+            return NONE;
+        }
+        return statement -> {
+            for (int i = 0; i < params.length; i++) {
+                bind(statement, i + 1, params[i]);
+            }
+        };
+    }
+
+    /**
+     * Sets a single parameter, using {@link PreparedStatement#setNull(int, int)} for {@code null}.
+     * Object arrays are bound as SQL arrays created by the connection of the statement, typed after
+     * their first element, as in {@code id = ANY(?)} on PostgreSQL.
+     *
+     * @param statement the statement to bind.
+     * @param index the 1-based parameter index.
+     * @param value the parameter value.
+     * @throws SQLException if the parameter cannot be set.
+     */
+    static void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.NULL);
+        } else if (value instanceof Object[] elements) {
+            statement.setArray(index, statement.getConnection().createArrayOf(arrayType(elements), elements));
+        } else {
+            statement.setObject(index, value);
+        }
+    }
+
+    /**
+     * Picks the SQL type name of the elements of an array from its first non-null element.
+     *
+     * @param elements the elements of the array.
+     * @return the SQL type name, {@code varchar} if it cannot be told.
+     */
+    private static String arrayType(Object[] elements) {
+        for (Object element : elements) {
+            if (element == null) {
+                continue;
+            }
+            return switch (element) {
+                case Integer i -> "integer";
+                case Long l -> "bigint";
+                case Short s -> "smallint";
+                case Double d -> "float8";
+                case Float f -> "float4";
+                case java.math.BigDecimal d -> "numeric";
+                case Boolean b -> "boolean";
+                case UUID u -> "uuid";
+                case java.sql.Timestamp t -> "timestamp";
+                case java.sql.Date d -> "date";
+                default -> "varchar";
+            };
+        }
+        return "varchar";
+    }
+}
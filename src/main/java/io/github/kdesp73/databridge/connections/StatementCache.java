@@ -0,0 +1,433 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import io.github.kdesp73.databridge.helpers.Again;
+import io.github.kdesp73.databridge.helpers.Config;
+
+/**
+ * The {@code StatementCache} class keeps a bounded, least-recently-used set of
+ * {@link PreparedStatement}s for a single {@link Connection}, keyed by their SQL text.
+ * <p>
+ * Statements are checked out with {@link #acquire(String)} and handed back with
+ * {@link #release(String, PreparedStatement, ResultSet)}. A cached statement is only reused once
+ * it has been released and the {@link ResultSet} it produced (if any) has been closed, so callers
+ * never see their results closed by another execution of the same SQL. When the statement for a
+ * query is still busy, a fresh uncached statement is prepared instead.
+ * <p>
+ * Statements that fall out of the cache are closed, or marked with
+ * {@link java.sql.Statement#closeOnCompletion()} if their result is still open.
+ * The cache size is read from the {@code db.statement.cache.size} key of {@link Config};
+ * a size of {@code 0} disables caching.
+ *
+ * @author KDesp73
+ */
+public class StatementCache implements AutoCloseable {
+
+    private final Connection connection;
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a statement cache for the given connection, sized from the configuration.
+     *
+     * @param connection the connection statements are prepared on.
+     */
+    public StatementCache(Connection connection) {
+        this(connection, Config.getInstance().getDbStatementCacheSize());
+    }
+
+    /**
+     * Creates a statement cache for the given connection.
+     *
+     * @param connection the connection statements are prepared on.
+     * @param capacity the maximum number of statements kept; {@code 0} disables caching.
+     */
+    public StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.capacity = Math.max(0, capacity);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= StatementCache.this.capacity) {
+                    return false;
+                }
+                evictions++;
+                retire(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Executes an UPDATE SQL query through a cached statement.
+     *
+     * @param sql the SQL query string to execute.
+     * @param binder the binder setting the parameter values.
+     * @return the number of rows affected by the query.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    public int executeUpdate(String sql, StatementBinder binder) throws SQLException {
+        PreparedStatement statement = acquire(sql);
+        try {
+            binder.bind(statement);
+            int rows = statement.executeUpdate();
+            release(sql, statement, null);
+            return rows;
+        } catch (SQLException | RuntimeException e) {
+            discard(sql, statement);
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a SELECT SQL query through a cached statement. The statement becomes reusable
+     * once the returned {@link ResultSet} is closed.
+     *
+     * @param sql the SQL SELECT query string to execute.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link ResultSet} containing the result of the query.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    public ResultSet executeQuery(String sql, StatementBinder binder) throws SQLException {
+        PreparedStatement statement = acquire(sql);
+        try {
+            binder.bind(statement);
+            ResultSet resultSet = statement.executeQuery();
+            release(sql, statement, resultSet);
+            return resultSet;
+        } catch (SQLException | RuntimeException e) {
+            discard(sql, statement);
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a SELECT SQL query through a cached statement and wraps the result in a
+     * {@link QueryResult} that hands the statement back to the cache when closed.
+     *
+     * @param sql the SQL SELECT query string to execute.
+     * @param binder the binder setting the parameter values.
+     * @return a {@link QueryResult} containing the result of the query.
+     * @throws SQLException if a database access error occurs or if the query is invalid.
+     */
+    public QueryResult query(String sql, StatementBinder binder) throws SQLException {
+        PreparedStatement statement = acquire(sql);
+        try {
+            binder.bind(statement);
+            return new QueryResult(statement.executeQuery(), () -> release(sql, statement, null));
+        } catch (SQLException | RuntimeException e) {
+            discard(sql, statement);
+            throw e;
+        }
+    }
+
+    /**
+     * Executes an UPDATE SQL query once per row using JDBC batches of at most {@code batchSize} rows.
+     * <p>
+     * When the connection is in auto-commit mode, each batch is committed on its own and rolled back
+     * on failure, and a batch failing for a transient reason is retried as a whole as configured for
+     * the {@link Again} helper. Inside a transaction a failed batch is never retried, so no batch is
+     * applied twice.
+     *
+     * @param <T> the type of the rows.
+     * @param sql the SQL query string to execute.
+     * @param rows the rows to bind, iterated once.
+     * @param binder the binder setting the parameter values of each row.
+     * @param batchSize the maximum number of rows sent in a single batch.
+     * @return the update counts reported by the driver, one array per batch.
+     * @throws SQLException the failure of the batch that could not be sent.
+     */
+    public <T> List<int[]> executeBatch(String sql, Iterable<T> rows, RowBinder<T> binder, int batchSize) throws SQLException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        List<int[]> counts = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(Math.min(batchSize, 1024));
+        for (T row : rows) {
+            chunk.add(row);
+            if (chunk.size() == batchSize) {
+                counts.add(flush(sql, chunk, binder));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            counts.add(flush(sql, chunk, binder));
+        }
+        return counts;
+    }
+
+    /**
+     * Sends one batch of rows, retrying the whole batch on failure.
+     * <p>
+     * A batch is only retried when it ran in its own auto-commit transaction that was rolled back
+     * and its failure may be transient. Inside a caller's transaction, or when the rollback fails,
+     * the rows may already be applied, so the failure is thrown at once.
+     * </p>
+     *
+     * @param <T> the type of the rows.
+     * @param sql the SQL query string to execute.
+     * @param chunk the rows of the batch.
+     * @param binder the binder setting the parameter values of each row.
+     * @return the update counts of the batch.
+     * @throws SQLException the failure of the last attempt, such as a {@link java.sql.BatchUpdateException}.
+     */
+    private <T> int[] flush(String sql, List<T> chunk, RowBinder<T> binder) throws SQLException {
+        int attempts = Config.getInstance().getDbRetry() ? Math.max(1, Again.retries()) : 1;
+        for (int attempt = 1; ; attempt++) {
+            boolean autoCommit = connection.getAutoCommit();
+            PreparedStatement statement = acquire(sql);
+            try {
+                if (autoCommit) {
+                    connection.setAutoCommit(false);
+                }
+                for (T row : chunk) {
+                    binder.bind(statement, row);
+                    statement.addBatch();
+                }
+                int[] result = statement.executeBatch();
+                if (autoCommit) {
+                    connection.commit();
+                }
+                release(sql, statement, null);
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                boolean rolledBack = false;
+                try {
+                    if (autoCommit) {
+                        connection.rollback();
+                        rolledBack = true;
+                    }
+                } catch (SQLException rollback) {
+                    e.addSuppressed(rollback);
+                } finally {
+                    discard(sql, statement);
+                }
+                if (!rolledBack || attempt >= attempts || !isTransient(e)) {
+                    throw e;
+                }
+            } finally {
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(Again.delay());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while retrying a batch: " + sql, e);
+            }
+        }
+    }
+
+    /**
+     * Tells whether a failed batch may succeed when sent again. Errors thrown by the binder,
+     * {@link SQLNonTransientException}s and the data, integrity constraint and syntax
+     * SQLState classes ({@code 22}, {@code 23} and {@code 42}) fail the same way every time.
+     *
+     * @param e the failure of the batch.
+     * @return {@code true} if the batch is worth retrying.
+     */
+    private static boolean isTransient(Exception e) {
+        if (!(e instanceof SQLException sql) || sql instanceof SQLNonTransientException) {
+            return false;
+        }
+        String state = sql.getSQLState();
+        return state == null || !(state.startsWith("22") || state.startsWith("23") || state.startsWith("42"));
+    }
+
+    /**
+     * Checks out a statement for the given SQL, reusing a cached one when it is free
+     * and preparing a new one otherwise.
+     *
+     * @param sql the SQL text of the statement.
+     * @return a {@link PreparedStatement} that must be given back with {@link #release} or {@link #discard}.
+     * @throws SQLException if the statement cannot be prepared.
+     */
+    public synchronized PreparedStatement acquire(String sql) throws SQLException {
+        Entry entry = entries.get(sql);
+        if (entry != null) {
+            if (entry.statement.isClosed()) {
+                entries.remove(sql);
+                entry = null;
+            } else if (entry.isFree()) {
+                entry.statement.clearParameters();
+                hits++;
+                entry.leased = true;
+                entry.results = null;
+                return entry.statement;
+            }
+        }
+
+        misses++;
+        PreparedStatement statement = connection.prepareStatement(sql);
+        if (entry == null && capacity > 0) {
+            entries.put(sql, new Entry(statement));
+        }
+        return statement;
+    }
+
+    /**
+     * Gives back a statement obtained from {@link #acquire(String)}. Cached statements become
+     * reusable once {@code resultSet} is closed; uncached ones are closed, right away or when
+     * {@code resultSet} is closed.
+     *
+     * @param sql the SQL text the statement was acquired with.
+     * @param statement the statement to give back.
+     * @param resultSet the open result produced by the statement, or {@code null}.
+     * @throws SQLException if an uncached statement cannot be closed.
+     */
+    public synchronized void release(String sql, PreparedStatement statement, ResultSet resultSet) throws SQLException {
+        Entry entry = entries.get(sql);
+        if (entry != null && entry.statement == statement) {
+            entry.leased = false;
+            entry.results = resultSet;
+            return;
+        }
+        if (resultSet == null) {
+            statement.close();
+        } else {
+            statement.closeOnCompletion();
+        }
+    }
+
+    /**
+     * Removes a statement from the cache and closes it, e.g. after it failed to execute.
+     *
+     * @param sql the SQL text the statement was acquired with.
+     * @param statement the statement to drop.
+     */
+    public synchronized void discard(String sql, PreparedStatement statement) {
+        Entry entry = entries.get(sql);
+        if (entry != null && entry.statement == statement) {
+            entries.remove(sql);
+        }
+        closeQuietly(statement);
+    }
+
+    /**
+     * Closes every cached statement and empties the cache.
+     */
+    @Override
+    public synchronized void close() {
+        for (Entry entry : entries.values()) {
+            closeQuietly(entry.statement);
+        }
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of times a cached statement was reused.
+     *
+     * @return the number of cache hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of times a statement had to be prepared.
+     *
+     * @return the number of cache misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of statements dropped to make room for newer ones.
+     *
+     * @return the number of evictions.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of statements currently cached.
+     *
+     * @return the cache size.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the maximum number of statements this cache keeps.
+     *
+     * @return the cache capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Closes a statement that left the cache, deferring the close until its result is closed
+     * if it is still being read. Leased statements are closed when they are released.
+     *
+     * @param entry the evicted entry.
+     */
+    private static void retire(Entry entry) {
+        if (entry.leased) {
+            return;
+        }
+        try {
+            if (entry.results != null && !entry.results.isClosed()) {
+                entry.statement.closeOnCompletion();
+            } else {
+                entry.statement.close();
+            }
+        } catch (SQLException e) {
+            closeQuietly(entry.statement);
+        }
+    }
+
+    /**
+     * Closes a statement, ignoring any error.
+     *
+     * @param statement the statement to close.
+     */
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // The statement is unusable either way
+        }
+    }
+
+    /**
+     * A cached statement along with its checkout state.
+     */
+    private static final class Entry {
+        private final PreparedStatement statement;
+        private boolean leased;
+        private ResultSet results;
+
+        private Entry(PreparedStatement statement) {
+            this.statement = statement;
+            this.leased = true;
+        }
+
+        /**
+         * Checks whether the statement can be handed out again.
+         *
+         * @return {@code true} if the statement is not leased and its last result is closed.
+         * @throws SQLException if the state of the result cannot be read.
+         */
+        private boolean isFree() throws SQLException {
+            return !leased && (results == null || results.isClosed());
+        }
+    }
+}
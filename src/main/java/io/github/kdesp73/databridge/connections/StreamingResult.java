@@ -0,0 +1,97 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The {@code StreamingResult} class is a {@link QueryResult} over a forward-only, read-only
+ * {@link ResultSet} whose rows are fetched from the database in chunks of a configured fetch size
+ * instead of all at once.
+ * <p>
+ * Drivers such as PostgreSQL only use a server-side cursor when auto-commit is off. When the
+ * connection was in auto-commit mode, the stream opens its own transaction and ends it when the
+ * result is closed, restoring auto-commit. Always close the result, preferably with
+ * try-with-resources:
+ * </p>
+ * <pre>
+ * try (StreamingResult result = conn.executeStream("SELECT * FROM events", 1000)) {
+ *     ResultSet rs = result.getResultSet();
+ *     while (rs.next()) {
+ *         // process one row at a time
+ *     }
+ * }
+ * </pre>
+ *
+ * @author KDesp73
+ */
+public class StreamingResult extends QueryResult {
+
+    /**
+     * Creates a streaming result over an open result set.
+     *
+     * @param resultSet the open result set.
+     * @param statement the statement that produced the result set.
+     * @param connection the connection the statement runs on.
+     * @param endTransaction whether closing the result must commit and restore auto-commit.
+     */
+    StreamingResult(ResultSet resultSet, PreparedStatement statement, Connection connection, boolean endTransaction) {
+        super(resultSet, () -> {
+            statement.close();
+            if (endTransaction) {
+                try {
+                    connection.commit();
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    /**
+     * Opens a streaming query on the given connection.
+     *
+     * @param connection the connection to run the query on.
+     * @param sql the SQL SELECT query string with {@code ?} placeholders.
+     * @param fetchSize the number of rows fetched per round trip.
+     * @param binder the binder setting the parameter values.
+     * @param serverCursor whether the driver needs auto-commit off to stream with a server-side cursor.
+     * @return the open streaming result.
+     * @throws SQLException if the query cannot be executed.
+     */
+    static StreamingResult open(Connection connection, String sql, int fetchSize, StatementBinder binder, boolean serverCursor) throws SQLException {
+        boolean endTransaction = serverCursor && connection.getAutoCommit();
+        if (endTransaction) {
+            connection.setAutoCommit(false);
+        }
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            binder.bind(statement);
+            return new StreamingResult(statement.executeQuery(), statement, connection, endTransaction);
+        } catch (SQLException | RuntimeException e) {
+            if (statement != null) {
+                statement.close();
+            }
+            if (endTransaction) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Registers an action run after the result is closed, e.g. to return a pooled connection.
+     *
+     * @param action the action to run.
+     * @return this instance.
+     */
+    @Override
+    StreamingResult onClose(AutoCloseable action) {
+        super.onClose(action);
+        return this;
+    }
+}
@@ -0,0 +1,283 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code TinyLfuCache} class is a bounded map with W-TinyLFU eviction, time-based expiry and
+ * removal by tag, used by {@link CachingDatabaseConnection} to keep query results.
+ * <p>
+ * New entries enter a small LRU window of 1% of the capacity. An entry leaving the window only
+ * replaces the next victim of the main area if its estimated frequency is higher, so a scan of
+ * one-off keys cannot flush the entries that are read over and over. The main area is a segmented
+ * LRU: entries read again move from its probation segment to its protected segment, which holds up
+ * to 80% of it. Frequencies are estimated by a count-min sketch of 4-bit counters that are halved
+ * every {@code 10 * capacity} reads, so the estimates follow changes in the workload.
+ * </p>
+ * <p>
+ * Every entry carries a set of tags, the tables its result was read from, and {@link #invalidate(Set)}
+ * removes the entries with any of the given tags. The cache is not thread-safe; callers synchronize.
+ * </p>
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ * @author KDesp73
+ */
+final class TinyLfuCache<K, V> {
+
+    private final int capacity;
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final Map<K, Node<K, V>> data = new HashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> window = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> protectedSegment = new LinkedHashMap<>();
+    private final Map<String, Set<K>> tagged = new HashMap<>();
+    private final Sketch sketch;
+
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity the maximum number of entries; {@code 0} keeps nothing.
+     */
+    TinyLfuCache(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.windowCapacity = Math.max(1, this.capacity / 100);
+        this.protectedCapacity = (int) ((this.capacity - windowCapacity) * 0.8);
+        this.sketch = new Sketch(Math.max(1, this.capacity));
+    }
+
+    /**
+     * Returns the value of a key that has not expired, recording the access.
+     *
+     * @param key the key.
+     * @param now the current time in nanoseconds.
+     * @return the value, or {@code null} if absent or expired.
+     */
+    V get(K key, long now) {
+        sketch.increment(key.hashCode());
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (node.expiresAt != 0 && now - node.expiresAt >= 0) {
+            remove(node);
+            return null;
+        }
+
+        if (window.remove(key) != null) {
+            window.put(key, node);
+        } else if (probation.remove(key) != null) {
+            protectedSegment.put(key, node);
+            if (protectedSegment.size() > protectedCapacity) {
+                Node<K, V> demoted = first(protectedSegment);
+                protectedSegment.remove(demoted.key);
+                probation.put(demoted.key, demoted);
+            }
+        } else if (protectedSegment.remove(key) != null) {
+            protectedSegment.put(key, node);
+        }
+        return node.value;
+    }
+
+    /**
+     * Adds or replaces an entry, evicting others if the cache is full.
+     *
+     * @param key the key.
+     * @param value the value.
+     * @param tags the tags of the entry.
+     * @param expiresAt the time in nanoseconds the entry expires at, or {@code 0} if never.
+     */
+    void put(K key, V value, Set<String> tags, long expiresAt) {
+        if (capacity == 0) {
+            return;
+        }
+        Node<K, V> existing = data.get(key);
+        if (existing != null) {
+            remove(existing);
+        }
+
+        Node<K, V> node = new Node<>(key, value, Set.copyOf(tags), expiresAt);
+        data.put(key, node);
+        for (String tag : node.tags) {
+            tagged.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+        }
+        window.put(key, node);
+        if (window.size() > windowCapacity) {
+            admit(first(window));
+        }
+    }
+
+    /**
+     * Removes the entries tagged with any of the given tags.
+     *
+     * @param tags the tags.
+     * @return the number of entries removed.
+     */
+    int invalidate(Set<String> tags) {
+        int removed = 0;
+        for (String tag : tags) {
+            Set<K> keys = tagged.get(tag);
+            if (keys == null) {
+                continue;
+            }
+            for (K key : Set.copyOf(keys)) {
+                Node<K, V> node = data.get(key);
+                if (node != null) {
+                    remove(node);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every entry.
+     *
+     * @return the number of entries removed.
+     */
+    int clear() {
+        int removed = data.size();
+        data.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        tagged.clear();
+        return removed;
+    }
+
+    /**
+     * Returns the number of entries, including expired entries not yet removed.
+     *
+     * @return the number of entries.
+     */
+    int size() {
+        return data.size();
+    }
+
+    /**
+     * Returns the number of entries evicted to make room for others.
+     *
+     * @return the number of evictions.
+     */
+    long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Moves the oldest entry of the window to the main area, or evicts it if the main area is full
+     * and its next victim is used at least as often.
+     *
+     * @param candidate the oldest entry of the window.
+     */
+    private void admit(Node<K, V> candidate) {
+        window.remove(candidate.key);
+        if (probation.size() + protectedSegment.size() < capacity - windowCapacity) {
+            probation.put(candidate.key, candidate);
+            return;
+        }
+
+        Node<K, V> victim = !probation.isEmpty() ? first(probation) : first(protectedSegment);
+        if (victim != null && sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+            remove(victim);
+            probation.put(candidate.key, candidate);
+        } else {
+            remove(candidate);
+        }
+        evictions++;
+    }
+
+    /**
+     * Removes an entry from every structure it is in.
+     *
+     * @param node the entry.
+     */
+    private void remove(Node<K, V> node) {
+        data.remove(node.key);
+        window.remove(node.key);
+        probation.remove(node.key);
+        protectedSegment.remove(node.key);
+        for (String tag : node.tags) {
+            Set<K> keys = tagged.get(tag);
+            if (keys != null && keys.remove(node.key) && keys.isEmpty()) {
+                tagged.remove(tag);
+            }
+        }
+    }
+
+    private static <K, V> Node<K, V> first(LinkedHashMap<K, Node<K, V>> segment) {
+        Iterator<Node<K, V>> iterator = segment.values().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * An entry of the cache.
+     */
+    private record Node<K, V>(K key, V value, Set<String> tags, long expiresAt) {}
+
+    /**
+     * A count-min sketch of 4-bit counters, four per key, packed sixteen to a {@code long}.
+     */
+    static final class Sketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        Sketch(int capacity) {
+            int counters = Integer.highestOneBit(Math.max(64, capacity * 4 - 1)) << 1;
+            this.table = new long[counters / 16];
+            this.mask = counters - 1;
+            this.sampleSize = 10 * capacity;
+        }
+
+        /**
+         * Returns the estimated number of recent accesses of a key, at most 15.
+         */
+        int frequency(int hash) {
+            int frequency = 15;
+            for (int i = 0; i < 4; i++) {
+                int index = index(hash, i);
+                frequency = Math.min(frequency, (int) ((table[index >>> 4] >>> ((index & 15) << 2)) & 15));
+            }
+            return frequency;
+        }
+
+        /**
+         * Records an access of a key, halving every counter once enough accesses were recorded.
+         */
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = index(hash, i);
+                int shift = (index & 15) << 2;
+                if (((table[index >>> 4] >>> shift) & 15) != 15) {
+                    table[index >>> 4] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+                }
+                additions /= 2;
+            }
+        }
+
+        private int index(int hash, int i) {
+            long h = (hash & 0xffffffffL) ^ SEEDS[i];
+            h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+            h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return (int) (h ^ (h >>> 33)) & mask;
+        }
+    }
+}
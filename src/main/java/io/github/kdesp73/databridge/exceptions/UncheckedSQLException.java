@@ -0,0 +1,35 @@
+package io.github.kdesp73.databridge.exceptions;
+
+import java.sql.SQLException;
+
+/**
+ * {@code UncheckedSQLException} wraps an {@link SQLException} in a {@link RuntimeException}.
+ * <p>
+ * This exception is thrown where a checked {@link SQLException} cannot be declared, such as
+ * while a {@link java.util.stream.Stream} returned by {@link io.github.kdesp73.databridge.helpers.Adapter}
+ * reads its rows.
+ * </p>
+ *
+ * @author KDesp73
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    /**
+     * Constructs a new {@code UncheckedSQLException} wrapping the given cause.
+     *
+     * @param cause the {@link SQLException} that occurred.
+     */
+    public UncheckedSQLException(SQLException cause) {
+        super(cause);
+    }
+
+    /**
+     * Returns the wrapped {@link SQLException}.
+     *
+     * @return the cause of this exception.
+     */
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
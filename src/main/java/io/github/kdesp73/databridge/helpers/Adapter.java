@@ -1,12 +1,23 @@
 package io.github.kdesp73.databridge.helpers;
 
-import java.lang.reflect.Field;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import io.github.kdesp73.databridge.connections.AvailableConnections;
+import io.github.kdesp73.databridge.connections.DatabaseConnection;
+import io.github.kdesp73.databridge.connections.QueryResult;
+import io.github.kdesp73.databridge.exceptions.UncheckedSQLException;
 import io.github.kdesp73.databridge.helpers.SQLogger.LogLevel;
 import io.github.kdesp73.databridge.helpers.SQLogger.LogType;
 
@@ -16,6 +27,14 @@ import io.github.kdesp73.databridge.helpers.SQLogger.LogType;
  * <p>
  * This class leverages reflection to map columns in the {@code ResultSet} to the fields
  * of the provided class. It supports field names in both camelCase and snake_case.
+ * The reflective lookups run once per class and column layout; the resulting mapper is
+ * cached and reads columns by index (see {@link CompiledMapper}).
+ * </p>
+ *
+ * <p>
+ * Records are created through their canonical constructor, and other classes through the
+ * constructor annotated with {@link RowConstructor} if there is one, so immutable row types
+ * are supported. {@link Column} overrides the column name of a field or parameter.
  * </p>
  *
  * <p>
@@ -25,6 +44,11 @@ import io.github.kdesp73.databridge.helpers.SQLogger.LogType;
  * </p>
  *
  * <p>
+ * {@code insertAll} and {@code upsertAll} work in reverse, writing objects through JDBC batches with
+ * one parameter per field, named by the same rules (see {@link CompiledBinder}).
+ * </p>
+ *
+ * <p>
  * The {@code toSnakeCase} method is used to convert camelCase field names to snake_case
  * column names, following typical database conventions.
  * </p>
@@ -55,39 +79,288 @@ public class Adapter {
     public static <T> List<T> load(ResultSet resultSet, Class<T> clazz) {
         List<T> resultList = new ArrayList<>();
 
-        Field[] fields = clazz.getDeclaredFields();
-
         try {
+            RowMapper<T> mapper = CompiledMapper.of(clazz, resultSet.getMetaData());
             while (resultSet.next()) {
-                T object = clazz.newInstance();
-
-                for (Field field : fields) {
-                    String fieldName = field.getName();
-                    String columnName = toSnakeCase(fieldName);
-
-                    Object value;
-
-                    try {
-                        value = resultSet.getObject(columnName);
-                    } catch (SQLException e) {
-                        try {
-                            value = resultSet.getObject(fieldName);
-                        } catch (SQLException ex) {
-                            continue;
-                        }
+                resultList.add(mapper.map(resultSet));
+            }
+        } catch (SQLException ex) {
+            SQLogger.getLogger(LogLevel.ERRO, LogType.ALL).log(Config.getInstance().getLogLevel(), "Error while loading ResultSet into List<" + clazz.getName() + ">", ex);
+        }
+
+        return resultList;
+    }
+
+    /**
+     * Maps every row of a {@link ResultSet} into a single, reused instance of the specified class type
+     * and hands it to the given action.
+     * <p>
+     * Only one object is created for the whole result: each row overwrites the mapped fields of the
+     * same instance, and primitive fields are read without boxing, so tight loops allocate nothing
+     * per row. The action must not keep a reference to the instance past the call. Classes created
+     * through a constructor, such as records, cannot be reused and are rejected.
+     * </p>
+     *
+     * @param <T> The type of the object to map to.
+     * @param resultSet The {@code ResultSet} to map.
+     * @param clazz The class type to map the rows to.
+     * @param action The action called with the instance holding the current row.
+     * @return The number of rows visited.
+     * @throws SQLException If a row cannot be read or mapped.
+     * @throws IllegalArgumentException If the class is mapped through a constructor.
+     */
+    public static <T> long forEach(ResultSet resultSet, Class<T> clazz, Consumer<? super T> action) throws SQLException {
+        CompiledMapper<T> mapper = CompiledMapper.reusable(clazz, resultSet.getMetaData());
+        T row = mapper.newInstance();
+
+        long count = 0;
+        while (resultSet.next()) {
+            mapper.fill(row, resultSet);
+            action.accept(row);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Maps a {@link ResultSet} to a lazy, sequential {@link Stream} of objects of the specified class type.
+     * <p>
+     * Rows are read and mapped one at a time as the stream pulls them, so the whole result is never
+     * held in memory. The {@code ResultSet} is closed once its last row has been read or when the
+     * stream is closed, whichever comes first; use the stream in a try-with-resources block when it
+     * may not be consumed to the end. Errors while reading rows are thrown as {@link UncheckedSQLException}.
+     * </p>
+     *
+     * @param <T> The type of the object to map to.
+     * @param resultSet The {@code ResultSet} to map.
+     * @param clazz The class type to map the rows to.
+     * @return A lazy {@code Stream} of the mapped rows.
+     */
+    public static <T> Stream<T> stream(ResultSet resultSet, Class<T> clazz) {
+        return stream(resultSet, resultSet, clazz);
+    }
+
+    /**
+     * Maps a {@link QueryResult} to a lazy, sequential {@link Stream} of objects of the specified class type.
+     * The {@code QueryResult}, and with it its statement, is closed once its last row has been read
+     * or when the stream is closed.
+     *
+     * @param <T> The type of the object to map to.
+     * @param result The {@code QueryResult} to map.
+     * @param clazz The class type to map the rows to.
+     * @return A lazy {@code Stream} of the mapped rows.
+     * @see #stream(ResultSet, Class)
+     */
+    public static <T> Stream<T> stream(QueryResult result, Class<T> clazz) {
+        return stream(result.getResultSet(), result, clazz);
+    }
+
+    /**
+     * Creates a lazy {@link Stream} over the rows of a {@link ResultSet}.
+     *
+     * @param <T> The type of the object to map to.
+     * @param resultSet The {@code ResultSet} to read.
+     * @param owner The resource to close once the rows are read or the stream is closed.
+     * @param clazz The class type to map the rows to.
+     * @return A lazy {@code Stream} of the mapped rows.
+     */
+    private static <T> Stream<T> stream(ResultSet resultSet, AutoCloseable owner, Class<T> clazz) {
+        RowMapper<T> mapper = mapper(clazz);
+        Runnable close = () -> {
+            try {
+                owner.close();
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private boolean done;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (done) {
+                    return false;
+                }
+                try {
+                    if (!resultSet.next()) {
+                        done = true;
+                        close.run();
+                        return false;
                     }
+                    action.accept(mapper.map(resultSet));
+                    return true;
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException(e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(rows, false).onClose(close);
+    }
 
-                    field.setAccessible(true);
-                    field.set(object, value);
+    /**
+     * Returns a {@link RowMapper} that maps the current row of a {@link ResultSet} to an object
+     * of the specified class type, using the same rules as {@link #load(ResultSet, Class)}.
+     * <p>
+     * The mapper is compiled for the columns of the first {@code ResultSet} it is given and
+     * looked up again whenever it is given another one. The {@code ResultSet} and its mapper are
+     * kept as one immutable pair, so the returned mapper can be shared between threads.
+     * </p>
+     *
+     * @param <T> The type of the object to map to.
+     * @param clazz The class type to map the rows to.
+     * @return A {@code RowMapper} for the specified class type.
+     */
+    public static <T> RowMapper<T> mapper(Class<T> clazz) {
+        return new RowMapper<>() {
+            private volatile Resolved<T> last;
+
+            @Override
+            public T map(ResultSet resultSet) throws SQLException {
+                Resolved<T> resolved = last;
+                if (resolved == null || resolved.source() != resultSet) {
+                    resolved = new Resolved<>(resultSet, CompiledMapper.of(clazz, resultSet.getMetaData()));
+                    last = resolved;
                 }
+                return resolved.mapper().map(resultSet);
+            }
+        };
+    }
+
+    /**
+     * Inserts objects into a table through JDBC batches of {@code db.batch.size} rows.
+     *
+     * @param <T> The type of the objects.
+     * @param connection The connection to write through.
+     * @param table The table to insert into.
+     * @param rows The objects to insert, one row each.
+     * @return The number of rows inserted.
+     * @throws SQLException If the objects cannot be bound or a batch fails.
+     * @see #insertAll(DatabaseConnection, String, Collection, int)
+     */
+    public static <T> int insertAll(DatabaseConnection connection, String table, Collection<T> rows) throws SQLException {
+        return insertAll(connection, table, rows, Config.getInstance().getDbBatchSize());
+    }
 
-                resultList.add(object);
+    /**
+     * Inserts objects into a table through JDBC batches.
+     * <p>
+     * Every field of the class, or component of a record, is bound to the column of the same name in
+     * snake_case, or to its {@link Column} name. The accessors are compiled once per class, and the
+     * statement is prepared once and rebound for every row.
+     * </p>
+     *
+     * @param <T> The type of the objects.
+     * @param connection The connection to write through.
+     * @param table The table to insert into.
+     * @param rows The objects to insert, one row each.
+     * @param batchSize The maximum number of rows sent in a single batch.
+     * @return The number of rows inserted.
+     * @throws SQLException If the objects cannot be bound or a batch fails.
+     * @throws IllegalArgumentException If the objects are of different classes.
+     */
+    public static <T> int insertAll(DatabaseConnection connection, String table, Collection<T> rows, int batchSize) throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        CompiledBinder<T> binder = binder(rows);
+        List<String> columns = binder.columns();
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+            + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        return count(connection.executeBatch(sql, rows, binder, batchSize));
+    }
+
+    /**
+     * Inserts objects into a table, updating the existing rows with the same key, through JDBC
+     * batches of {@code db.batch.size} rows.
+     *
+     * @param <T> The type of the objects.
+     * @param connection The connection to write through.
+     * @param table The table to write to.
+     * @param rows The objects to write, one row each.
+     * @param keys The columns identifying a row.
+     * @return The number of rows inserted or updated, as reported by the driver.
+     * @throws SQLException If the objects cannot be bound or a batch fails.
+     * @see #upsertAll(DatabaseConnection, String, Collection, int, String...)
+     */
+    public static <T> int upsertAll(DatabaseConnection connection, String table, Collection<T> rows, String... keys) throws SQLException {
+        return upsertAll(connection, table, rows, Config.getInstance().getDbBatchSize(), keys);
+    }
+
+    /**
+     * Inserts objects into a table, updating the existing rows with the same key, through JDBC batches.
+     * <p>
+     * The statement is rendered by {@link QueryBuilder#upsert(String)} for the type of the connection:
+     * {@code INSERT ... ON CONFLICT DO UPDATE} for PostgreSQL and SQLite and {@code MERGE} for Oracle.
+     * MS Access has no single-statement upsert.
+     * </p>
+     *
+     * @param <T> The type of the objects.
+     * @param connection The connection to write through.
+     * @param table The table to write to.
+     * @param rows The objects to write, one row each.
+     * @param batchSize The maximum number of rows sent in a single batch.
+     * @param keys The columns identifying a row, each one a column of the objects.
+     * @return The number of rows inserted or updated, as reported by the driver.
+     * @throws SQLException If the objects cannot be bound or a batch fails.
+     * @throws IllegalArgumentException If a key is not one of the columns of the objects, or the objects are of different classes.
+     * @throws UnsupportedOperationException If the database has no upsert statement.
+     */
+    public static <T> int upsertAll(DatabaseConnection connection, String table, Collection<T> rows, int batchSize, String... keys) throws SQLException {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("An upsert needs at least one key column");
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        CompiledBinder<T> binder = binder(rows);
+        String sql = new QueryBuilder(AvailableConnections.of(connection))
+            .upsert(table)
+            .keys(keys)
+            .columns(binder.columns().toArray(String[]::new))
+            .prepare()
+            .getSql();
+        return count(connection.executeBatch(sql, rows, binder, batchSize));
+    }
+
+    /**
+     * Returns the binder for the class of the given objects, which must all be of the same class,
+     * since a binder of one class would miss or misread the fields of another.
+     *
+     * @param <T> The type of the objects.
+     * @param rows The objects, at least one.
+     * @return The compiled binder.
+     * @throws SQLException If the class cannot be bound.
+     * @throws IllegalArgumentException If the objects are of different classes.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> CompiledBinder<T> binder(Collection<T> rows) throws SQLException {
+        Class<T> type = (Class<T>) rows.iterator().next().getClass();
+        for (T row : rows) {
+            if (row.getClass() != type) {
+                throw new IllegalArgumentException("Rows must all be of one class, found " + type.getName() + " and " + row.getClass().getName());
             }
-        } catch (SQLException | InstantiationException | IllegalAccessException ex) {
-            SQLogger.getLogger(LogLevel.ERRO, LogType.ALL).log(Config.getInstance().getLogLevel(), "Error while loading ResultSet into List<" + clazz.getName() + ">", ex);
         }
+        return CompiledBinder.of(type);
+    }
 
-        return resultList;
+    /**
+     * Adds up the update counts of a series of batches. Rows reported without a count are counted once.
+     *
+     * @param batches The update counts of every batch.
+     * @return The number of rows written.
+     */
+    private static int count(List<int[]> batches) {
+        int total = 0;
+        for (int[] counts : batches) {
+            for (int count : counts) {
+                total += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+        }
+        return total;
     }
 
     /**
@@ -100,7 +373,16 @@ public class Adapter {
      * @param camelCase The camelCase string to convert.
      * @return A snake_case version of the input string.
      */
-    private static String toSnakeCase(String camelCase) {
+    static String toSnakeCase(String camelCase) {
         return camelCase.replaceAll("([a-z])([A-Z]+)", "$1_$2").toLowerCase();
     }
+
+    /**
+     * The compiled mapper of the last {@code ResultSet} given to a {@link #mapper(Class)}.
+     *
+     * @param <T> the type of the mapped rows.
+     * @param source the result the mapper was looked up for.
+     * @param mapper the compiled mapper.
+     */
+    private record Resolved<T>(ResultSet source, RowMapper<T> mapper) {}
 }
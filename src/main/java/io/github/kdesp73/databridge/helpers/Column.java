@@ -0,0 +1,27 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The {@code Column} annotation names the column {@link Adapter} reads into a field or a
+ * constructor parameter, overriding the default camelCase to snake_case naming.
+ * <pre>
+ * public record Person(&#64;Column("full_name") String name, int age) {}
+ * </pre>
+ *
+ * @author KDesp73
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.PARAMETER, ElementType.RECORD_COMPONENT})
+public @interface Column {
+
+    /**
+     * The name of the column, matched case-insensitively against the column labels.
+     *
+     * @return the column name.
+     */
+    String value();
+}
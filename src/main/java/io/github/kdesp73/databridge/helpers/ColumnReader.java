@@ -0,0 +1,36 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The {@code ColumnReader} interface reads a single column of the current row of a
+ * {@link ResultSet} as a value of a given type.
+ * <p>
+ * Readers are registered per target type with {@link Converters#register(Class, ColumnReader)}
+ * and picked by {@link Adapter} when it compiles a mapper, so the conversion from the JDBC type
+ * to the field type is decided once per field rather than once per value:
+ * </p>
+ * <pre>
+ * Converters.register(Money.class, (rs, column) -&gt; {
+ *     BigDecimal amount = rs.getBigDecimal(column);
+ *     return amount == null ? null : new Money(amount);
+ * });
+ * </pre>
+ *
+ * @param <T> the type of the values read.
+ * @author KDesp73
+ */
+@FunctionalInterface
+public interface ColumnReader<T> {
+
+    /**
+     * Reads a column of the current row.
+     *
+     * @param resultSet the result set positioned on the row to read.
+     * @param column the 1-based index of the column.
+     * @return the value of the column, or {@code null} for SQL {@code NULL}.
+     * @throws SQLException if the column cannot be read or converted.
+     */
+    T read(ResultSet resultSet, int column) throws SQLException;
+}
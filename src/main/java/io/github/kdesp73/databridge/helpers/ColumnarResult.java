@@ -0,0 +1,606 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.DoublePredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * The {@code ColumnarResult} class is an in-memory, read-only snapshot of a {@link ResultSet}
+ * stored column by column in primitive arrays.
+ * <p>
+ * Integer columns are kept in {@code int[]} or {@code long[]}, decimal and floating point columns
+ * in {@code double[]}, and every other column as a dictionary-encoded string: an {@code int[]} of
+ * codes into an array of distinct values. SQL {@code NULL}s are tracked in a bitmap allocated only
+ * for columns that contain one. Compared with a {@code List} of mapped objects, a snapshot has no
+ * per-row object headers or boxed values and repeated strings are stored once.
+ * </p>
+ * <p>
+ * The filter, sum and group operations run tight loops over those arrays, which the JIT compiles
+ * to vectorized code. String filters evaluate their predicate once per distinct value, not once
+ * per row. Filters return the matching row indexes, which can be passed to the other operations:
+ * </p>
+ * <pre>
+ * ColumnarResult sales = ColumnarResult.from(conn.executeQuery("SELECT region, amount FROM sales"));
+ * int region = sales.column("region");
+ * int amount = sales.column("amount");
+ * int[] large = sales.filterDouble(amount, value -&gt; value &gt; 1000);
+ * double total = sales.sumDouble(amount, large);
+ * Map&lt;String, Double&gt; perRegion = sales.sumBy(region, amount);
+ * </pre>
+ *
+ * @author KDesp73
+ */
+public final class ColumnarResult {
+
+    /**
+     * The storage type of a column.
+     */
+    public enum Type {
+        /** Stored in an {@code int[]}. */
+        INT,
+        /** Stored in a {@code long[]}. */
+        LONG,
+        /** Stored in a {@code double[]}. */
+        DOUBLE,
+        /** Stored as dictionary codes in an {@code int[]}. */
+        STRING
+    }
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String[] labels;
+    private final Column[] columns;
+    private final int size;
+
+    private ColumnarResult(String[] labels, Column[] columns, int size) {
+        this.labels = labels;
+        this.columns = columns;
+        this.size = size;
+    }
+
+    /**
+     * Reads every remaining row of a result set into a new snapshot. The result set is not closed.
+     *
+     * @param resultSet the result set to read.
+     * @return the snapshot.
+     * @throws SQLException if the result cannot be read.
+     */
+    public static ColumnarResult from(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int count = metaData.getColumnCount();
+        String[] labels = new String[count];
+        Column[] columns = new Column[count];
+        for (int i = 0; i < count; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            columns[i] = new Column(typeOf(metaData, i + 1));
+        }
+
+        int rows = 0;
+        while (resultSet.next()) {
+            for (int i = 0; i < count; i++) {
+                columns[i].read(resultSet, i + 1, rows);
+            }
+            rows++;
+        }
+        for (Column column : columns) {
+            column.trim(rows);
+        }
+        return new ColumnarResult(labels, columns, rows);
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of columns.
+     *
+     * @return the number of columns.
+     */
+    public int columnCount() {
+        return columns.length;
+    }
+
+    /**
+     * Resolves the index of a column by its label, ignoring case.
+     *
+     * @param label the column label.
+     * @return the 0-based index of the column.
+     * @throws IllegalArgumentException if there is no column with that label.
+     */
+    public int column(String label) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase(label)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No column labeled " + label);
+    }
+
+    /**
+     * Returns the label of a column.
+     *
+     * @param column the 0-based index of the column.
+     * @return the column label.
+     */
+    public String label(int column) {
+        return labels[column];
+    }
+
+    /**
+     * Returns the storage type of a column.
+     *
+     * @param column the 0-based index of the column.
+     * @return the storage type.
+     */
+    public Type type(int column) {
+        return columns[column].type;
+    }
+
+    /**
+     * Returns the number of distinct values of a string column.
+     *
+     * @param column the 0-based index of a {@link Type#STRING} column.
+     * @return the size of the dictionary.
+     */
+    public int distinctCount(int column) {
+        return string(column).dictionarySize;
+    }
+
+    /**
+     * Checks whether a value is SQL {@code NULL}.
+     *
+     * @param row the 0-based row index.
+     * @param column the 0-based index of the column.
+     * @return {@code true} if the value is {@code NULL}.
+     */
+    public boolean isNull(int row, int column) {
+        return columns[column].isNull(row);
+    }
+
+    /**
+     * Reads a value of an integer column.
+     *
+     * @param row the 0-based row index.
+     * @param column the 0-based index of a {@link Type#INT} column.
+     * @return the value, {@code 0} for {@code NULL}.
+     */
+    public int getInt(int row, int column) {
+        Column c = columns[column];
+        if (c.type != Type.INT) {
+            throw new IllegalArgumentException(labels[column] + " is a " + c.type + " column");
+        }
+        return c.ints[row];
+    }
+
+    /**
+     * Reads a value of an integer column as a {@code long}.
+     *
+     * @param row the 0-based row index.
+     * @param column the 0-based index of a {@link Type#INT} or {@link Type#LONG} column.
+     * @return the value, {@code 0} for {@code NULL}.
+     */
+    public long getLong(int row, int column) {
+        Column c = columns[column];
+        return switch (c.type) {
+            case INT -> c.ints[row];
+            case LONG -> c.longs[row];
+            default -> throw new IllegalArgumentException(labels[column] + " is a " + c.type + " column");
+        };
+    }
+
+    /**
+     * Reads a value of a numeric column as a {@code double}.
+     *
+     * @param row the 0-based row index.
+     * @param column the 0-based index of a numeric column.
+     * @return the value, {@code 0} for {@code NULL}.
+     */
+    public double getDouble(int row, int column) {
+        Column c = columns[column];
+        return switch (c.type) {
+            case INT -> c.ints[row];
+            case LONG -> c.longs[row];
+            case DOUBLE -> c.doubles[row];
+            default -> throw new IllegalArgumentException(labels[column] + " is a " + c.type + " column");
+        };
+    }
+
+    /**
+     * Reads a value of any column as a string.
+     *
+     * @param row the 0-based row index.
+     * @param column the 0-based index of the column.
+     * @return the value, or {@code null} for {@code NULL}.
+     */
+    public String getString(int row, int column) {
+        Column c = columns[column];
+        if (c.isNull(row)) {
+            return null;
+        }
+        return switch (c.type) {
+            case INT -> String.valueOf(c.ints[row]);
+            case LONG -> String.valueOf(c.longs[row]);
+            case DOUBLE -> String.valueOf(c.doubles[row]);
+            case STRING -> c.dictionary[c.codes[row]];
+        };
+    }
+
+    /**
+     * Returns the rows of an integer column whose value matches the predicate. {@code NULL}s never match.
+     *
+     * @param column the 0-based index of a {@link Type#INT} or {@link Type#LONG} column.
+     * @param predicate the condition on the value.
+     * @return the matching row indexes, in ascending order.
+     */
+    public int[] filterLong(int column, LongPredicate predicate) {
+        Column c = columns[column];
+        int[] rows = new int[size];
+        int matches = 0;
+        switch (c.type) {
+            case INT -> {
+                int[] values = c.ints;
+                for (int row = 0; row < size; row++) {
+                    if (predicate.test(values[row]) && !c.isNull(row)) {
+                        rows[matches++] = row;
+                    }
+                }
+            }
+            case LONG -> {
+                long[] values = c.longs;
+                for (int row = 0; row < size; row++) {
+                    if (predicate.test(values[row]) && !c.isNull(row)) {
+                        rows[matches++] = row;
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException(labels[column] + " is a " + c.type + " column");
+        }
+        return Arrays.copyOf(rows, matches);
+    }
+
+    /**
+     * Returns the rows of a numeric column whose value matches the predicate. {@code NULL}s never match.
+     *
+     * @param column the 0-based index of a numeric column.
+     * @param predicate the condition on the value.
+     * @return the matching row indexes, in ascending order.
+     */
+    public int[] filterDouble(int column, DoublePredicate predicate) {
+        Column c = columns[column];
+        if (c.type != Type.DOUBLE) {
+            return filterLong(column, (long value) -> predicate.test(value));
+        }
+        double[] values = c.doubles;
+        int[] rows = new int[size];
+        int matches = 0;
+        for (int row = 0; row < size; row++) {
+            if (predicate.test(values[row]) && !c.isNull(row)) {
+                rows[matches++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, matches);
+    }
+
+    /**
+     * Returns the rows of a string column whose value matches the predicate. The predicate is evaluated
+     * once per distinct value. {@code NULL}s never match.
+     *
+     * @param column the 0-based index of a {@link Type#STRING} column.
+     * @param predicate the condition on the value.
+     * @return the matching row indexes, in ascending order.
+     */
+    public int[] filterString(int column, Predicate<String> predicate) {
+        Column c = string(column);
+        boolean[] accepted = new boolean[c.dictionarySize];
+        for (int code = 0; code < accepted.length; code++) {
+            accepted[code] = predicate.test(c.dictionary[code]);
+        }
+        int[] codes = c.codes;
+        int[] rows = new int[size];
+        int matches = 0;
+        for (int row = 0; row < size; row++) {
+            if (!c.isNull(row) && accepted[codes[row]]) {
+                rows[matches++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, matches);
+    }
+
+    /**
+     * Sums an integer column, skipping {@code NULL}s.
+     *
+     * @param column the 0-based index of a {@link Type#INT} or {@link Type#LONG} column.
+     * @return the sum.
+     */
+    public long sumLong(int column) {
+        Column c = columns[column];
+        long sum = 0;
+        switch (c.type) {
+            case INT -> {
+                for (int value : c.ints) {
+                    sum += value;
+                }
+            }
+            case LONG -> {
+                for (long value : c.longs) {
+                    sum += value;
+                }
+            }
+            default -> throw new IllegalArgumentException(labels[column] + " is a " + c.type + " column");
+        }
+        return sum;
+    }
+
+    /**
+     * Sums an integer column over the given rows, skipping {@code NULL}s.
+     *
+     * @param column the 0-based index of a {@link Type#INT} or {@link Type#LONG} column.
+     * @param rows the row indexes, e.g. returned by a filter.
+     * @return the sum.
+     */
+    public long sumLong(int column, int[] rows) {
+        long sum = 0;
+        for (int row : rows) {
+            sum += getLong(row, column);
+        }
+        return sum;
+    }
+
+    /**
+     * Sums a numeric column, skipping {@code NULL}s.
+     *
+     * @param column the 0-based index of a numeric column.
+     * @return the sum.
+     */
+    public double sumDouble(int column) {
+        Column c = columns[column];
+        if (c.type != Type.DOUBLE) {
+            return sumLong(column);
+        }
+        double sum = 0;
+        for (double value : c.doubles) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    /**
+     * Sums a numeric column over the given rows, skipping {@code NULL}s.
+     *
+     * @param column the 0-based index of a numeric column.
+     * @param rows the row indexes, e.g. returned by a filter.
+     * @return the sum.
+     */
+    public double sumDouble(int column, int[] rows) {
+        double sum = 0;
+        for (int row : rows) {
+            sum += getDouble(row, column);
+        }
+        return sum;
+    }
+
+    /**
+     * Sums a numeric column per distinct value of a string column. Rows whose key is {@code NULL} are
+     * grouped under a {@code null} key.
+     *
+     * @param keyColumn the 0-based index of the {@link Type#STRING} column to group by.
+     * @param valueColumn the 0-based index of the numeric column to sum.
+     * @return the sums by key, in order of first appearance with the {@code null} key last.
+     */
+    public Map<String, Double> sumBy(int keyColumn, int valueColumn) {
+        Column key = string(keyColumn);
+        double[] sums = new double[key.dictionarySize + 1];
+        int[] codes = key.codes;
+        for (int row = 0; row < size; row++) {
+            sums[key.isNull(row) ? key.dictionarySize : codes[row]] += getDouble(row, valueColumn);
+        }
+        Map<String, Double> groups = new LinkedHashMap<>();
+        for (int code = 0; code < key.dictionarySize; code++) {
+            groups.put(key.dictionary[code], sums[code]);
+        }
+        if (key.nulls != null) {
+            groups.put(null, sums[key.dictionarySize]);
+        }
+        return groups;
+    }
+
+    /**
+     * Counts the rows per distinct value of a string column. Rows whose key is {@code NULL} are
+     * grouped under a {@code null} key.
+     *
+     * @param keyColumn the 0-based index of the {@link Type#STRING} column to group by.
+     * @return the counts by key, in order of first appearance with the {@code null} key last.
+     */
+    public Map<String, Long> countBy(int keyColumn) {
+        Column key = string(keyColumn);
+        long[] counts = new long[key.dictionarySize + 1];
+        int[] codes = key.codes;
+        for (int row = 0; row < size; row++) {
+            counts[key.isNull(row) ? key.dictionarySize : codes[row]]++;
+        }
+        Map<String, Long> groups = new LinkedHashMap<>();
+        for (int code = 0; code < key.dictionarySize; code++) {
+            groups.put(key.dictionary[code], counts[code]);
+        }
+        if (key.nulls != null) {
+            groups.put(null, counts[key.dictionarySize]);
+        }
+        return groups;
+    }
+
+    /**
+     * Returns a string column, failing for other types.
+     *
+     * @param column the 0-based index of the column.
+     * @return the column.
+     */
+    private Column string(int column) {
+        Column c = columns[column];
+        if (c.type != Type.STRING) {
+            throw new IllegalArgumentException(labels[column] + " is a " + c.type + " column");
+        }
+        return c;
+    }
+
+    /**
+     * Picks the storage type of a column from its JDBC type.
+     *
+     * @param metaData the metadata of the result.
+     * @param column the 1-based index of the column.
+     * @return the storage type.
+     * @throws SQLException if the metadata cannot be read.
+     */
+    private static Type typeOf(ResultSetMetaData metaData, int column) throws SQLException {
+        return switch (metaData.getColumnType(column)) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIT, Types.BOOLEAN -> Type.INT;
+            case Types.BIGINT -> Type.LONG;
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> Type.DOUBLE;
+            case Types.NUMERIC, Types.DECIMAL -> metaData.getScale(column) == 0 && metaData.getPrecision(column) > 0
+                && metaData.getPrecision(column) <= 18 ? Type.LONG : Type.DOUBLE;
+            default -> Type.STRING;
+        };
+    }
+
+    /**
+     * The values of one column.
+     */
+    private static final class Column {
+        private final Type type;
+        private int[] ints;
+        private long[] longs;
+        private double[] doubles;
+        private int[] codes;
+        private String[] dictionary;
+        private int dictionarySize;
+        private Map<String, Integer> codesByValue;
+        private long[] nulls;
+
+        private Column(Type type) {
+            this.type = type;
+            switch (type) {
+                case INT -> ints = new int[INITIAL_CAPACITY];
+                case LONG -> longs = new long[INITIAL_CAPACITY];
+                case DOUBLE -> doubles = new double[INITIAL_CAPACITY];
+                case STRING -> {
+                    codes = new int[INITIAL_CAPACITY];
+                    dictionary = new String[16];
+                    codesByValue = new HashMap<>();
+                }
+            }
+        }
+
+        /**
+         * Reads the value of the current row.
+         *
+         * @param resultSet the result set positioned on the row.
+         * @param column the 1-based index of the column.
+         * @param row the 0-based index of the row.
+         * @throws SQLException if the value cannot be read.
+         */
+        private void read(ResultSet resultSet, int column, int row) throws SQLException {
+            ensureCapacity(row);
+            switch (type) {
+                case INT -> ints[row] = resultSet.getInt(column);
+                case LONG -> longs[row] = resultSet.getLong(column);
+                case DOUBLE -> doubles[row] = resultSet.getDouble(column);
+                case STRING -> {
+                    String value = resultSet.getString(column);
+                    codes[row] = value == null ? 0 : encode(value);
+                }
+            }
+            if (resultSet.wasNull()) {
+                markNull(row);
+            }
+        }
+
+        /**
+         * Returns the dictionary code of a string, adding it to the dictionary if needed.
+         *
+         * @param value the string.
+         * @return the code.
+         */
+        private int encode(String value) {
+            Integer code = codesByValue.get(value);
+            if (code == null) {
+                if (dictionarySize == dictionary.length) {
+                    dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+                }
+                code = dictionarySize;
+                dictionary[dictionarySize++] = value;
+                codesByValue.put(value, code);
+            }
+            return code;
+        }
+
+        private void markNull(int row) {
+            if (nulls == null) {
+                nulls = new long[(capacity() + 63) >>> 6];
+            }
+            nulls[row >>> 6] |= 1L << row;
+        }
+
+        private boolean isNull(int row) {
+            return nulls != null && (nulls[row >>> 6] & (1L << row)) != 0;
+        }
+
+        private int capacity() {
+            return switch (type) {
+                case INT -> ints.length;
+                case LONG -> longs.length;
+                case DOUBLE -> doubles.length;
+                case STRING -> codes.length;
+            };
+        }
+
+        private void ensureCapacity(int row) {
+            if (row < capacity()) {
+                return;
+            }
+            int capacity = capacity() * 2;
+            switch (type) {
+                case INT -> ints = Arrays.copyOf(ints, capacity);
+                case LONG -> longs = Arrays.copyOf(longs, capacity);
+                case DOUBLE -> doubles = Arrays.copyOf(doubles, capacity);
+                case STRING -> codes = Arrays.copyOf(codes, capacity);
+            }
+            if (nulls != null) {
+                nulls = Arrays.copyOf(nulls, (capacity + 63) >>> 6);
+            }
+        }
+
+        /**
+         * Shrinks the arrays to the number of rows read and drops the build-time lookup table.
+         *
+         * @param rows the number of rows.
+         */
+        private void trim(int rows) {
+            switch (type) {
+                case INT -> ints = Arrays.copyOf(ints, rows);
+                case LONG -> longs = Arrays.copyOf(longs, rows);
+                case DOUBLE -> doubles = Arrays.copyOf(doubles, rows);
+                case STRING -> {
+                    codes = Arrays.copyOf(codes, rows);
+                    dictionary = Arrays.copyOf(dictionary, dictionarySize);
+                    codesByValue = null;
+                }
+            }
+            if (nulls != null) {
+                nulls = Arrays.copyOf(nulls, Math.max(1, (rows + 63) >>> 6));
+            }
+        }
+    }
+}
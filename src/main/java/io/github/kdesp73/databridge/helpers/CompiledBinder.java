@@ -0,0 +1,218 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import io.github.kdesp73.databridge.connections.RowBinder;
+import io.github.kdesp73.databridge.connections.StatementBinder;
+
+/**
+ * The {@code CompiledBinder} class is the write side of {@link CompiledMapper}: a {@link RowBinder}
+ * built once per class that sets the parameters of a statement from the fields of an object.
+ * <p>
+ * The properties of a class are its record components, or the declared fields
+ * {@link CompiledMapper#isProperty(Field)} accepts, the same fields a read fills. Each one is written
+ * to the column {@link CompiledMapper#columnName(Column, String)} names, the first column a read would
+ * match. Accessors are turned into {@link MethodHandle}s when the binder
+ * is compiled; primitive properties are bound with the typed setters of {@link PreparedStatement}
+ * without boxing, others with {@link StatementBinder#bind(PreparedStatement, int, Object)} after
+ * converting enums to their name and {@link Instant}s and {@link java.util.Date}s to {@link Timestamp}s.
+ * </p>
+ *
+ * @param <T> the type of the bound rows.
+ * @author KDesp73
+ */
+final class CompiledBinder<T> implements RowBinder<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final Map<Class<?>, CompiledBinder<?>> CACHE = new ConcurrentHashMap<>();
+
+    private final Class<T> type;
+    private final List<String> columns;
+    private final Binding[] bindings;
+
+    private CompiledBinder(Class<T> type, List<String> columns, Binding[] bindings) {
+        this.type = type;
+        this.columns = List.copyOf(columns);
+        this.bindings = bindings;
+    }
+
+    /**
+     * Returns the binder for the given class, compiling it on first use.
+     *
+     * @param <T> the type of the bound rows.
+     * @param type the class of the rows.
+     * @return the binder.
+     * @throws SQLException if the properties of the class cannot be read.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> CompiledBinder<T> of(Class<T> type) throws SQLException {
+        CompiledBinder<?> binder = CACHE.get(type);
+        if (binder == null) {
+            CompiledBinder<T> compiled = compile(type);
+            binder = CACHE.putIfAbsent(type, compiled);
+            if (binder == null) {
+                binder = compiled;
+            }
+        }
+        return (CompiledBinder<T>) binder;
+    }
+
+    /**
+     * Returns the columns the properties are written to, in parameter order.
+     *
+     * @return the column names.
+     */
+    List<String> columns() {
+        return columns;
+    }
+
+    /**
+     * Sets one parameter per column, in order starting from the first, from the given row.
+     *
+     * @param statement the statement to bind.
+     * @param row the row holding the parameter values.
+     * @throws SQLException if a parameter cannot be set.
+     */
+    @Override
+    public void bind(PreparedStatement statement, T row) throws SQLException {
+        for (int i = 0; i < bindings.length; i++) {
+            try {
+                bindings[i].apply(statement, row);
+            } catch (SQLException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new SQLException("Cannot bind column " + columns.get(i) + " of " + type.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Resolves the properties, columns and accessor handles of a new binder.
+     *
+     * @param <T> the type of the bound rows.
+     * @param type the class of the rows.
+     * @return the compiled binder.
+     * @throws SQLException if a property cannot be read.
+     */
+    private static <T> CompiledBinder<T> compile(Class<T> type) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        List<Binding> bindings = new ArrayList<>();
+        try {
+            if (type.isRecord()) {
+                for (RecordComponent component : type.getRecordComponents()) {
+                    Method accessor = component.getAccessor();
+                    accessor.setAccessible(true);
+                    columns.add(CompiledMapper.columnName(component.getAnnotation(Column.class), component.getName()));
+                    bindings.add(binding(component.getType(), LOOKUP.unreflect(accessor), columns.size()));
+                }
+            } else {
+                for (Field field : type.getDeclaredFields()) {
+                    if (!CompiledMapper.isProperty(field)) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    columns.add(CompiledMapper.columnName(field.getAnnotation(Column.class), field.getName()));
+                    bindings.add(binding(field.getType(), LOOKUP.unreflectGetter(field), columns.size()));
+                }
+            }
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new SQLException("Cannot bind rows of " + type.getName(), e);
+        }
+        if (columns.isEmpty()) {
+            throw new SQLException(type.getName() + " has no properties to bind");
+        }
+        return new CompiledBinder<>(type, columns, bindings.toArray(Binding[]::new));
+    }
+
+    /**
+     * Creates the binding setting one parameter from a property, picking the setter from the property type.
+     *
+     * @param type the type of the property.
+     * @param getter the accessor of the property.
+     * @param index the 1-based parameter index.
+     * @return the binding.
+     */
+    private static Binding binding(Class<?> type, MethodHandle getter, int index) {
+        if (!type.isPrimitive()) {
+            MethodHandle handle = getter.asType(MethodType.methodType(Object.class, Object.class));
+            return (statement, row) -> {
+                StatementBinder.bind(statement, index, value((Object) handle.invokeExact(row)));
+            };
+        }
+
+        MethodHandle handle = getter.asType(MethodType.methodType(type, Object.class));
+        if (type == int.class) {
+            return (statement, row) -> {
+                statement.setInt(index, (int) handle.invokeExact(row));
+            };
+        } else if (type == long.class) {
+            return (statement, row) -> {
+                statement.setLong(index, (long) handle.invokeExact(row));
+            };
+        } else if (type == double.class) {
+            return (statement, row) -> {
+                statement.setDouble(index, (double) handle.invokeExact(row));
+            };
+        } else if (type == float.class) {
+            return (statement, row) -> {
+                statement.setFloat(index, (float) handle.invokeExact(row));
+            };
+        } else if (type == boolean.class) {
+            return (statement, row) -> {
+                statement.setBoolean(index, (boolean) handle.invokeExact(row));
+            };
+        } else if (type == short.class) {
+            return (statement, row) -> {
+                statement.setShort(index, (short) handle.invokeExact(row));
+            };
+        } else if (type == byte.class) {
+            return (statement, row) -> {
+                statement.setByte(index, (byte) handle.invokeExact(row));
+            };
+        } else {
+            return (statement, row) -> {
+                statement.setString(index, String.valueOf((char) handle.invokeExact(row)));
+            };
+        }
+    }
+
+    /**
+     * Converts a property value to a type every driver accepts, mirroring the conversions of {@link Converters}.
+     *
+     * @param value the property value.
+     * @return the value to bind.
+     */
+    private static Object value(Object value) {
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        } else if (value instanceof Character c) {
+            return c.toString();
+        } else if (value instanceof Instant instant) {
+            return Timestamp.from(instant);
+        } else if (value instanceof java.util.Date date && !(value instanceof java.sql.Date || value instanceof java.sql.Time || value instanceof Timestamp)) {
+            return new Timestamp(date.getTime());
+        }
+        return value;
+    }
+
+    /**
+     * Sets one parameter of a statement from one property of a row.
+     */
+    @FunctionalInterface
+    private interface Binding {
+        void apply(PreparedStatement statement, Object row) throws Throwable;
+    }
+}
@@ -0,0 +1,540 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.RecordComponent;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import io.github.kdesp73.databridge.helpers.SQLogger.LogLevel;
+import io.github.kdesp73.databridge.helpers.SQLogger.LogType;
+
+/**
+ * The {@code CompiledMapper} class is a {@link RowMapper} built once for a class and a
+ * result shape (the ordered column labels of a {@link ResultSet}).
+ * <p>
+ * All the reflective work of {@link Adapter} happens when the mapper is compiled: fields are
+ * matched to column indexes (by snake_case name first, then by field name), field setters
+ * are turned into {@link MethodHandle}s and the no-arg constructor into a {@link Supplier},
+ * spun with {@link LambdaMetafactory} when it is public. Each field also gets its getter:
+ * primitive fields are read with the matching primitive getter and written through a
+ * primitive-typed handle, so their values are never boxed, while other fields use the
+ * {@link ColumnReader} registered in {@link Converters}. Mapping a row then only reads the
+ * matched columns by index and invokes the prepared bindings.
+ * </p>
+ * <p>
+ * Records, and classes with a constructor annotated with {@link RowConstructor}, are created through
+ * that constructor instead: the getter of each parameter is folded into the constructor handle with
+ * {@link MethodHandles#filterArguments} and {@link MethodHandles#permuteArguments}, giving a single
+ * {@code (ResultSet)T} handle that reads every column unboxed and allocates only the row object.
+ * </p>
+ * <p>
+ * Compiled mappers are cached per class and column labels, so every query with the same shape
+ * shares one mapper. Classes with a {@link RowMapperFactory} service, such as the ones generated for
+ * {@link GenerateMapper}, skip reflection entirely and cache the mapper created by the factory.
+ * </p>
+ *
+ * @param <T> the type of the mapped rows.
+ * @author KDesp73
+ */
+final class CompiledMapper<T> implements RowMapper<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final MethodType CREATOR_TYPE = MethodType.methodType(Object.class, ResultSet.class);
+
+    private static final Map<Shape, RowMapper<?>> CACHE = new ConcurrentHashMap<>();
+
+    private static final Map<Shape, CompiledMapper<?>> REUSABLE = new ConcurrentHashMap<>();
+
+    private final Class<T> type;
+    private final Supplier<T> constructor;
+    private final Field[] fields;
+    private final Binding[] bindings;
+    private final MethodHandle creator;
+
+    private CompiledMapper(Class<T> type, Supplier<T> constructor, Field[] fields, Binding[] bindings) {
+        this.type = type;
+        this.constructor = constructor;
+        this.fields = fields;
+        this.bindings = bindings;
+        this.creator = null;
+    }
+
+    private CompiledMapper(Class<T> type, MethodHandle creator) {
+        this.type = type;
+        this.constructor = null;
+        this.fields = new Field[0];
+        this.bindings = new Binding[0];
+        this.creator = creator;
+    }
+
+    /**
+     * Discards every compiled mapper, e.g. after a {@link ColumnReader} was registered.
+     */
+    static void clearCache() {
+        CACHE.clear();
+        REUSABLE.clear();
+    }
+
+    /**
+     * Returns the mapper for the given class and result shape, compiling it on first use.
+     * A {@link RowMapperFactory} registered for the class is used instead of reflection.
+     *
+     * @param <T> the type of the mapped rows.
+     * @param type the class the rows are mapped to.
+     * @param metaData the metadata of the result to map.
+     * @return the mapper.
+     * @throws SQLException if the metadata cannot be read or the class cannot be mapped.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> RowMapper<T> of(Class<T> type, ResultSetMetaData metaData) throws SQLException {
+        String[] labels = labels(metaData);
+        Shape shape = new Shape(type, Arrays.asList(labels));
+
+        RowMapper<?> mapper = CACHE.get(shape);
+        if (mapper == null) {
+            RowMapperFactory<T> factory = (RowMapperFactory<T>) Factories.ALL.get(type);
+            RowMapper<?> compiled = factory != null ? factory.create(metaData) : compile(type, labels);
+            mapper = CACHE.putIfAbsent(shape, compiled);
+            if (mapper == null) {
+                mapper = compiled;
+            }
+        }
+        return (RowMapper<T>) mapper;
+    }
+
+    /**
+     * Returns the field-based mapper for the given class and result shape, whose instances can be
+     * refilled with {@link #fill(Object, ResultSet)}. Generated factories are not used here.
+     *
+     * @param <T> the type of the mapped rows.
+     * @param type the class the rows are mapped to.
+     * @param metaData the metadata of the result to map.
+     * @return the compiled mapper.
+     * @throws SQLException if the metadata cannot be read or the class cannot be mapped.
+     * @throws IllegalArgumentException if the class is created through a constructor, e.g. a record.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> CompiledMapper<T> reusable(Class<T> type, ResultSetMetaData metaData) throws SQLException {
+        String[] labels = labels(metaData);
+        Shape shape = new Shape(type, Arrays.asList(labels));
+
+        CompiledMapper<?> mapper = REUSABLE.get(shape);
+        if (mapper == null) {
+            CompiledMapper<?> compiled = compile(type, labels);
+            if (compiled.creator != null) {
+                throw new IllegalArgumentException(type.getName() + " is created through a constructor and cannot be reused across rows");
+            }
+            mapper = REUSABLE.putIfAbsent(shape, compiled);
+            if (mapper == null) {
+                mapper = compiled;
+            }
+        }
+        return (CompiledMapper<T>) mapper;
+    }
+
+    /**
+     * Reads the lower-case column labels of a result.
+     *
+     * @param metaData the metadata of the result.
+     * @return the labels, in column order.
+     * @throws SQLException if the metadata cannot be read.
+     */
+    private static String[] labels(ResultSetMetaData metaData) throws SQLException {
+        String[] labels = new String[metaData.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1).toLowerCase(Locale.ROOT);
+        }
+        return labels;
+    }
+
+    /**
+     * Maps the current row of the given result set to a new instance.
+     *
+     * @param resultSet the result set positioned on the row to map.
+     * @return the mapped object.
+     * @throws SQLException if a column cannot be read or its value does not fit the field.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T map(ResultSet resultSet) throws SQLException {
+        if (creator != null) {
+            try {
+                return (T) creator.invokeExact(resultSet);
+            } catch (ClassCastException e) {
+                throw new SQLException("Column value cannot be passed to the constructor of " + type.getName(), e);
+            } catch (SQLException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new SQLException(e);
+            }
+        }
+
+        T object = constructor.get();
+        fill(object, resultSet);
+        return object;
+    }
+
+    /**
+     * Overwrites the mapped fields of an existing instance with the current row, so one
+     * instance can be reused for every row.
+     *
+     * @param object the instance to fill.
+     * @param resultSet the result set positioned on the row to map.
+     * @throws SQLException if a column cannot be read or its value does not fit the field.
+     */
+    void fill(T object, ResultSet resultSet) throws SQLException {
+        for (int i = 0; i < bindings.length; i++) {
+            try {
+                bindings[i].apply(object, resultSet);
+            } catch (ClassCastException e) {
+                throw new SQLException("Column value cannot be assigned to " + type.getName() + "." + fields[i].getName(), e);
+            } catch (SQLException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new SQLException(e);
+            }
+        }
+    }
+
+    /**
+     * Creates a new, empty instance to be filled with {@link #fill(Object, ResultSet)}.
+     *
+     * @return the new instance.
+     */
+    T newInstance() {
+        return constructor.get();
+    }
+
+    /**
+     * Resolves the fields, columns and handles of a new mapper.
+     *
+     * @param <T> the type of the mapped rows.
+     * @param type the class the rows are mapped to.
+     * @param labels the lower-case column labels of the result, in order.
+     * @return the compiled mapper.
+     * @throws SQLException if the class has no usable no-arg constructor or a field cannot be set.
+     */
+    private static <T> CompiledMapper<T> compile(Class<T> type, String[] labels) throws SQLException {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = labels.length - 1; i >= 0; i--) {
+            indexes.put(labels[i], i + 1);
+        }
+
+        Constructor<T> rowConstructor = rowConstructor(type);
+        if (rowConstructor != null) {
+            return new CompiledMapper<>(type, creator(rowConstructor, indexes));
+        }
+
+        List<Field> fields = new ArrayList<>();
+        List<Binding> bindings = new ArrayList<>();
+        try {
+            for (Field field : type.getDeclaredFields()) {
+                if (!isProperty(field)) {
+                    continue;
+                }
+                Integer column = column(indexes, field.getAnnotation(Column.class), field.getName());
+                if (column == null) {
+                    continue;
+                }
+                field.setAccessible(true);
+                fields.add(field);
+                bindings.add(binding(field, LOOKUP.unreflectSetter(field), column));
+            }
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new SQLException("Cannot map rows to " + type.getName(), e);
+        }
+
+        return new CompiledMapper<>(type, constructor(type), fields.toArray(Field[]::new), bindings.toArray(Binding[]::new));
+    }
+
+    /**
+     * Finds the column matching a field or parameter.
+     *
+     * @param indexes the 1-based column indexes by lower-case label.
+     * @param annotation the {@link Column} annotation of the field or parameter, or {@code null}.
+     * @param name the name of the field or parameter.
+     * @return the 1-based index of the column, or {@code null} if there is none.
+     */
+    private static Integer column(Map<String, Integer> indexes, Column annotation, String name) {
+        if (annotation != null) {
+            return indexes.get(annotation.value().toLowerCase(Locale.ROOT));
+        }
+        Integer column = indexes.get(Adapter.toSnakeCase(name));
+        return column != null ? column : indexes.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Checks whether a field is a property of its class, read by the mapper and written by
+     * {@link CompiledBinder}: every declared field that is neither static nor synthetic.
+     *
+     * @param field the field.
+     * @return {@code true} if the field is mapped to a column.
+     */
+    static boolean isProperty(Field field) {
+        return !Modifier.isStatic(field.getModifiers()) && !field.isSynthetic();
+    }
+
+    /**
+     * Returns the column a field or parameter is written to: the {@link Column} name if present,
+     * otherwise the snake_case form of its name, the first name tried when reading.
+     *
+     * @param annotation the {@link Column} annotation of the field or parameter, or {@code null}.
+     * @param name the name of the field or parameter.
+     * @return the column name.
+     */
+    static String columnName(Column annotation, String name) {
+        return annotation != null ? annotation.value() : Adapter.toSnakeCase(name);
+    }
+
+    /**
+     * Returns the constructor rows are passed to: the canonical constructor of a record or the
+     * constructor annotated with {@link RowConstructor}.
+     *
+     * @param <T> the type of the mapped rows.
+     * @param type the class the rows are mapped to.
+     * @return the constructor, or {@code null} if rows are mapped through fields.
+     * @throws SQLException if the canonical constructor of a record cannot be found.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Constructor<T> rowConstructor(Class<T> type) throws SQLException {
+        if (type.isRecord()) {
+            Class<?>[] components = Arrays.stream(type.getRecordComponents()).map(RecordComponent::getType).toArray(Class<?>[]::new);
+            try {
+                return type.getDeclaredConstructor(components);
+            } catch (NoSuchMethodException e) {
+                throw new SQLException("Record " + type.getName() + " has no canonical constructor", e);
+            }
+        }
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (constructor.isAnnotationPresent(RowConstructor.class)) {
+                return (Constructor<T>) constructor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds a {@code (ResultSet)Object} handle that reads the column of every constructor
+     * parameter and calls the constructor. Parameters without a column get {@code null} or zero.
+     *
+     * @param constructor the constructor to call.
+     * @param indexes the 1-based column indexes by lower-case label.
+     * @return the creator handle.
+     * @throws SQLException if a parameter has no known name or the constructor is not accessible.
+     */
+    private static MethodHandle creator(Constructor<?> constructor, Map<String, Integer> indexes) throws SQLException {
+        Class<?> type = constructor.getDeclaringClass();
+        Parameter[] parameters = constructor.getParameters();
+        RecordComponent[] components = type.isRecord() ? type.getRecordComponents() : null;
+
+        try {
+            constructor.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflectConstructor(constructor);
+
+            MethodHandle[] getters = new MethodHandle[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                Parameter parameter = parameters[i];
+                String name;
+                if (components != null) {
+                    name = components[i].getName();
+                } else if (parameter.isNamePresent() || parameter.isAnnotationPresent(Column.class)) {
+                    name = parameter.getName();
+                } else {
+                    throw new SQLException("Parameter " + i + " of the @RowConstructor of " + type.getName()
+                        + " needs a @Column annotation or the class must be compiled with -parameters");
+                }
+                Integer column = column(indexes, parameter.getAnnotation(Column.class), name);
+                getters[i] = column != null
+                    ? getter(parameter.getType(), column)
+                    : MethodHandles.dropArguments(MethodHandles.zero(parameter.getType()), 0, ResultSet.class);
+            }
+
+            handle = MethodHandles.filterArguments(handle, 0, getters);
+            handle = MethodHandles.permuteArguments(handle, MethodType.methodType(type, ResultSet.class), new int[parameters.length]);
+            return handle.asType(CREATOR_TYPE);
+        } catch (IllegalAccessException | NoSuchMethodException | RuntimeException e) {
+            throw new SQLException("Cannot map rows to " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Returns a {@code (ResultSet)type} handle reading the given column with the getter for the type.
+     *
+     * @param type the type of the value.
+     * @param column the 1-based index of the column.
+     * @return the getter handle.
+     * @throws NoSuchMethodException if the primitive getter does not exist.
+     * @throws IllegalAccessException if the getter is not accessible.
+     */
+    private static MethodHandle getter(Class<?> type, int column) throws NoSuchMethodException, IllegalAccessException {
+        MethodHandle handle;
+        if (type == char.class) {
+            handle = LOOKUP.findStatic(RowMapperFactory.class, "getChar", MethodType.methodType(char.class, ResultSet.class, int.class));
+        } else if (type.isPrimitive()) {
+            String name = "get" + Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1);
+            handle = LOOKUP.findVirtual(ResultSet.class, name, MethodType.methodType(type, int.class));
+        } else {
+            handle = LOOKUP.findVirtual(ColumnReader.class, "read", MethodType.methodType(Object.class, ResultSet.class, int.class))
+                .bindTo(Converters.reader(type))
+                .asType(MethodType.methodType(type, ResultSet.class, int.class));
+        }
+        return MethodHandles.insertArguments(handle, 1, column);
+    }
+
+    /**
+     * Creates the binding reading a column into a field, picking the getter from the field type.
+     *
+     * @param field the field to set.
+     * @param setter the setter of the field.
+     * @param column the 1-based index of the column.
+     * @return the binding.
+     */
+    private static Binding binding(Field field, MethodHandle setter, int column) {
+        Class<?> type = field.getType();
+        if (!type.isPrimitive()) {
+            MethodHandle handle = setter.asType(SETTER_TYPE);
+            ColumnReader<?> reader = Converters.reader(type);
+            return (target, rs) -> {
+                handle.invokeExact(target, (Object) reader.read(rs, column));
+            };
+        }
+
+        MethodHandle handle = setter.asType(MethodType.methodType(void.class, Object.class, type));
+        if (type == int.class) {
+            return (target, rs) -> {
+                handle.invokeExact(target, rs.getInt(column));
+            };
+        } else if (type == long.class) {
+            return (target, rs) -> {
+                handle.invokeExact(target, rs.getLong(column));
+            };
+        } else if (type == double.class) {
+            return (target, rs) -> {
+                handle.invokeExact(target, rs.getDouble(column));
+            };
+        } else if (type == float.class) {
+            return (target, rs) -> {
+                handle.invokeExact(target, rs.getFloat(column));
+            };
+        } else if (type == boolean.class) {
+            return (target, rs) -> {
+                handle.invokeExact(target, rs.getBoolean(column));
+            };
+        } else if (type == short.class) {
+            return (target, rs) -> {
+                handle.invokeExact(target, rs.getShort(column));
+            };
+        } else if (type == byte.class) {
+            return (target, rs) -> {
+                handle.invokeExact(target, rs.getByte(column));
+            };
+        } else {
+            return (target, rs) -> {
+                handle.invokeExact(target, RowMapperFactory.getChar(rs, column));
+            };
+        }
+    }
+
+    /**
+     * Creates a factory for new instances of the given class from its no-arg constructor.
+     * Public constructors are bound with {@link LambdaMetafactory}, others are invoked through a
+     * {@link MethodHandle}.
+     *
+     * @param <T> the type of the instances.
+     * @param type the class to instantiate.
+     * @return a supplier of new instances.
+     * @throws SQLException if the class has no usable no-arg constructor.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> constructor(Class<T> type) throws SQLException {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get", MethodType.methodType(Supplier.class),
+                MethodType.methodType(Object.class), handle, MethodType.methodType(type));
+            return (Supplier<T>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            // Not publicly accessible, fall back to a method handle
+        }
+
+        MethodHandle handle;
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            handle = LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            throw new SQLException(type.getName() + " has no usable no-arg constructor", e);
+        }
+        return () -> {
+            try {
+                return (T) handle.invokeExact();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot instantiate " + type.getName(), e);
+            }
+        };
+    }
+
+    /**
+     * The cache key of a compiled mapper.
+     *
+     * @param type the class the rows are mapped to.
+     * @param labels the lower-case column labels of the result, in order.
+     */
+    private record Shape(Class<?> type, List<String> labels) {}
+
+    /**
+     * The {@link RowMapperFactory} services on the class path, loaded on first use. A provider that
+     * cannot be loaded, such as a factory left behind by a class that no longer exists, is logged and
+     * skipped, and its type falls back to reflection.
+     */
+    private static final class Factories {
+        private static final Map<Class<?>, RowMapperFactory<?>> ALL = new ConcurrentHashMap<>();
+
+        static {
+            Iterator<? extends ServiceLoader.Provider<?>> providers = ServiceLoader.load(RowMapperFactory.class).stream().iterator();
+            while (true) {
+                try {
+                    if (!providers.hasNext()) {
+                        break;
+                    }
+                    RowMapperFactory<?> factory = (RowMapperFactory<?>) providers.next().get();
+                    ALL.put(factory.type(), factory);
+                } catch (ServiceConfigurationError | LinkageError e) {
+                    SQLogger.getLogger(LogLevel.WARN, LogType.ALL).log(Config.getInstance().getLogLevel(),
+                        "Skipping RowMapperFactory provider: " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads one column of the current row into one field of the target object.
+     */
+    @FunctionalInterface
+    private interface Binding {
+        void apply(Object target, ResultSet resultSet) throws Throwable;
+    }
+}
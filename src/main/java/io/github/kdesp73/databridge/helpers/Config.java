@@ -77,6 +77,21 @@ public class Config {
 		defaultProperties.setProperty("db.retry.times", "3");
 		defaultProperties.setProperty("db.retry.delay", "1000");
 
+		defaultProperties.setProperty("db.pool.min.size", "2");
+		defaultProperties.setProperty("db.pool.max.size", "10");
+		defaultProperties.setProperty("db.pool.idle.timeout", "600000");
+		defaultProperties.setProperty("db.pool.max.lifetime", "1800000");
+		defaultProperties.setProperty("db.pool.acquire.timeout", "30000");
+		defaultProperties.setProperty("db.pool.validation.timeout", "5");
+		defaultProperties.setProperty("db.statement.cache.size", "64");
+		defaultProperties.setProperty("db.batch.size", "1000");
+		defaultProperties.setProperty("db.fetch.size", "1000");
+		defaultProperties.setProperty("db.leak.detection.threshold", "0");
+		defaultProperties.setProperty("db.buffer.memory.limit", "67108864");
+		defaultProperties.setProperty("db.cache.size", "1000");
+		defaultProperties.setProperty("db.cache.ttl", "60000");
+		defaultProperties.setProperty("db.cache.coalesce", "true");
+
 		defaultProperties.setProperty("log.level", "INFO");
 		defaultProperties.setProperty("log.file", "logs/application.log");
 
@@ -100,11 +115,47 @@ public class Config {
 		return value != null ? Integer.parseInt(value) : 0;
 	}
 
+	/**
+	 * Gets an integer property, falling back to a default when the key is missing.
+	 *
+	 * @param key The property key.
+	 * @param defaultValue The value returned when the key is not set.
+	 * @return The configured value or {@code defaultValue}.
+	 */
+	public int getInt(String key, int defaultValue) {
+		String value = properties.getProperty(key);
+		return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+	}
+
+	/**
+	 * Gets a long property, falling back to a default when the key is missing.
+	 *
+	 * @param key The property key.
+	 * @param defaultValue The value returned when the key is not set.
+	 * @return The configured value or {@code defaultValue}.
+	 */
+	public long getLong(String key, long defaultValue) {
+		String value = properties.getProperty(key);
+		return value != null ? Long.parseLong(value.trim()) : defaultValue;
+	}
+
 	public boolean getBoolean(String key) {
 		String value = properties.getProperty(key);
 		return value != null ? Boolean.parseBoolean(value) : false;
 	}
 
+	/**
+	 * Gets a boolean property, falling back to a default when the key is missing.
+	 *
+	 * @param key The property key.
+	 * @param defaultValue The value returned when the key is not set.
+	 * @return The configured value or {@code defaultValue}.
+	 */
+	public boolean getBoolean(String key, boolean defaultValue) {
+		String value = properties.getProperty(key);
+		return value != null ? Boolean.parseBoolean(value.trim()) : defaultValue;
+	}
+
 	public void setProperty(String key, String value) {
 		properties.setProperty(key, value);
 	}
@@ -192,4 +243,131 @@ public class Config {
 	public int getDbRetryDelay() {
 		return getInt("db.retry.delay");
 	}
+
+	/**
+	 * Gets the minimum number of connections kept open by a connection pool.
+	 *
+	 * @return The minimum pool size.
+	 */
+	public int getDbPoolMinSize() {
+		return getInt("db.pool.min.size", 2);
+	}
+
+	/**
+	 * Gets the maximum number of connections a connection pool may open.
+	 *
+	 * @return The maximum pool size.
+	 */
+	public int getDbPoolMaxSize() {
+		return getInt("db.pool.max.size", 10);
+	}
+
+	/**
+	 * Gets the time an idle pooled connection is kept before it is evicted.
+	 *
+	 * @return The idle timeout in milliseconds.
+	 */
+	public long getDbPoolIdleTimeout() {
+		return getLong("db.pool.idle.timeout", 600000);
+	}
+
+	/**
+	 * Gets the maximum lifetime of a pooled connection.
+	 *
+	 * @return The maximum lifetime in milliseconds.
+	 */
+	public long getDbPoolMaxLifetime() {
+		return getLong("db.pool.max.lifetime", 1800000);
+	}
+
+	/**
+	 * Gets the time a caller waits for a pooled connection before giving up.
+	 *
+	 * @return The acquire timeout in milliseconds.
+	 */
+	public long getDbPoolAcquireTimeout() {
+		return getLong("db.pool.acquire.timeout", 30000);
+	}
+
+	/**
+	 * Gets the timeout used when validating a pooled connection.
+	 *
+	 * @return The validation timeout in seconds.
+	 */
+	public int getDbPoolValidationTimeout() {
+		return getInt("db.pool.validation.timeout", 5);
+	}
+
+	/**
+	 * Gets the number of prepared statements cached per connection.
+	 *
+	 * @return The statement cache size, {@code 0} to disable caching.
+	 */
+	public int getDbStatementCacheSize() {
+		return getInt("db.statement.cache.size", 64);
+	}
+
+	/**
+	 * Gets the number of rows sent to the database in a single JDBC batch.
+	 *
+	 * @return The batch size.
+	 */
+	public int getDbBatchSize() {
+		return getInt("db.batch.size", 1000);
+	}
+
+	/**
+	 * Gets the number of rows fetched per round trip by streaming queries.
+	 *
+	 * @return The fetch size.
+	 */
+	public int getDbFetchSize() {
+		return getInt("db.fetch.size", 1000);
+	}
+
+	/**
+	 * Gets the time after which an unclosed query result is reported as a possible leak.
+	 *
+	 * @return The leak detection threshold in milliseconds, {@code 0} to disable detection.
+	 */
+	public long getDbLeakDetectionThreshold() {
+		return getLong("db.leak.detection.threshold", 0);
+	}
+
+	/**
+	 * Gets the number of bytes a {@link ResultBuffer} keeps in heap before spilling to a temporary file.
+	 *
+	 * @return The memory limit in bytes.
+	 */
+	public long getDbBufferMemoryLimit() {
+		return getLong("db.buffer.memory.limit", 64L * 1024 * 1024);
+	}
+
+	/**
+	 * Gets the maximum number of query results a {@link io.github.kdesp73.databridge.connections.CachingDatabaseConnection} keeps.
+	 *
+	 * @return The number of cached results; {@code 0} disables caching.
+	 */
+	public int getDbCacheSize() {
+		return getInt("db.cache.size", 1000);
+	}
+
+	/**
+	 * Gets the time a cached query result stays valid.
+	 *
+	 * @return The time to live in milliseconds; {@code 0} keeps results until they are evicted or invalidated.
+	 */
+	public long getDbCacheTtl() {
+		return getLong("db.cache.ttl", 60000);
+	}
+
+	/**
+	 * Gets whether identical SELECT queries running at the same time through a
+	 * {@link io.github.kdesp73.databridge.connections.CachingDatabaseConnection} share a single execution.
+	 *
+	 * @return {@code true} if concurrent identical queries are coalesced.
+	 */
+	public boolean getDbCacheCoalesce() {
+		return getBoolean("db.cache.coalesce", true);
+	}
 }
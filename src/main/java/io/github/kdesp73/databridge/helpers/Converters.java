@@ -0,0 +1,170 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code Converters} class is the registry of {@link ColumnReader}s used by {@link Adapter}
+ * to read columns into fields of non-primitive types.
+ * <p>
+ * Common types are registered by default: boxed numbers and booleans through their typed getters
+ * ({@code getLong} for a {@link Long} field, so a {@link BigDecimal} column still fits),
+ * {@link String}, {@link BigDecimal}, {@link BigInteger}, {@code byte[]}, {@link UUID}, enums
+ * (by name) and the {@code java.time} types through {@code getTimestamp}, {@code getDate} and
+ * {@code getTime}, except {@link OffsetDateTime}, which is read with
+ * {@link ResultSet#getObject(int, Class)} to keep its offset. Other types are read with {@link ResultSet#getObject(int)}, falling back to
+ * {@link ResultSet#getObject(int, Class)} when the value does not fit the field.
+ * </p>
+ * <p>
+ * Primitive fields do not go through the registry: they are always read with the matching
+ * primitive getter ({@code getInt}, {@code getLong}, ...) and written without boxing.
+ * </p>
+ *
+ * @author KDesp73
+ */
+public final class Converters {
+
+    private static final Map<Class<?>, ColumnReader<?>> READERS = new ConcurrentHashMap<>();
+
+    static {
+        register(String.class, ResultSet::getString);
+        register(Integer.class, (rs, column) -> {
+            int value = rs.getInt(column);
+            return rs.wasNull() ? null : value;
+        });
+        register(Long.class, (rs, column) -> {
+            long value = rs.getLong(column);
+            return rs.wasNull() ? null : value;
+        });
+        register(Double.class, (rs, column) -> {
+            double value = rs.getDouble(column);
+            return rs.wasNull() ? null : value;
+        });
+        register(Float.class, (rs, column) -> {
+            float value = rs.getFloat(column);
+            return rs.wasNull() ? null : value;
+        });
+        register(Short.class, (rs, column) -> {
+            short value = rs.getShort(column);
+            return rs.wasNull() ? null : value;
+        });
+        register(Byte.class, (rs, column) -> {
+            byte value = rs.getByte(column);
+            return rs.wasNull() ? null : value;
+        });
+        register(Boolean.class, (rs, column) -> {
+            boolean value = rs.getBoolean(column);
+            return rs.wasNull() ? null : value;
+        });
+        register(BigDecimal.class, ResultSet::getBigDecimal);
+        register(BigInteger.class, (rs, column) -> {
+            BigDecimal value = rs.getBigDecimal(column);
+            return value == null ? null : value.toBigInteger();
+        });
+        register(byte[].class, ResultSet::getBytes);
+        register(UUID.class, (rs, column) -> {
+            Object value = rs.getObject(column);
+            return value == null || value instanceof UUID ? (UUID) value : UUID.fromString(value.toString());
+        });
+        register(Instant.class, (rs, column) -> {
+            Timestamp value = rs.getTimestamp(column);
+            return value == null ? null : value.toInstant();
+        });
+        register(LocalDateTime.class, (rs, column) -> {
+            Timestamp value = rs.getTimestamp(column);
+            return value == null ? null : value.toLocalDateTime();
+        });
+        register(OffsetDateTime.class, (rs, column) -> {
+            try {
+                return rs.getObject(column, OffsetDateTime.class);
+            } catch (SQLFeatureNotSupportedException | AbstractMethodError e) {
+                // Pre-JDBC 4.2 drivers: the offset is lost, the instant is kept
+                Timestamp value = rs.getTimestamp(column);
+                return value == null ? null : value.toInstant().atOffset(ZoneOffset.UTC);
+            }
+        });
+        register(LocalDate.class, (rs, column) -> {
+            Date value = rs.getDate(column);
+            return value == null ? null : value.toLocalDate();
+        });
+        register(LocalTime.class, (rs, column) -> {
+            Time value = rs.getTime(column);
+            return value == null ? null : value.toLocalTime();
+        });
+        register(java.util.Date.class, ResultSet::getTimestamp);
+    }
+
+    /**
+     * Private constructor to avoid external instantiation
+     */
+    private Converters() {}
+
+    /**
+     * Registers the reader used for fields of the given type, replacing any previous one.
+     * Mappers compiled before the call are discarded so the new reader takes effect.
+     *
+     * @param <T> the type of the fields.
+     * @param type the type of the fields.
+     * @param reader the reader producing values of that type.
+     */
+    public static <T> void register(Class<T> type, ColumnReader<? extends T> reader) {
+        if (type.isPrimitive()) {
+            throw new IllegalArgumentException("Primitive fields are always read with their typed getter: " + type);
+        }
+        READERS.put(type, reader);
+        CompiledMapper.clearCache();
+    }
+
+    /**
+     * Removes the reader registered for the given type, restoring the generic behavior.
+     *
+     * @param type the type of the fields.
+     */
+    public static void unregister(Class<?> type) {
+        READERS.remove(type);
+        CompiledMapper.clearCache();
+    }
+
+    /**
+     * Returns the reader for fields of the given type.
+     *
+     * @param <T> the type of the fields.
+     * @param type the type of the fields.
+     * @return the registered reader, or a generic one based on {@link ResultSet#getObject(int)}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ColumnReader<T> reader(Class<T> type) {
+        ColumnReader<?> reader = READERS.get(type);
+        if (reader != null) {
+            return (ColumnReader<T>) reader;
+        }
+        if (type.isEnum()) {
+            return (rs, column) -> {
+                String value = rs.getString(column);
+                return value == null ? null : (T) Enum.valueOf(type.asSubclass(Enum.class), value);
+            };
+        }
+        return (rs, column) -> {
+            Object value = rs.getObject(column);
+            if (value == null || type.isInstance(value)) {
+                return (T) value;
+            }
+            return rs.getObject(column, type);
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The {@code GenerateMapper} annotation asks the {@code databridge-processor} annotation processor
+ * to generate a {@link RowMapperFactory} for the annotated class at compile time.
+ * <p>
+ * {@link Adapter} uses generated factories ahead of its reflection-based mapping, so annotated
+ * classes are mapped without any reflection. The usual naming rules apply: records use their
+ * canonical constructor, classes a {@link RowConstructor} constructor or their no-arg constructor
+ * with non-private fields (or public setters), and {@link Column} overrides column names.
+ * Without the processor on the annotation processor path the annotation has no effect.
+ * </p>
+ *
+ * @author KDesp73
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateMapper {
+}
@@ -0,0 +1,217 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import io.github.kdesp73.databridge.connections.DatabaseConnection;
+import io.github.kdesp73.databridge.connections.QueryResult;
+import io.github.kdesp73.databridge.connections.StatementBinder;
+
+/**
+ * The {@code PreparedQuery} class is an immutable SQL template with {@code ?} placeholders and
+ * the ordered values bound to them, as produced by {@link QueryBuilder#prepare()}.
+ * <p>
+ * The SQL text of a template never changes, so the connections' statement caches prepare it once
+ * and reuse the statement on every execution. A template can be kept, e.g. in a static field, and
+ * rebound with new values through {@link #bind(Object...)}, which shares the SQL text and only
+ * replaces the values. Values never become part of the SQL, so they need no escaping.
+ * </p>
+ * <pre>
+ * static final PreparedQuery BY_AGE = new QueryBuilder().select().from("people").where("age &gt; ?", 0).prepare();
+ *
+ * ResultSet adults = BY_AGE.bind(18).executeQuery(conn);
+ * </pre>
+ *
+ * @author KDesp73
+ */
+public final class PreparedQuery implements StatementBinder {
+
+    private final String sql;
+    private final int parameterCount;
+    private final List<Object> parameters;
+
+    /**
+     * Creates a template with the given values. A template may be created without values and bound later.
+     *
+     * @param sql the SQL text with {@code ?} placeholders.
+     * @param parameters the values of the placeholders, in order, or none.
+     * @throws IllegalArgumentException if values are given but their number does not match the placeholders.
+     */
+    public PreparedQuery(String sql, Object... parameters) {
+        this(sql, placeholders(sql), parameters);
+    }
+
+    private PreparedQuery(String sql, int parameterCount, Object[] parameters) {
+        this.sql = Objects.requireNonNull(sql);
+        this.parameterCount = parameterCount;
+        if (parameters.length != 0 && parameters.length != parameterCount) {
+            throw new IllegalArgumentException("Expected " + parameterCount + " parameters, got " + parameters.length + ": " + sql);
+        }
+        this.parameters = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(parameters)));
+    }
+
+    /**
+     * Returns a template with the same SQL text and new values.
+     *
+     * @param values the values of the placeholders, in order.
+     * @return the rebound template.
+     * @throws IllegalArgumentException if the number of values does not match the placeholders.
+     */
+    public PreparedQuery bind(Object... values) {
+        if (values.length != parameterCount) {
+            throw new IllegalArgumentException("Expected " + parameterCount + " parameters, got " + values.length + ": " + sql);
+        }
+        return new PreparedQuery(sql, parameterCount, values);
+    }
+
+    /**
+     * Returns the SQL text.
+     *
+     * @return the SQL with {@code ?} placeholders.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the bound values.
+     *
+     * @return an unmodifiable list of the values, in placeholder order, empty if the template is unbound.
+     */
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the number of placeholders.
+     *
+     * @return the number of {@code ?} placeholders outside of quoted literals.
+     */
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * Sets the bound values on a statement prepared from {@link #getSql()}.
+     *
+     * @param statement the statement to bind.
+     * @throws SQLException if a parameter cannot be set.
+     * @throws IllegalStateException if the template has placeholders but no values.
+     */
+    @Override
+    public void bind(PreparedStatement statement) throws SQLException {
+        if (parameters.size() != parameterCount) {
+            throw new IllegalStateException("Query has unbound parameters: " + sql);
+        }
+        for (int i = 0; i < parameterCount; i++) {
+            StatementBinder.bind(statement, i + 1, parameters.get(i));
+        }
+    }
+
+    /**
+     * Executes the query as a SELECT.
+     *
+     * @param connection the connection to run the query on.
+     * @return the result set of the query.
+     * @throws SQLException if the query fails.
+     */
+    public ResultSet executeQuery(DatabaseConnection connection) throws SQLException {
+        return connection.executeQuery(sql, this);
+    }
+
+    /**
+     * Executes the query as a SELECT, returning a result that releases its statement when closed.
+     *
+     * @param connection the connection to run the query on.
+     * @return the result of the query.
+     * @throws SQLException if the query fails.
+     */
+    public QueryResult query(DatabaseConnection connection) throws SQLException {
+        return connection.query(sql, this);
+    }
+
+    /**
+     * Executes the query as an INSERT, UPDATE or DELETE.
+     *
+     * @param connection the connection to run the query on.
+     * @return the number of rows affected.
+     * @throws SQLException if the query fails.
+     */
+    public int executeUpdate(DatabaseConnection connection) throws SQLException {
+        return connection.executeUpdate(sql, this);
+    }
+
+    /**
+     * Two templates are equal if they have the same SQL text and values.
+     *
+     * @param o the object to compare with.
+     * @return {@code true} if equal.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PreparedQuery other && sql.equals(other.sql) && parameters.equals(other.parameters);
+    }
+
+    /**
+     * Returns a hash code of the SQL text and values.
+     *
+     * @return the hash code.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * sql.hashCode() + parameters.hashCode();
+    }
+
+    /**
+     * Returns the SQL text.
+     *
+     * @return the SQL with {@code ?} placeholders.
+     */
+    @Override
+    public String toString() {
+        return sql;
+    }
+
+    /**
+     * Counts the {@code ?} placeholders of an SQL text, skipping quoted literals and identifiers.
+     *
+     * @param sql the SQL text.
+     * @return the number of placeholders.
+     */
+    static int placeholders(String sql) {
+        return positions(sql).length;
+    }
+
+    /**
+     * Finds the {@code ?} placeholders of an SQL text, skipping quoted literals and identifiers.
+     *
+     * @param sql the SQL text.
+     * @return the indexes of the placeholders in the text.
+     */
+    static int[] positions(String sql) {
+        int[] positions = new int[8];
+        int count = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                if (count == positions.length) {
+                    positions = Arrays.copyOf(positions, count * 2);
+                }
+                positions[count++] = i;
+            }
+        }
+        return Arrays.copyOf(positions, count);
+    }
+}
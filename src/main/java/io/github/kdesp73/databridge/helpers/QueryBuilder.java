@@ -2,13 +2,39 @@ package io.github.kdesp73.databridge.helpers;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
 import java.util.List;
+import io.github.kdesp73.databridge.connections.AvailableConnections;
 
 /**
  * A helper class to build SQL queries in a fluent interface style.
  * Provides methods for constructing SQL SELECT, INSERT, UPDATE, and DELETE queries.
  * The builder allows appending different parts of the query step-by-step.
  * <p>
+ * Values passed to {@code values}, {@code set} and {@code where} are kept apart from the SQL text.
+ * {@link #build()} inlines them as escaped literals, while {@link #prepare()} returns a
+ * {@link PreparedQuery} with {@code ?} placeholders and the values bound in order, whose SQL text
+ * is the same for every query of the same shape.
+ * </p>
+ * <p>
+ * {@link #rows(Iterable)} inserts many rows with multi-row {@code VALUES}, which
+ * {@link #prepareAll()} splits into statements that respect the parameter limit of the
+ * database given to {@link #QueryBuilder(AvailableConnections)}.
+ * </p>
+ * <p>
+ * {@link #upsert(String)} inserts a row or updates the existing row with the same key in one
+ * statement, picked from that database: {@code INSERT ... ON CONFLICT DO UPDATE} for PostgreSQL and
+ * SQLite and {@code MERGE} for Oracle.
+ * </p>
+ * <p>
+ * {@link #in(String, Collection)} matches a column against any number of values with a statement
+ * whose SQL text does not grow with them, or grows in a few fixed steps, so it stays in the
+ * statement caches: one array parameter on PostgreSQL, one JSON parameter on SQLite and padded
+ * lists of at most 1000 placeholders elsewhere.
+ * </p>
+ * <p>
  * Example usage:
  * </p>
  * <pre>
@@ -17,23 +43,66 @@ import java.util.List;
  *                            .from("users")
  *                            .where("id = 1")
  *                            .build();
+ *
+ * PreparedQuery update = new QueryBuilder().update("users")
+ *                                          .set("name", name)
+ *                                          .where("id = ?", id)
+ *                                          .prepare();
  * </pre>
  *
  * @author KDesp73
  */
 public class QueryBuilder {
 
+    /**
+     * The parameter limit used when no database is given, the lowest of the supported ones.
+     */
+    static final int DEFAULT_MAX_PARAMETERS = 999;
+
+    /**
+     * The most target columns of one Oracle {@code INSERT ALL}, counted over all of its rows (ORA-24335).
+     */
+    static final int MAX_INSERT_ALL_COLUMNS = 999;
+
+    /**
+     * The most values in one {@code IN} list, the limit of Oracle.
+     */
+    static final int MAX_IN_LIST = 1000;
+
+    private final AvailableConnections dialect;
     private StringBuilder query;
+    private String table;
     private List<String> columns;
-    private List<String> values;
+    private List<String> keys;
+    private boolean upsert;
+    private Object[] upsertValues;
+    private List<Object[]> rows;
+    private List<Object> values;
+    private List<Integer> placeholders;
+    private boolean hasSet;
+    private boolean hasWhere;
+    private int selectStart = -1;
 
     /**
      * Initializes a new empty query builder.
      */
     public QueryBuilder() {
+        this(null);
+    }
+
+    /**
+     * Initializes a new empty query builder for the given database, whose syntax and limits
+     * are used where they differ.
+     *
+     * @param dialect The database the queries run on, or {@code null} for none in particular.
+     */
+    public QueryBuilder(AvailableConnections dialect) {
+        this.dialect = dialect;
         this.query = new StringBuilder();
         this.columns = new ArrayList<>();
+        this.keys = new ArrayList<>();
         this.values = new ArrayList<>();
+        this.placeholders = new ArrayList<>();
     }
 
     /**
@@ -44,6 +113,7 @@ public class QueryBuilder {
      */
     public QueryBuilder select(String... columns) {
         query.append("SELECT ");
+        selectStart = query.length();
         if (columns.length == 0) {
             query.append("*");
         } else {
@@ -70,10 +140,135 @@ public class QueryBuilder {
      * @return QueryBuilder instance with the updated query.
      */
     public QueryBuilder where(String condition) {
+        hasWhere = true;
         query.append(" WHERE ").append(condition);
         return this;
     }
 
+    /**
+     * Appends the WHERE operator to the query with a condition containing {@code ?} placeholders.
+     *
+     * @param condition SQL condition with one {@code ?} per value, outside of quoted literals.
+     * @param params Values of the placeholders, in order.
+     * @return QueryBuilder instance with the updated query.
+     * @throws IllegalArgumentException If the number of values does not match the placeholders.
+     */
+    public QueryBuilder where(String condition, Object... params) {
+        int[] positions = PreparedQuery.positions(condition);
+        if (positions.length != params.length) {
+            throw new IllegalArgumentException("Expected " + positions.length + " parameters, got " + params.length + ": " + condition);
+        }
+        hasWhere = true;
+        query.append(" WHERE ");
+        int start = query.length();
+        query.append(condition);
+        for (int i = 0; i < positions.length; i++) {
+            placeholders.add(start + positions[i]);
+            values.add(params[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Appends a condition matching the column against any of the given values, after WHERE or,
+     * if the query has a condition already, AND. {@code null} values are ignored, since they match
+     * nothing, and no values give a condition that is always false.
+     * <p>
+     * The values are bound in the way of the database:
+     * </p>
+     * <ul>
+     *     <li>PostgreSQL: {@code column = ANY(?)} with the values bound as one array parameter.</li>
+     *     <li>SQLite: {@code column IN (SELECT value FROM json_each(?))} with the values bound as one JSON array.</li>
+     *     <li>Oracle, MS Access and no database: {@code IN} lists of at most 1000 placeholders joined
+     *     with OR, the last one padded with its last value to a power of two (or 1000) so that few
+     *     distinct statements are prepared.</li>
+     * </ul>
+     *
+     * @param column Column to match.
+     * @param values Values to match the column against.
+     * @return QueryBuilder instance with the updated query.
+     */
+    public QueryBuilder in(String column, Collection<?> values) {
+        Object[] present = values.stream().filter(Objects::nonNull).toArray();
+        query.append(hasWhere ? " AND " : " WHERE ");
+        hasWhere = true;
+        if (present.length == 0) {
+            query.append("1 = 0");
+            return this;
+        }
+
+        if (dialect == AvailableConnections.POSTGRES) {
+            query.append(column).append(" = ANY(");
+            bind(present);
+            query.append(")");
+        } else if (dialect == AvailableConnections.SQLITE) {
+            query.append(column).append(" IN (SELECT value FROM json_each(");
+            bind(json(present));
+            query.append("))");
+        } else {
+            int chunks = (present.length + MAX_IN_LIST - 1) / MAX_IN_LIST;
+            if (chunks > 1) {
+                query.append("(");
+            }
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int from = chunk * MAX_IN_LIST;
+                int count = Math.min(MAX_IN_LIST, present.length - from);
+                query.append(chunk == 0 ? "" : " OR ").append(column).append(" IN (");
+                for (int i = 0; i < bucket(count); i++) {
+                    if (i > 0) {
+                        query.append(", ");
+                    }
+                    bind(present[from + Math.min(i, count - 1)]);
+                }
+                query.append(")");
+            }
+            if (chunks > 1) {
+                query.append(")");
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends the ORDER BY operator to the query.
+     *
+     * @param columns Columns to sort by, each optionally followed by {@code ASC} or {@code DESC}.
+     * @return QueryBuilder instance with the updated query.
+     */
+    public QueryBuilder orderBy(String... columns) {
+        query.append(" ORDER BY ").append(String.join(", ", columns));
+        return this;
+    }
+
+    /**
+     * Limits the number of rows returned by a SELECT query, in the syntax of the database:
+     * {@code LIMIT n} for PostgreSQL and SQLite (and when no database is given),
+     * {@code FETCH FIRST n ROWS ONLY} for Oracle and {@code SELECT TOP n} for MS Access.
+     *
+     * @param rows Maximum number of rows.
+     * @return QueryBuilder instance with the updated query.
+     * @throws IllegalArgumentException If the number of rows is negative.
+     * @throws IllegalStateException If the query has no SELECT to put {@code TOP} after on MS Access.
+     */
+    public QueryBuilder limit(int rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Limit must not be negative: " + rows);
+        }
+        if (dialect == AvailableConnections.ORACLE) {
+            query.append(" FETCH FIRST ").append(rows).append(" ROWS ONLY");
+        } else if (dialect == AvailableConnections.MSACCESS) {
+            if (selectStart < 0) {
+                throw new IllegalStateException("Call select before limit.");
+            }
+            String top = "TOP " + rows + " ";
+            query.insert(selectStart, top);
+            placeholders.replaceAll(position -> position >= selectStart ? position + top.length() : position);
+        } else {
+            query.append(" LIMIT ").append(rows);
+        }
+        return this;
+    }
+
     /**
      * Appends the INSERT INTO operator to the query.
      *
@@ -81,6 +276,7 @@ public class QueryBuilder {
      * @return QueryBuilder instance with the updated query.
      */
     public QueryBuilder insertInto(String table) {
+        this.table = table;
         query.append("INSERT INTO ").append(table);
         return this;
     }
@@ -94,7 +290,9 @@ public class QueryBuilder {
     public QueryBuilder columns(String... columns) {
         this.columns.clear();
         this.columns.addAll(Arrays.asList(columns));
-        query.append(" (").append(String.join(", ", columns)).append(")");
+        if (!upsert) {
+            query.append(" (").append(String.join(", ", columns)).append(")");
+        }
         return this;
     }
 
@@ -105,17 +303,92 @@ public class QueryBuilder {
      * @return QueryBuilder instance with the updated query.
      */
     public QueryBuilder values(Object... values) {
+        if (upsert) {
+            if (values.length != columns.size()) {
+                throw new IllegalArgumentException("Expected " + columns.size() + " values, got " + values.length);
+            }
+            upsertValues = values.clone();
+            return this;
+        }
+        query.append(" VALUES (");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                query.append(", ");
+            }
+            bind(values[i]);
+        }
+        query.append(")");
+        return this;
+    }
+
+    /**
+     * Inserts several rows with a single multi-row {@code VALUES} clause, or {@code INSERT ALL} on Oracle.
+     * Must follow {@link #insertInto(String)} and {@link #columns(String...)}.
+     * <p>
+     * {@link #build()} and {@link #prepare()} render every row into one statement, while
+     * {@link #prepareAll()} splits them into as few statements as the parameter limit allows.
+     * </p>
+     *
+     * @param rows Rows of values, one value per column.
+     * @return QueryBuilder instance with the updated query.
+     * @throws IllegalStateException If the table or columns are missing.
+     * @throws IllegalArgumentException If a row does not have one value per column.
+     */
+    public QueryBuilder rows(Iterable<Object[]> rows) {
+        if (table == null || columns.isEmpty() || upsert) {
+            throw new IllegalStateException("Call insertInto and columns before rows.");
+        }
+        List<Object[]> copy = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (row.length != columns.size()) {
+                throw new IllegalArgumentException("Expected " + columns.size() + " values, got " + row.length);
+            }
+            copy.add(row);
+        }
+        if (copy.isEmpty()) {
+            throw new IllegalArgumentException("No rows to insert.");
+        }
+
+        this.rows = copy;
+        this.query.setLength(0);
         this.values.clear();
-        for (Object value : values) {
-            if (value == null) {
-                this.values.add("NULL");
-            } else if (value instanceof String) {
-                this.values.add("'" + value + "'");
-            } else {
-                this.values.add(value.toString());
+        this.placeholders.clear();
+        query.append(insertRows(copy.size()));
+        int[] positions = PreparedQuery.positions(query.toString());
+        int next = 0;
+        for (Object[] row : copy) {
+            for (Object value : row) {
+                placeholders.add(positions[next++]);
+                values.add(value);
             }
         }
-        query.append(" VALUES (").append(String.join(", ", this.values)).append(")");
+        return this;
+    }
+
+    /**
+     * Starts an upsert: an insert that updates the existing row instead when a row with the same
+     * {@link #keys(String...) keys} exists. Follow with {@link #keys(String...)}, {@link #columns(String...)}
+     * and optionally {@link #values(Object...)}; without values, {@link #prepare()} returns an unbound
+     * template for batches. Requires a database given to {@link #QueryBuilder(AvailableConnections)}.
+     *
+     * @param table Table to write to.
+     * @return QueryBuilder instance with the updated query.
+     */
+    public QueryBuilder upsert(String table) {
+        this.upsert = true;
+        this.table = table;
+        return this;
+    }
+
+    /**
+     * Sets the columns identifying a row of an upsert, covered by a primary key or unique constraint.
+     *
+     * @param keys Key columns, each one also passed to {@link #columns(String...)}.
+     * @return QueryBuilder instance with the updated query.
+     */
+    public QueryBuilder keys(String... keys) {
+        this.keys.clear();
+        this.keys.addAll(Arrays.asList(keys));
         return this;
     }
 
@@ -138,11 +411,9 @@ public class QueryBuilder {
      * @return QueryBuilder instance with the updated query.
      */
     public QueryBuilder set(String column, Object value) {
-        if (value instanceof String) {
-            query.append(" SET ").append(column).append(" = '").append(value).append("'");
-        } else {
-            query.append(" SET ").append(column).append(" = ").append(value);
-        }
+        query.append(hasSet ? ", " : " SET ").append(column).append(" = ");
+        hasSet = true;
+        bind(value);
         return this;
     }
 
@@ -163,8 +434,17 @@ public class QueryBuilder {
      */
     public void reset() {
         this.query.setLength(0);
+        this.table = null;
         this.columns.clear();
+        this.keys.clear();
+        this.upsert = false;
+        this.upsertValues = null;
+        this.rows = null;
         this.values.clear();
+        this.placeholders.clear();
+        this.hasSet = false;
+        this.hasWhere = false;
+        this.selectStart = -1;
     }
 
     /**
@@ -174,12 +454,248 @@ public class QueryBuilder {
      * @throws IllegalStateException If the query has not been fully constructed.
      */
     public String build() {
+        if (upsert) {
+            renderUpsert();
+        }
         if (query.length() == 0) {
             throw new IllegalStateException("Incomplete query construction.");
         }
 
-        String queryString = query.toString();
+        StringBuilder rendered = new StringBuilder(query.length() + 16 * values.size());
+        int from = 0;
+        for (int i = 0; i < placeholders.size(); i++) {
+            int at = placeholders.get(i);
+            rendered.append(query, from, at).append(literal(values.get(i)));
+            from = at + 1;
+        }
+        rendered.append(query, from, query.length());
+
+        String queryString = rendered.toString();
         reset();  // Reset the builder after building the query.
         return queryString;
     }
+
+    /**
+     * Builds the query as a {@link PreparedQuery}: the SQL text with a {@code ?} placeholder for every
+     * value and the values in order. Queries of the same shape always produce the same SQL text.
+     *
+     * @return The prepared query.
+     * @throws IllegalStateException If the query has not been fully constructed.
+     * @throws IllegalArgumentException If a condition passed to {@link #where(String)} contains placeholders.
+     */
+    public PreparedQuery prepare() {
+        if (upsert) {
+            renderUpsert();
+        }
+        if (query.length() == 0) {
+            throw new IllegalStateException("Incomplete query construction.");
+        }
+
+        PreparedQuery prepared = new PreparedQuery(query.toString(), values.toArray());
+        reset();  // Reset the builder after building the query.
+        return prepared;
+    }
+
+    /**
+     * Builds the query as one or more {@link PreparedQuery}s. Rows given to {@link #rows(Iterable)} are
+     * split into statements of at most {@link AvailableConnections#getMaxParameters()} parameters
+     * (999 without a database), and on Oracle of at most 999 columns over all rows, the limit of
+     * {@code INSERT ALL}; all but the last statement share their SQL text. Other queries
+     * give a single statement.
+     *
+     * @return The prepared queries, to be executed in order.
+     * @throws IllegalStateException If the query has not been fully constructed.
+     */
+    public List<PreparedQuery> prepareAll() {
+        if (rows == null) {
+            return List.of(prepare());
+        }
+
+        int limit = dialect != null ? dialect.getMaxParameters() : DEFAULT_MAX_PARAMETERS;
+        int perStatement = Math.max(1, limit / columns.size());
+        if (dialect == AvailableConnections.ORACLE) {
+            perStatement = Math.min(perStatement, Math.max(1, MAX_INSERT_ALL_COLUMNS / columns.size()));
+        }
+        List<PreparedQuery> statements = new ArrayList<>((rows.size() + perStatement - 1) / perStatement);
+        String full = null;
+        for (int from = 0; from < rows.size(); from += perStatement) {
+            int count = Math.min(perStatement, rows.size() - from);
+            String sql;
+            if (count == perStatement) {
+                if (full == null) {
+                    full = insertRows(count);
+                }
+                sql = full;
+            } else {
+                sql = insertRows(count);
+            }
+            Object[] params = new Object[count * columns.size()];
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(rows.get(from + i), 0, params, i * columns.size(), columns.size());
+            }
+            statements.add(new PreparedQuery(sql, params));
+        }
+        reset();
+        return statements;
+    }
+
+    /**
+     * Replaces the query with the upsert statement of the database, binding the values if given.
+     *
+     * @throws IllegalStateException If there is no database, table, key or column.
+     * @throws IllegalArgumentException If a key is not one of the columns.
+     * @throws UnsupportedOperationException If the database has no upsert statement.
+     */
+    private void renderUpsert() {
+        if (dialect == null) {
+            throw new IllegalStateException("An upsert depends on the database: use new QueryBuilder(AvailableConnections).");
+        }
+        if (table == null || keys.isEmpty() || columns.isEmpty()) {
+            throw new IllegalStateException("An upsert needs a table, keys and columns.");
+        }
+        List<String> updates = new ArrayList<>();
+        for (String column : columns) {
+            if (keys.stream().noneMatch(column::equalsIgnoreCase)) {
+                updates.add(column);
+            }
+        }
+        for (String key : keys) {
+            if (columns.stream().noneMatch(key::equalsIgnoreCase)) {
+                throw new IllegalArgumentException("Key " + key + " is not one of the columns " + columns);
+            }
+        }
+
+        String list = String.join(", ", columns);
+        String sql = switch (dialect) {
+            case POSTGRES, SQLITE -> "INSERT INTO " + table + " (" + list + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")"
+                + " ON CONFLICT (" + String.join(", ", keys) + ")"
+                + (updates.isEmpty() ? " DO NOTHING" : " DO UPDATE SET " + String.join(", ", updates.stream().map(c -> c + " = EXCLUDED." + c).toList()));
+            case ORACLE -> "MERGE INTO " + table + " t USING (SELECT "
+                + String.join(", ", columns.stream().map(c -> "? AS " + c).toList()) + " FROM dual) s ON ("
+                + String.join(" AND ", keys.stream().map(k -> "t." + k + " = s." + k).toList()) + ")"
+                + (updates.isEmpty() ? "" : " WHEN MATCHED THEN UPDATE SET " + String.join(", ", updates.stream().map(c -> "t." + c + " = s." + c).toList()))
+                + " WHEN NOT MATCHED THEN INSERT (" + list + ") VALUES ("
+                + String.join(", ", columns.stream().map(c -> "s." + c).toList()) + ")";
+            case MSACCESS -> throw new UnsupportedOperationException("MS Access does not support upserts");
+        };
+
+        query.setLength(0);
+        values.clear();
+        placeholders.clear();
+        query.append(sql);
+        if (upsertValues != null) {
+            int[] positions = PreparedQuery.positions(sql);
+            for (int i = 0; i < positions.length; i++) {
+                placeholders.add(positions[i]);
+                values.add(upsertValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Renders an insert of the given number of rows with a placeholder for every value.
+     *
+     * @param count The number of rows.
+     * @return The SQL text.
+     */
+    private String insertRows(int count) {
+        String target = table + " (" + String.join(", ", columns) + ")";
+        String tuple = "(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        StringBuilder sql = new StringBuilder(count * (tuple.length() + 2) + target.length() + 32);
+        if (dialect == AvailableConnections.ORACLE) {
+            sql.append("INSERT ALL");
+            for (int i = 0; i < count; i++) {
+                sql.append(" INTO ").append(target).append(" VALUES ").append(tuple);
+            }
+            sql.append(" SELECT 1 FROM dual");
+        } else {
+            sql.append("INSERT INTO ").append(target).append(" VALUES ");
+            for (int i = 0; i < count; i++) {
+                sql.append(i == 0 ? "" : ", ").append(tuple);
+            }
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Returns the number of placeholders an {@code IN} list of the given number of values is padded
+     * to: the next power of two, at most {@link #MAX_IN_LIST}.
+     *
+     * @param count The number of values, from 1 to {@link #MAX_IN_LIST}.
+     * @return The number of placeholders.
+     */
+    static int bucket(int count) {
+        return count <= 1 ? 1 : Math.min(MAX_IN_LIST, Integer.highestOneBit(count - 1) << 1);
+    }
+
+    /**
+     * Renders values as a JSON array: numbers and booleans as they are, anything else as a string.
+     *
+     * @param values The values, none of them {@code null}.
+     * @return The JSON text.
+     */
+    static String json(Object[] values) {
+        StringBuilder json = new StringBuilder(values.length * 8).append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            Object value = values[i];
+            if (value instanceof Number || value instanceof Boolean) {
+                json.append(value);
+                continue;
+            }
+            json.append('"');
+            String text = value.toString();
+            for (int j = 0; j < text.length(); j++) {
+                char c = text.charAt(j);
+                switch (c) {
+                    case '"' -> json.append("\\\"");
+                    case '\\' -> json.append("\\\\");
+                    case '\n' -> json.append("\\n");
+                    case '\r' -> json.append("\\r");
+                    case '\t' -> json.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            json.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            json.append(c);
+                        }
+                    }
+                }
+            }
+            json.append('"');
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Appends a placeholder for a value.
+     *
+     * @param value The value of the placeholder.
+     */
+    private void bind(Object value) {
+        placeholders.add(query.length());
+        values.add(value);
+        query.append('?');
+    }
+
+    /**
+     * Renders a value as an SQL literal. Strings are quoted, with embedded quotes doubled, and
+     * object arrays become PostgreSQL {@code ARRAY[...]} constructors.
+     *
+     * @param value The value to render.
+     * @return The SQL literal.
+     */
+    static String literal(Object value) {
+        if (value == null) {
+            return "NULL";
+        } else if (value instanceof Object[] elements) {
+            return "ARRAY[" + String.join(", ", Arrays.stream(elements).map(QueryBuilder::literal).toList()) + "]";
+        } else if (value instanceof String || value instanceof Character) {
+            return "'" + value.toString().replace("'", "''") + "'";
+        }
+        return value.toString();
+    }
 }
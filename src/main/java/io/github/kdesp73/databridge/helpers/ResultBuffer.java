@@ -0,0 +1,599 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * The {@code ResultBuffer} class is a read-only, random access copy of a {@link ResultSet} that
+ * can be larger than the heap.
+ * <p>
+ * Rows are stored in a compact binary encoding: one tag byte per value followed by its fixed or
+ * length-prefixed payload. The encoded rows are kept in a heap array until they reach the memory
+ * limit ({@code db.buffer.memory.limit}, 64 MiB by default), after which the buffer moves to a
+ * temporary file that is memory-mapped for reading. Only the offset of every row, 8 bytes per row,
+ * stays on the heap, so the operating system pages the rows in and out as they are accessed.
+ * </p>
+ * <p>
+ * Values are returned as {@link ResultSet#getObject(int)} returned them, except that {@code Byte}
+ * and {@code Short} are widened to {@code Integer} and types without an encoding of their own are
+ * stored as their {@code toString()}. Closing the buffer deletes the temporary file.
+ * </p>
+ * <pre>
+ * try (ResultBuffer rows = ResultBuffer.from(conn.executeQuery("SELECT * FROM events"))) {
+ *     Object[] last = rows.get(rows.size() - 1);
+ *     for (Object[] row : rows) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ *
+ * @author KDesp73
+ */
+public final class ResultBuffer implements Iterable<Object[]>, AutoCloseable {
+
+    /** The size of a single mapping of the temporary file. Rows never cross a chunk boundary. */
+    static final int CHUNK_SIZE = 1 << 28;
+
+    private static final int MAX_HEAP_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final byte NULL = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte FLOAT = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte STRING = 6;
+    private static final byte BYTES = 7;
+    private static final byte DECIMAL = 8;
+    private static final byte BIG_INTEGER = 9;
+    private static final byte TIMESTAMP = 10;
+    private static final byte DATE = 11;
+    private static final byte TIME = 12;
+
+    private final String[] labels;
+    private final long[] offsets;
+    private final int size;
+    private final long byteSize;
+    private final int chunkSize;
+    private final ByteBuffer[] chunks;
+    private final Path file;
+    private volatile boolean closed;
+
+    private ResultBuffer(String[] labels, long[] offsets, int size, long byteSize, int chunkSize, ByteBuffer[] chunks, Path file) {
+        this.labels = labels;
+        this.offsets = offsets;
+        this.size = size;
+        this.byteSize = byteSize;
+        this.chunkSize = chunkSize;
+        this.chunks = chunks;
+        this.file = file;
+    }
+
+    /**
+     * Reads every remaining row of a result set into a new buffer, spilling to disk past the configured
+     * memory limit. The result set is not closed.
+     *
+     * @param resultSet the result set to read.
+     * @return the buffer.
+     * @throws SQLException if the result cannot be read or the temporary file cannot be written.
+     */
+    public static ResultBuffer from(ResultSet resultSet) throws SQLException {
+        return from(resultSet, Config.getInstance().getDbBufferMemoryLimit());
+    }
+
+    /**
+     * Reads every remaining row of a result set into a new buffer. The result set is not closed.
+     *
+     * @param resultSet the result set to read.
+     * @param memoryLimit the number of bytes kept in heap before spilling to a temporary file.
+     * @return the buffer.
+     * @throws SQLException if the result cannot be read or the temporary file cannot be written.
+     */
+    public static ResultBuffer from(ResultSet resultSet, long memoryLimit) throws SQLException {
+        return from(resultSet, memoryLimit, CHUNK_SIZE);
+    }
+
+    /**
+     * Reads every remaining row of a result set into a new buffer with the given chunk size.
+     *
+     * @param resultSet the result set to read.
+     * @param memoryLimit the number of bytes kept in heap before spilling to a temporary file.
+     * @param chunkSize the size of a single mapping of the temporary file.
+     * @return the buffer.
+     * @throws SQLException if the result cannot be read or the temporary file cannot be written.
+     */
+    static ResultBuffer from(ResultSet resultSet, long memoryLimit, int chunkSize) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int count = metaData.getColumnCount();
+        String[] labels = new String[count];
+        for (int i = 0; i < count; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+        }
+
+        Writer writer = new Writer(memoryLimit, chunkSize);
+        Encoder encoder = new Encoder();
+        long[] offsets = new long[1024];
+        int rows = 0;
+        try {
+            while (resultSet.next()) {
+                encoder.reset();
+                for (int i = 1; i <= count; i++) {
+                    encoder.write(resultSet.getObject(i));
+                }
+                if (rows == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, rows * 2);
+                }
+                offsets[rows++] = writer.append(encoder.bytes, encoder.length);
+            }
+            ByteBuffer[] chunks = writer.finish();
+            return new ResultBuffer(labels, Arrays.copyOf(offsets, rows), rows, writer.end, chunkSize, chunks, writer.file);
+        } catch (IOException e) {
+            writer.abort();
+            throw new SQLException("Failed to buffer result: " + e.getMessage(), e);
+        } catch (SQLException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of columns.
+     *
+     * @return the number of columns.
+     */
+    public int columnCount() {
+        return labels.length;
+    }
+
+    /**
+     * Returns the label of a column.
+     *
+     * @param column the 0-based index of the column.
+     * @return the column label.
+     */
+    public String label(int column) {
+        return labels[column];
+    }
+
+    /**
+     * Resolves the index of a column by its label, ignoring case.
+     *
+     * @param label the column label.
+     * @return the 0-based index of the column.
+     * @throws IllegalArgumentException if there is no column with that label.
+     */
+    public int column(String label) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase(label)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No column labeled " + label);
+    }
+
+    /**
+     * Checks whether the rows were spilled to a temporary file.
+     *
+     * @return {@code true} if the rows are memory-mapped from disk.
+     */
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * Returns the size of the encoded rows.
+     *
+     * @return the number of bytes used by the rows.
+     */
+    public long byteSize() {
+        return byteSize;
+    }
+
+    /**
+     * Decodes a row.
+     *
+     * @param row the 0-based row index.
+     * @return the values of the row, one per column.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     * @throws IllegalStateException if the buffer is closed.
+     */
+    public Object[] get(int row) {
+        Reader reader = reader(row);
+        Object[] values = new Object[labels.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = reader.read();
+        }
+        return values;
+    }
+
+    /**
+     * Decodes a single value, skipping over the preceding columns of the row.
+     *
+     * @param row the 0-based row index.
+     * @param column the 0-based index of the column.
+     * @return the value.
+     * @throws IndexOutOfBoundsException if the row or column does not exist.
+     * @throws IllegalStateException if the buffer is closed.
+     */
+    public Object get(int row, int column) {
+        Objects.checkIndex(column, labels.length);
+        Reader reader = reader(row);
+        for (int i = 0; i < column; i++) {
+            reader.skip();
+        }
+        return reader.read();
+    }
+
+    /**
+     * Returns an iterator decoding the rows in order.
+     *
+     * @return an iterator over the rows.
+     */
+    @Override
+    public Iterator<Object[]> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Object[] next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    /**
+     * Releases the buffer and deletes its temporary file. The mappings are released by the garbage collector.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // Mapped files cannot be deleted on some platforms
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Positions a reader at the start of a row.
+     *
+     * @param row the 0-based row index.
+     * @return the reader.
+     */
+    private Reader reader(int row) {
+        if (closed) {
+            throw new IllegalStateException("Result buffer is closed");
+        }
+        long offset = offsets[Objects.checkIndex(row, size)];
+        return new Reader(chunks[(int) (offset / chunkSize)], (int) (offset % chunkSize));
+    }
+
+    /**
+     * Encodes the values of one row into a reusable array.
+     */
+    private static final class Encoder {
+        private byte[] bytes = new byte[256];
+        private int length;
+
+        private void reset() {
+            length = 0;
+        }
+
+        private void write(Object value) {
+            if (value == null) {
+                putByte(NULL);
+            } else if (value instanceof Boolean b) {
+                putByte(BOOLEAN);
+                putByte((byte) (b ? 1 : 0));
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                putByte(INT);
+                putInt(((Number) value).intValue());
+            } else if (value instanceof Long l) {
+                putByte(LONG);
+                putLong(l);
+            } else if (value instanceof Float f) {
+                putByte(FLOAT);
+                putInt(Float.floatToRawIntBits(f));
+            } else if (value instanceof Double d) {
+                putByte(DOUBLE);
+                putLong(Double.doubleToRawLongBits(d));
+            } else if (value instanceof BigDecimal d) {
+                putByte(DECIMAL);
+                putInt(d.scale());
+                putBytes(d.unscaledValue().toByteArray());
+            } else if (value instanceof BigInteger i) {
+                putByte(BIG_INTEGER);
+                putBytes(i.toByteArray());
+            } else if (value instanceof byte[] b) {
+                putByte(BYTES);
+                putBytes(b);
+            } else if (value instanceof Timestamp t) {
+                putByte(TIMESTAMP);
+                putLong(t.getTime());
+                putInt(t.getNanos());
+            } else if (value instanceof Date d) {
+                putByte(DATE);
+                putLong(d.getTime());
+            } else if (value instanceof Time t) {
+                putByte(TIME);
+                putLong(t.getTime());
+            } else {
+                putByte(STRING);
+                putBytes(value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        private void putByte(byte value) {
+            ensureCapacity(1);
+            bytes[length++] = value;
+        }
+
+        private void putInt(int value) {
+            ensureCapacity(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void putLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void putBytes(byte[] value) {
+            putInt(value.length);
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, bytes, length, value.length);
+            length += value.length;
+        }
+    }
+
+    /**
+     * Decodes the values of one row with absolute reads, so buffers can be shared between threads.
+     */
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private int position;
+
+        private Reader(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        private Object read() {
+            byte tag = buffer.get(position++);
+            return switch (tag) {
+                case NULL -> null;
+                case BOOLEAN -> buffer.get(position++) != 0;
+                case INT -> getInt();
+                case LONG -> getLong();
+                case FLOAT -> Float.intBitsToFloat(getInt());
+                case DOUBLE -> Double.longBitsToDouble(getLong());
+                case STRING -> new String(getBytes(), StandardCharsets.UTF_8);
+                case BYTES -> getBytes();
+                case DECIMAL -> {
+                    int scale = getInt();
+                    yield new BigDecimal(new BigInteger(getBytes()), scale);
+                }
+                case BIG_INTEGER -> new BigInteger(getBytes());
+                case TIMESTAMP -> {
+                    Timestamp timestamp = new Timestamp(getLong());
+                    timestamp.setNanos(getInt());
+                    yield timestamp;
+                }
+                case DATE -> new Date(getLong());
+                case TIME -> new Time(getLong());
+                default -> throw new IllegalStateException("Corrupted result buffer: unknown tag " + tag);
+            };
+        }
+
+        private void skip() {
+            byte tag = buffer.get(position++);
+            position += switch (tag) {
+                case NULL -> 0;
+                case BOOLEAN -> 1;
+                case INT, FLOAT -> 4;
+                case LONG, DOUBLE, DATE, TIME -> 8;
+                case TIMESTAMP -> 12;
+                case DECIMAL -> 4 + 4 + buffer.getInt(position + 4);
+                case STRING, BYTES, BIG_INTEGER -> 4 + buffer.getInt(position);
+                default -> throw new IllegalStateException("Corrupted result buffer: unknown tag " + tag);
+            };
+        }
+
+        private int getInt() {
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        private long getLong() {
+            long value = buffer.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        private byte[] getBytes() {
+            byte[] value = new byte[getInt()];
+            buffer.get(position, value);
+            position += value.length;
+            return value;
+        }
+    }
+
+    /**
+     * Appends encoded rows to the heap, then to a temporary file once the memory limit is reached.
+     */
+    private static final class Writer {
+        private final long memoryLimit;
+        private final int chunkSize;
+        private byte[] heap = new byte[8192];
+        private long end;
+        private Path file;
+        private FileChannel channel;
+        private ByteBuffer pending;
+
+        private Writer(long memoryLimit, int chunkSize) {
+            this.memoryLimit = Math.min(memoryLimit, MAX_HEAP_SIZE);
+            this.chunkSize = chunkSize;
+        }
+
+        /**
+         * Appends a row, skipping to the next chunk if it would cross a chunk boundary.
+         *
+         * @param row the encoded row.
+         * @param length the number of bytes of the row.
+         * @return the offset of the row.
+         * @throws IOException if the temporary file cannot be written.
+         */
+        private long append(byte[] row, int length) throws IOException {
+            if (length > chunkSize) {
+                throw new IOException("Row of " + length + " bytes exceeds the chunk size of " + chunkSize + " bytes");
+            }
+            long start = end;
+            long used = end % chunkSize;
+            if (used + length > chunkSize) {
+                start += chunkSize - used;
+            }
+            long next = start + length;
+            if (channel == null && next > memoryLimit) {
+                spill();
+            }
+            if (channel == null) {
+                if (next > heap.length) {
+                    heap = Arrays.copyOf(heap, (int) Math.min(Math.max(heap.length * 2L, next), MAX_HEAP_SIZE));
+                }
+                System.arraycopy(row, 0, heap, (int) start, length);
+            } else {
+                if (start != end) {
+                    flush();
+                    channel.position(start);
+                }
+                if (length > pending.remaining()) {
+                    flush();
+                }
+                if (length > pending.capacity()) {
+                    write(ByteBuffer.wrap(row, 0, length));
+                } else {
+                    pending.put(row, 0, length);
+                }
+            }
+            end = next;
+            return start;
+        }
+
+        /**
+         * Moves the rows written so far to a new temporary file.
+         *
+         * @throws IOException if the file cannot be created or written.
+         */
+        private void spill() throws IOException {
+            file = Files.createTempFile("databridge-", ".rows");
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            pending = ByteBuffer.allocate(1 << 20);
+            write(ByteBuffer.wrap(heap, 0, (int) end));
+            heap = null;
+        }
+
+        private void flush() throws IOException {
+            pending.flip();
+            write(pending);
+            pending.clear();
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        /**
+         * Completes writing and returns the buffers the rows are read from.
+         *
+         * @return the heap buffer, or one read-only mapping per chunk of the temporary file.
+         * @throws IOException if the file cannot be written or mapped.
+         */
+        private ByteBuffer[] finish() throws IOException {
+            if (channel == null) {
+                ByteBuffer buffer = ByteBuffer.wrap(heap);
+                ByteBuffer[] chunks = new ByteBuffer[(int) Math.max(1, (end + chunkSize - 1) / chunkSize)];
+                for (int i = 0; i < chunks.length; i++) {
+                    chunks[i] = buffer.slice(i * chunkSize, (int) Math.min(chunkSize, heap.length - (long) i * chunkSize));
+                }
+                return chunks;
+            }
+            try (FileChannel ch = channel) {
+                flush();
+                ByteBuffer[] chunks = new ByteBuffer[(int) ((end + chunkSize - 1) / chunkSize)];
+                for (int i = 0; i < chunks.length; i++) {
+                    long position = (long) i * chunkSize;
+                    chunks[i] = ch.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, end - position));
+                }
+                return chunks;
+            }
+        }
+
+        /**
+         * Deletes the temporary file after a failure.
+         */
+        private void abort() {
+            if (file == null) {
+                return;
+            }
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+}
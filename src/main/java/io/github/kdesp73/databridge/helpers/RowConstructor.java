@@ -0,0 +1,34 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The {@code RowConstructor} annotation marks the constructor {@link Adapter} calls to create
+ * an object from a row, passing the columns as arguments instead of setting fields.
+ * <p>
+ * Parameters are matched to columns by their {@link Column} annotation or, when the class is
+ * compiled with {@code -parameters}, by their name. Records do not need the annotation: their
+ * canonical constructor is used and components are matched by name.
+ * </p>
+ * <pre>
+ * public final class Person {
+ *     private final String name;
+ *     private final int age;
+ *
+ *     &#64;RowConstructor
+ *     public Person(&#64;Column("name") String name, &#64;Column("age") int age) {
+ *         this.name = name;
+ *         this.age = age;
+ *     }
+ * }
+ * </pre>
+ *
+ * @author KDesp73
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.CONSTRUCTOR)
+public @interface RowConstructor {
+}
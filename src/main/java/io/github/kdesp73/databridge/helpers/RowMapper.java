@@ -0,0 +1,28 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The {@code RowMapper} interface turns the current row of a {@link ResultSet} into an object.
+ * <p>
+ * Implementations must only read the current row and never move the cursor.
+ * {@link Adapter#mapper(Class)} returns a mapper following the same column naming rules
+ * as {@link Adapter#load(ResultSet, Class)}.
+ * </p>
+ *
+ * @param <T> the type of the mapped rows.
+ * @author KDesp73
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Maps the current row of the given result set.
+     *
+     * @param resultSet the result set positioned on the row to map.
+     * @return the mapped row.
+     * @throws SQLException if a column cannot be read or the row cannot be mapped.
+     */
+    T map(ResultSet resultSet) throws SQLException;
+}
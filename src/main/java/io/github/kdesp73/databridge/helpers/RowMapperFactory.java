@@ -0,0 +1,73 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * The {@code RowMapperFactory} interface creates {@link RowMapper}s for one class without using
+ * reflection.
+ * <p>
+ * Implementations are generated by the {@code databridge-processor} annotation processor for every
+ * class annotated with {@link GenerateMapper} and registered as services, so {@link Adapter} finds
+ * them with {@link java.util.ServiceLoader} and uses them ahead of its reflection-based mapping.
+ * They can also be written by hand and listed in
+ * {@code META-INF/services/io.github.kdesp73.databridge.helpers.RowMapperFactory}.
+ * </p>
+ *
+ * @param <T> the type of the mapped rows.
+ * @author KDesp73
+ */
+public interface RowMapperFactory<T> {
+
+    /**
+     * Returns the class the created mappers produce.
+     *
+     * @return the mapped class.
+     */
+    Class<T> type();
+
+    /**
+     * Creates a mapper for results with the given columns. The mapper is cached by {@link Adapter}
+     * and reused for every result with the same column labels.
+     *
+     * @param metaData the metadata of the result to map.
+     * @return a mapper reading the columns by index.
+     * @throws SQLException if the metadata cannot be read.
+     */
+    RowMapper<T> create(ResultSetMetaData metaData) throws SQLException;
+
+    /**
+     * Finds the first column whose label matches one of the given names, trying the names in order
+     * and ignoring case.
+     *
+     * @param metaData the metadata of the result.
+     * @param names the candidate column names.
+     * @return the 1-based index of the column, or {@code 0} if no column matches.
+     * @throws SQLException if the metadata cannot be read.
+     */
+    static int column(ResultSetMetaData metaData, String... names) throws SQLException {
+        int count = metaData.getColumnCount();
+        for (String name : names) {
+            for (int i = 1; i <= count; i++) {
+                if (name.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                    return i;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reads the first character of a column, or {@code '\0'} for SQL {@code NULL} or an empty string.
+     *
+     * @param resultSet the result set positioned on the row to read.
+     * @param column the 1-based index of the column.
+     * @return the character.
+     * @throws SQLException if the column cannot be read.
+     */
+    static char getChar(ResultSet resultSet, int column) throws SQLException {
+        String value = resultSet.getString(column);
+        return value == null || value.isEmpty() ? '\0' : value.charAt(0);
+    }
+}
@@ -0,0 +1,174 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * The {@code RowView} class is a cursor over a {@link ResultSet} for loops that must not
+ * allocate per row.
+ * <p>
+ * Column indexes are resolved once with {@link #column(String)} before the loop, then every value is
+ * read by index with a primitive getter, so nothing is boxed and no object is created per row.
+ * Values of SQL {@code NULL} read as {@code 0}, {@code false} or {@code null}; {@link #wasNull()}
+ * tells them apart.
+ * </p>
+ * <pre>
+ * RowView row = new RowView(conn.executeQuery("SELECT region, amount FROM sales"));
+ * int region = row.column("region");
+ * int amount = row.column("amount");
+ * while (row.next()) {
+ *     totals[row.getInt(region)] += row.getLong(amount);
+ * }
+ * </pre>
+ *
+ * @author KDesp73
+ */
+public final class RowView {
+
+    private final ResultSet resultSet;
+
+    /**
+     * Creates a view over the given result set, positioned before its first row.
+     *
+     * @param resultSet the result set to read.
+     */
+    public RowView(ResultSet resultSet) {
+        this.resultSet = resultSet;
+    }
+
+    /**
+     * Resolves the index of a column by its label, ignoring case.
+     *
+     * @param label the column label.
+     * @return the 1-based index of the column.
+     * @throws SQLException if there is no column with that label.
+     */
+    public int column(String label) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (label.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                return i;
+            }
+        }
+        throw new SQLException("No column labeled " + label);
+    }
+
+    /**
+     * Moves to the next row.
+     *
+     * @return {@code true} if there is a row, {@code false} after the last one.
+     * @throws SQLException if the next row cannot be read.
+     */
+    public boolean next() throws SQLException {
+        return resultSet.next();
+    }
+
+    /**
+     * Reads an {@code int} column of the current row.
+     *
+     * @param column the 1-based index of the column.
+     * @return the value, {@code 0} for SQL {@code NULL}.
+     * @throws SQLException if the column cannot be read.
+     */
+    public int getInt(int column) throws SQLException {
+        return resultSet.getInt(column);
+    }
+
+    /**
+     * Reads a {@code long} column of the current row.
+     *
+     * @param column the 1-based index of the column.
+     * @return the value, {@code 0} for SQL {@code NULL}.
+     * @throws SQLException if the column cannot be read.
+     */
+    public long getLong(int column) throws SQLException {
+        return resultSet.getLong(column);
+    }
+
+    /**
+     * Reads a {@code double} column of the current row.
+     *
+     * @param column the 1-based index of the column.
+     * @return the value, {@code 0} for SQL {@code NULL}.
+     * @throws SQLException if the column cannot be read.
+     */
+    public double getDouble(int column) throws SQLException {
+        return resultSet.getDouble(column);
+    }
+
+    /**
+     * Reads a {@code float} column of the current row.
+     *
+     * @param column the 1-based index of the column.
+     * @return the value, {@code 0} for SQL {@code NULL}.
+     * @throws SQLException if the column cannot be read.
+     */
+    public float getFloat(int column) throws SQLException {
+        return resultSet.getFloat(column);
+    }
+
+    /**
+     * Reads a {@code boolean} column of the current row.
+     *
+     * @param column the 1-based index of the column.
+     * @return the value, {@code false} for SQL {@code NULL}.
+     * @throws SQLException if the column cannot be read.
+     */
+    public boolean getBoolean(int column) throws SQLException {
+        return resultSet.getBoolean(column);
+    }
+
+    /**
+     * Reads a string column of the current row.
+     *
+     * @param column the 1-based index of the column.
+     * @return the value, or {@code null}.
+     * @throws SQLException if the column cannot be read.
+     */
+    public String getString(int column) throws SQLException {
+        return resultSet.getString(column);
+    }
+
+    /**
+     * Reads a decimal column of the current row.
+     *
+     * @param column the 1-based index of the column.
+     * @return the value, or {@code null}.
+     * @throws SQLException if the column cannot be read.
+     */
+    public BigDecimal getBigDecimal(int column) throws SQLException {
+        return resultSet.getBigDecimal(column);
+    }
+
+    /**
+     * Reads a column of the current row as an object.
+     *
+     * @param column the 1-based index of the column.
+     * @return the value, or {@code null}.
+     * @throws SQLException if the column cannot be read.
+     */
+    public Object getObject(int column) throws SQLException {
+        return resultSet.getObject(column);
+    }
+
+    /**
+     * Reports whether the last column read was SQL {@code NULL}.
+     *
+     * @return {@code true} if the last value read was {@code NULL}.
+     * @throws SQLException if the state cannot be read.
+     */
+    public boolean wasNull() throws SQLException {
+        return resultSet.wasNull();
+    }
+
+    /**
+     * Returns the underlying result set.
+     *
+     * @return the {@link ResultSet} this view reads.
+     */
+    public ResultSet getResultSet() {
+        return resultSet;
+    }
+}
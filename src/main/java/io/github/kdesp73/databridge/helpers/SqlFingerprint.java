@@ -0,0 +1,401 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The {@code SqlFingerprint} class identifies the shape of an SQL statement independently of the
+ * literal values written into it.
+ * <p>
+ * Statements are normalized in a single pass: string and numeric literals become {@code ?}, as do
+ * {@code $1}-style placeholders, comments are dropped, unquoted words are lower-cased and tokens are
+ * separated by single spaces, without spaces after {@code (} or before {@code )}, {@code ,} and
+ * around {@code .}. Lists of placeholders after {@code IN} collapse to {@code in (?+)} and repeated
+ * rows of placeholders in {@code VALUES} to a single row, so lookups and inserts of any size share a
+ * fingerprint. Quoted identifiers are kept as written.
+ * </p>
+ * <pre>
+ * SqlFingerprint.normalize("SELECT * FROM users WHERE id IN (1, 2, 3) AND name = 'O''Brien'");
+ * // select * from users where id in (?+) and name = ?
+ * </pre>
+ * <p>
+ * The fingerprint is a 64-bit FNV-1a hash of the normalized text, stable across JVMs and runs, and
+ * can key statement caches or per-query metrics. It is lossy on purpose: neither the normalized
+ * text nor {@link #getLiterals()} tell which placeholders were literals or how many values each
+ * collapsed list held, so {@code a IN (1, 2) AND b IN (3)} and {@code a IN (1) AND b IN (2, 3)}
+ * share both. Where statements must be told apart, e.g. to key cached results, use
+ * {@link #canonicalize(String)}, which applies the same rules but keeps literals and lists as written.
+ * </p>
+ *
+ * @author KDesp73
+ */
+public final class SqlFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String normalized;
+    private final long hash;
+    private final List<String> literals;
+
+    private SqlFingerprint(String normalized, long hash, List<String> literals) {
+        this.normalized = normalized;
+        this.hash = hash;
+        this.literals = literals;
+    }
+
+    /**
+     * Normalizes a statement and computes its fingerprint, keeping the removed literals.
+     *
+     * @param sql the SQL statement.
+     * @return the fingerprint.
+     */
+    public static SqlFingerprint of(String sql) {
+        List<String> literals = new ArrayList<>();
+        String normalized = normalize(sql, literals, false);
+        return new SqlFingerprint(normalized, hash(normalized), Collections.unmodifiableList(literals));
+    }
+
+    /**
+     * Normalizes a statement.
+     *
+     * @param sql the SQL statement.
+     * @return the normalized statement.
+     */
+    public static String normalize(String sql) {
+        return normalize(sql, null, false);
+    }
+
+    /**
+     * Canonicalizes a statement: comments are dropped, unquoted words are lower-cased and tokens are
+     * spaced as in {@link #normalize(String)}, but literals, placeholders and lists are kept as written,
+     * so two statements with the same canonical text are the same statement.
+     *
+     * @param sql the SQL statement.
+     * @return the canonical statement.
+     */
+    public static String canonicalize(String sql) {
+        return normalize(sql, null, true);
+    }
+
+    /**
+     * Computes the fingerprint of a statement.
+     *
+     * @param sql the SQL statement.
+     * @return the 64-bit fingerprint of the normalized statement.
+     */
+    public static long fingerprint(String sql) {
+        return hash(normalize(sql, null, false));
+    }
+
+    /**
+     * Returns the normalized statement.
+     *
+     * @return the statement with literals replaced by {@code ?}.
+     */
+    public String getNormalized() {
+        return normalized;
+    }
+
+    /**
+     * Returns the fingerprint.
+     *
+     * @return the 64-bit hash of the normalized statement.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the fingerprint as 16 hexadecimal digits.
+     *
+     * @return the hexadecimal fingerprint.
+     */
+    public String getHex() {
+        String hex = Long.toHexString(hash);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+
+    /**
+     * Returns the literals removed from the statement, as written, in order.
+     *
+     * @return an unmodifiable list of the literals.
+     */
+    public List<String> getLiterals() {
+        return literals;
+    }
+
+    /**
+     * Two fingerprints are equal if their normalized statements are equal, whatever their literals.
+     *
+     * @param o the object to compare with.
+     * @return {@code true} if equal.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SqlFingerprint other && hash == other.hash && normalized.equals(other.normalized);
+    }
+
+    /**
+     * Returns a hash code derived from the fingerprint.
+     *
+     * @return the hash code.
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+
+    /**
+     * Returns the hexadecimal fingerprint followed by the normalized statement.
+     *
+     * @return a description of the fingerprint.
+     */
+    @Override
+    public String toString() {
+        return getHex() + " " + normalized;
+    }
+
+    /**
+     * Hashes a string with 64-bit FNV-1a over its UTF-16 code units.
+     *
+     * @param text the text to hash.
+     * @return the hash.
+     */
+    static long hash(String text) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Normalizes a statement in a single pass over its characters.
+     *
+     * @param sql the SQL statement.
+     * @param literals the list receiving the removed literals, or {@code null}.
+     * @param exact whether literals, placeholders and lists are kept as written.
+     * @return the normalized statement.
+     */
+    private static String normalize(String sql, List<String> literals, boolean exact) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int n = sql.length();
+        int i = 0;
+        // The kind of the last token written: 0 none, 'w' word or value, 'o' operator, or the punctuation itself
+        char last = 0;
+        while (i < n) {
+            char c = sql.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+                while (i < n && sql.charAt(i) != '\n') {
+                    i++;
+                }
+                continue;
+            }
+            if (c == '/' && i + 1 < n && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+                continue;
+            }
+
+            int start = i;
+            if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+                literal(out, last, literals, sql, start, i, exact);
+                last = 'w';
+            } else if (c == '"' || c == '`' || c == '[') {
+                i = skipQuoted(sql, i, c == '[' ? ']' : c);
+                space(out, last, 'w');
+                out.append(sql, start, i);
+                last = 'w';
+            } else if (isDigit(c) || (c == '.' && i + 1 < n && isDigit(sql.charAt(i + 1)))
+                || ((c == '-' || c == '+') && i + 1 < n && (isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.') && last != 'w' && last != ')')) {
+                i = skipNumber(sql, c == '-' || c == '+' ? i + 1 : i);
+                literal(out, last, literals, sql, start, i, exact);
+                last = 'w';
+            } else if (c == '?' || (c == '$' && i + 1 < n && isDigit(sql.charAt(i + 1)))) {
+                i++;
+                while (i < n && isDigit(sql.charAt(i))) {
+                    i++;
+                }
+                space(out, last, 'w');
+                if (exact) {
+                    out.append(sql, start, i);
+                } else {
+                    out.append('?');
+                }
+                last = 'w';
+            } else if (isWordPart(c)) {
+                while (i < n && isWordPart(sql.charAt(i))) {
+                    i++;
+                }
+                space(out, last, 'w');
+                out.append(sql.substring(start, i).toLowerCase(Locale.ROOT));
+                last = 'w';
+            } else if (c == '(' || c == ')' || c == ',' || c == '.' || c == ';') {
+                i++;
+                space(out, last, c);
+                out.append(c);
+                last = c;
+                if (c == ')' && !exact) {
+                    collapse(out);
+                }
+            } else {
+                while (i < n && isOperator(sql.charAt(i))
+                    && !(i > start && sql.charAt(i) == '-' && i + 1 < n && sql.charAt(i + 1) == '-')) {
+                    i++;
+                }
+                if (i == start) {
+                    i++;
+                }
+                space(out, last, 'o');
+                out.append(sql, start, i);
+                last = 'o';
+            }
+        }
+
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) == ';') {
+            end--;
+        }
+        out.setLength(end > 0 && out.charAt(end - 1) == ' ' ? end - 1 : end);
+        return out.toString();
+    }
+
+    /**
+     * Writes a placeholder for a literal, or the literal itself if exact, and records the literal.
+     */
+    private static void literal(StringBuilder out, char last, List<String> literals, String sql, int start, int end, boolean exact) {
+        space(out, last, 'w');
+        if (exact) {
+            out.append(sql, start, end);
+        } else {
+            out.append('?');
+        }
+        if (literals != null) {
+            literals.add(sql.substring(start, end));
+        }
+    }
+
+    /**
+     * Writes the space separating the next token from the last one, if any.
+     *
+     * @param out the normalized statement so far.
+     * @param last the kind of the last token.
+     * @param next the kind of the next token.
+     */
+    private static void space(StringBuilder out, char last, char next) {
+        if (last == 0 || last == '(' || last == '.' || next == ')' || next == ',' || next == '.' || next == ';') {
+            return;
+        }
+        out.append(' ');
+    }
+
+    /**
+     * Collapses the list of placeholders that was just closed: {@code in (?, ?)} becomes
+     * {@code in (?+)}, and a row of placeholders repeating the previous row is removed.
+     *
+     * @param out the normalized statement, ending with {@code )}.
+     */
+    private static void collapse(StringBuilder out) {
+        int close = out.length() - 1;
+        int i = close - 1;
+        // Walk back over "?, ?, ..., ?"
+        while (i >= 0 && out.charAt(i) == '?') {
+            if (i >= 2 && out.charAt(i - 1) == ' ' && out.charAt(i - 2) == ',') {
+                i -= 3;
+            } else {
+                i--;
+                break;
+            }
+        }
+        if (i < 0 || out.charAt(i) != '(' || i == close - 1) {
+            return;
+        }
+        int open = i;
+
+        if (open >= 3 && out.charAt(open - 1) == ' ' && out.charAt(open - 2) == 'n' && out.charAt(open - 3) == 'i'
+            && (open == 3 || out.charAt(open - 4) == ' ')) {
+            out.setLength(open);
+            out.append("(?+)");
+            return;
+        }
+
+        int length = close - open + 1;
+        int previous = open - 2 - length;
+        if (previous >= 0 && out.charAt(open - 1) == ' ' && out.charAt(open - 2) == ','
+            && out.substring(previous, open - 2).equals(out.substring(open, close + 1))) {
+            out.setLength(open - 2);
+        }
+    }
+
+    /**
+     * Returns the index after a quoted token, treating a doubled closing quote as an escaped one.
+     */
+    private static int skipQuoted(String sql, int start, char close) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == close) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == close) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the index after a decimal, exponent or hexadecimal number.
+     */
+    private static int skipNumber(String sql, int start) {
+        int n = sql.length();
+        int i = start;
+        if (i + 1 < n && sql.charAt(i) == '0' && (sql.charAt(i + 1) == 'x' || sql.charAt(i + 1) == 'X')) {
+            i += 2;
+            while (i < n && Character.digit(sql.charAt(i), 16) >= 0) {
+                i++;
+            }
+            return i;
+        }
+        while (i < n && (isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+            i++;
+        }
+        if (i < n && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+            int j = i + 1;
+            if (j < n && (sql.charAt(j) == '+' || sql.charAt(j) == '-')) {
+                j++;
+            }
+            if (j < n && isDigit(sql.charAt(j))) {
+                i = j;
+                while (i < n && isDigit(sql.charAt(i))) {
+                    i++;
+                }
+            }
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '@';
+    }
+
+    private static boolean isOperator(char c) {
+        return "<>=!|:+-*/%&^~".indexOf(c) >= 0;
+    }
+}
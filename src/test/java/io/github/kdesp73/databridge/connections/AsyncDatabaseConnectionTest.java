@@ -0,0 +1,100 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import io.github.kdesp73.databridge.helpers.FakeResults;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncDatabaseConnectionTest {
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger peakOpen = new AtomicInteger();
+
+    private ResultSet resultSet() {
+        peakOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+        boolean[] closed = {false};
+        return FakeResults.resultSet(new String[]{"id"}, new int[]{Types.INTEGER}, new Object[][]{{1}, {2}}, (method, args) -> {
+            if (method.equals("close") && !closed[0]) {
+                closed[0] = true;
+                open.decrementAndGet();
+            }
+        });
+    }
+
+    private DatabaseConnection connection() {
+        return (DatabaseConnection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DatabaseConnection.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "execute" -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    running.decrementAndGet();
+                    yield true;
+                }
+                case "executeUpdate" -> throw new SQLException("boom");
+                case "executeQuery" -> resultSet();
+                default -> null;
+            });
+    }
+
+    @Test
+    void boundsConcurrentCalls() throws SQLException {
+        try (AsyncDatabaseConnection db = new AsyncDatabaseConnection(connection(), 3)) {
+            List<CompletableFuture<Boolean>> calls = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                calls.add(db.executeAsync("SELECT 1"));
+            }
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+            assertTrue(peak.get() <= 3, "At most 3 calls should run at once, saw " + peak.get());
+            assertEquals(0, db.getRunning());
+        }
+    }
+
+    @Test
+    void singleConnectionRunsOneCallAtATime() throws SQLException {
+        try (AsyncDatabaseConnection db = new AsyncDatabaseConnection(connection())) {
+            assertEquals(1, db.getConcurrency());
+        }
+    }
+
+    @Test
+    void failuresCompleteExceptionally() throws SQLException {
+        try (AsyncDatabaseConnection db = new AsyncDatabaseConnection(connection(), 2)) {
+            CompletableFuture<Integer> update = db.updateAsync("DELETE FROM t");
+            Throwable cause = update.handle((rows, e) -> e.getCause()).join();
+            assertTrue(cause instanceof SQLException);
+        }
+    }
+
+    @Test
+    void queryResultsAreReadWithinTheBound() throws SQLException {
+        try (AsyncDatabaseConnection db = new AsyncDatabaseConnection(connection())) {
+            List<CompletableFuture<ResultSet>> queries = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                queries.add(db.queryAsync("SELECT id FROM t WHERE id > ?", 0));
+            }
+            CompletableFuture.allOf(queries.toArray(CompletableFuture[]::new)).join();
+            assertEquals(1, peakOpen.get(), "A result must be read and closed before the next call runs on a single connection.");
+
+            for (CompletableFuture<ResultSet> query : queries) {
+                try (ResultSet resultSet = query.join()) {
+                    assertTrue(resultSet.next());
+                    assertEquals(1, resultSet.getInt(1));
+                    assertTrue(resultSet.next());
+                    assertFalse(resultSet.next());
+                }
+            }
+            assertEquals(0, open.get());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import io.github.kdesp73.databridge.helpers.FakeResults;
+import io.github.kdesp73.databridge.helpers.QueryBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingDatabaseConnectionTest {
+
+    private final List<String> queries = new ArrayList<>();
+    private final long[] now = {0};
+
+    private static ResultSet resultSet(List<Integer> ids) {
+        return FakeResults.resultSet(new String[]{"id"}, new int[]{Types.INTEGER}, ids.stream().map(id -> new Object[]{id}).toArray(Object[][]::new));
+    }
+
+    private CachingDatabaseConnection caching(int size, long ttl) {
+        DatabaseConnection database = (DatabaseConnection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DatabaseConnection.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "executeQuery" -> {
+                    queries.add((String) args[0]);
+                    yield resultSet(List.of(1, 2, 3));
+                }
+                case "executeUpdate" -> {
+                    queries.add((String) args[0]);
+                    yield 1;
+                }
+                case "execute" -> {
+                    queries.add((String) args[0]);
+                    yield false;
+                }
+                default -> FakeResults.defaultValue(method);
+            });
+        return new CachingDatabaseConnection(database, size, ttl, true, () -> now[0]);
+    }
+
+    private static List<Integer> ids(ResultSet resultSet) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        while (resultSet.next()) {
+            ids.add(resultSet.getInt(1));
+        }
+        resultSet.close();
+        return ids;
+    }
+
+    @Test
+    void repeatedQueriesAreServedFromTheCache() throws SQLException {
+        CachingDatabaseConnection db = caching(100, 0);
+        assertEquals(List.of(1, 2, 3), ids(db.executeQuery("SELECT id FROM countries WHERE region = ?", "EU")));
+        assertEquals(List.of(1, 2, 3), ids(db.executeQuery("select id\n  from countries where region = ?", "EU")));
+        assertEquals(List.of(1, 2, 3), ids(db.executeQuery("select id from countries where region = ?", "EU")),
+            "Closing a copy must not empty the cached result.");
+        assertEquals(1, queries.size());
+        assertEquals(2, db.getHits());
+
+        db.executeQuery("SELECT id FROM countries WHERE region = ?", "US");
+        db.executeQuery("SELECT id FROM countries WHERE region = 'EU'");
+        db.executeQuery(new QueryBuilder().select("id").from("countries").where("region = ?", "EU").prepare().getSql(),
+            new QueryBuilder().select("id").from("countries").where("region = ?", "EU").prepare());
+        assertEquals(3, queries.size(), "Other values and literals are other entries; a PreparedQuery shares the Object... key.");
+
+        db.executeQuery("SELECT id FROM countries WHERE region = ?", statement -> statement.setString(1, "EU"));
+        db.executeQuery("SELECT id FROM countries WHERE region = ?", statement -> statement.setString(1, "EU"));
+        assertEquals(5, queries.size(), "Opaque binders always go to the database.");
+    }
+
+    @Test
+    void listsOfOtherLengthsAreOtherEntries() throws SQLException {
+        CachingDatabaseConnection db = caching(100, 0);
+        db.executeQuery("SELECT * FROM t WHERE a IN (?, ?) AND b IN (?)", 1, 2, 3);
+        db.executeQuery("SELECT * FROM t WHERE a IN (?) AND b IN (?, ?)", 1, 2, 3);
+        db.executeQuery("SELECT * FROM t WHERE a IN (1, 2) AND b IN (3)");
+        db.executeQuery("SELECT * FROM t WHERE a IN (1) AND b IN (2, 3)");
+        db.executeQuery("SELECT * FROM t WHERE a = 1 AND b = ?", 2);
+        db.executeQuery("SELECT * FROM t WHERE a = ? AND b = 1", 2);
+        assertEquals(0, db.getHits());
+        assertEquals(6, queries.size());
+
+        db.executeQuery("select * from t where a in (1) and b in (2, 3)");
+        assertEquals(1, db.getHits());
+    }
+
+    @Test
+    void invalidatesByTableName() throws SQLException {
+        CachingDatabaseConnection db = caching(100, 0);
+        db.executeQuery("SELECT * FROM users");
+        db.executeQuery("SELECT * FROM orders");
+        db.invalidate("USERS");
+        assertEquals(1, db.size());
+        assertEquals(1, db.getInvalidations());
+    }
+
+    @Test
+    void writesInvalidateTheTablesTheyTouch() throws SQLException {
+        CachingDatabaseConnection db = caching(100, 0);
+        db.executeQuery("SELECT * FROM countries c JOIN regions r ON r.id = c.region");
+        db.executeQuery("SELECT * FROM users");
+
+        db.executeUpdate("UPDATE public.regions SET name = ? WHERE id = ?", "Europe", 1);
+        assertEquals(1, db.getInvalidations());
+        db.executeQuery("SELECT * FROM users");
+        db.executeQuery("SELECT * FROM countries c JOIN regions r ON r.id = c.region");
+        assertEquals(4, queries.size(), "Only the join reading regions is read again.");
+
+        db.execute("CALL refresh()");
+        assertEquals(0, db.size(), "A statement writing to an unknown table clears the cache.");
+    }
+
+    @Test
+    void resultsExpire() throws SQLException {
+        CachingDatabaseConnection db = caching(100, 1000);
+        db.executeQuery("SELECT * FROM t");
+        now[0] += 999_000_000L;
+        db.executeQuery("SELECT * FROM t");
+        now[0] += 1_000_000L;
+        db.executeQuery("SELECT * FROM t");
+        assertEquals(2, queries.size());
+    }
+
+    @Test
+    void findsTablesReadAndWritten() {
+        assertEquals(Set.of("a", "b", "c", "d"), CachingDatabaseConnection.read(
+            "select * from a x, \"S\".b as y join c on c.id = x.id where x.id in (select id from d)"));
+        assertEquals(Set.of("t"), CachingDatabaseConnection.written("insert into s.t (a) values (?)"));
+        assertEquals(Set.of("t"), CachingDatabaseConnection.written("delete from t where id in (select id from u)"));
+        assertEquals(Set.of("t"), CachingDatabaseConnection.written("truncate table t"));
+        assertEquals(Set.of(), CachingDatabaseConnection.written("select ?"));
+        assertNull(CachingDatabaseConnection.written("with x as (select ?) update t set a = ?"));
+    }
+
+    private CachingDatabaseConnection blocking(CountDownLatch entered, CountDownLatch release, boolean fail) {
+        DatabaseConnection database = (DatabaseConnection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DatabaseConnection.class},
+            (proxy, method, args) -> {
+                if (!method.getName().equals("executeQuery")) {
+                    return FakeResults.defaultValue(method);
+                }
+                synchronized (queries) {
+                    queries.add((String) args[0]);
+                }
+                entered.countDown();
+                release.await();
+                if (fail) {
+                    throw new SQLException("relation does not exist", "42P01");
+                }
+                return resultSet(List.of(7));
+            });
+        return new CachingDatabaseConnection(database, 0, 0, true);
+    }
+
+    private static void awaitCoalesced(CachingDatabaseConnection db, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (db.getCoalesced() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, db.getCoalesced());
+    }
+
+    @Test
+    void concurrentIdenticalQueriesShareOneExecution() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CachingDatabaseConnection db = blocking(entered, release, false);
+
+        List<CompletableFuture<List<Integer>>> results = new ArrayList<>();
+        results.add(CompletableFuture.supplyAsync(() -> read(db)));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 20; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> read(db)));
+        }
+        awaitCoalesced(db, 20);
+        release.countDown();
+
+        for (CompletableFuture<List<Integer>> result : results) {
+            assertEquals(List.of(7), result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, queries.size());
+        assertEquals(0, db.size(), "A cache of size 0 only coalesces.");
+
+        read(db);
+        assertEquals(2, queries.size(), "Queries after the shared execution run again.");
+    }
+
+    @Test
+    void failuresReachEveryWaitingQuery() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CachingDatabaseConnection db = blocking(entered, release, true);
+
+        CompletableFuture<List<Integer>> leader = CompletableFuture.supplyAsync(() -> read(db));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        CompletableFuture<List<Integer>> follower = CompletableFuture.supplyAsync(() -> read(db));
+        awaitCoalesced(db, 1);
+        release.countDown();
+
+        for (CompletableFuture<List<Integer>> result : List.of(leader, follower)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause().getCause() instanceof SQLException);
+            assertEquals("42P01", ((SQLException) e.getCause().getCause()).getSQLState());
+        }
+        assertEquals(1, queries.size());
+    }
+
+    private static List<Integer> read(CachingDatabaseConnection db) {
+        try {
+            return ids(db.executeQuery("SELECT id FROM events WHERE kind = ?", "deploy"));
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
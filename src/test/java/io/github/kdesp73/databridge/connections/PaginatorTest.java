@@ -0,0 +1,76 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import io.github.kdesp73.databridge.helpers.FakeResults;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaginatorTest {
+
+    private final List<String> queries = Collections.synchronizedList(new ArrayList<>());
+
+    private static ResultSet resultSet(List<Integer> keys) {
+        return FakeResults.resultSet(new String[]{"id"}, keys.stream().map(key -> new Object[]{key}).toArray(Object[][]::new));
+    }
+
+    private DatabaseConnection table(int rows) {
+        return (DatabaseConnection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DatabaseConnection.class},
+            (proxy, method, args) -> {
+                if (!method.getName().equals("executeQuery") || args.length != 2) {
+                    return null;
+                }
+                String sql = (String) args[0];
+                queries.add(sql);
+                Object[] after = {0};
+                PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                    (p, m, a) -> {
+                        after[0] = a[1];
+                        return null;
+                    });
+                ((StatementBinder) args[1]).bind(statement);
+                int from = (Integer) after[0];
+                List<Integer> keys = new ArrayList<>();
+                for (int key = from + 1; key <= Math.min(rows, from + 1000); key++) {
+                    keys.add(key);
+                }
+                return resultSet(keys);
+            });
+    }
+
+    @Test
+    void readsEveryRowInKeyOrder() {
+        Executor direct = Runnable::run;
+        Paginator<Integer> pages = new Paginator<>(table(2500), AvailableConnections.POSTGRES, "events", "id", 1000, rs -> rs.getInt(1), direct);
+
+        List<Integer> sizes = new ArrayList<>();
+        for (List<Integer> page : pages) {
+            sizes.add(page.size());
+        }
+        assertEquals(List.of(1000, 1000, 500), sizes);
+        assertEquals("SELECT * FROM events ORDER BY id LIMIT 1000", queries.get(0));
+        assertEquals("SELECT * FROM events WHERE id > ? ORDER BY id LIMIT 1000", queries.get(1));
+
+        List<Integer> all = new Paginator<>(table(2500), AvailableConnections.POSTGRES, "events", "id", 1000, rs -> rs.getInt(1), direct)
+            .stream().collect(Collectors.toList());
+        assertEquals(2500, all.size());
+        assertEquals(2500, (int) all.get(2499));
+    }
+
+    @Test
+    void prefetchesOnAnotherThread() {
+        Paginator<Integer> pages = new Paginator<>(table(2000), AvailableConnections.SQLITE, "events", "id", 1000, rs -> rs.getInt(1),
+            task -> Thread.ofVirtual().start(task));
+
+        long rows = pages.stream().count();
+        assertEquals(2000, rows);
+        assertEquals(3, queries.size(), "A full last page needs one more, empty, page.");
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParametersTest {
+
+    private final List<String> calls = new ArrayList<>();
+
+    private PreparedStatement recorder() {
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+            (proxy, method, args) -> {
+                calls.add(method.getName() + "(" + args[0] + ", " + args[1] + ")");
+                return null;
+            });
+    }
+
+    @Test
+    void bindsWithTypedSetters() throws SQLException {
+        new Parameters().add(1).add(2L).add(1.5).add(true).add("name").bind(recorder());
+        assertEquals(List.of("setInt(1, 1)", "setLong(2, 2)", "setDouble(3, 1.5)", "setBoolean(4, true)", "setObject(5, name)"), calls);
+    }
+
+    @Test
+    void bindsNullAsSqlNull() throws SQLException {
+        new Parameters().add((Object) null).bind(recorder());
+        assertEquals(List.of("setNull(1, 0)"), calls);
+    }
+
+    @Test
+    void clearAllowsReuse() throws SQLException {
+        Parameters params = new Parameters(1);
+        params.add(1).add(2);
+        params.clear().add(3);
+        assertEquals(1, params.size());
+        params.bind(recorder());
+        assertEquals(List.of("setInt(1, 3)"), calls);
+    }
+
+    @Test
+    void binderOfValues() throws SQLException {
+        StatementBinder.of("a", null, 3).bind(recorder());
+        assertEquals(List.of("setObject(1, a)", "setNull(2, 0)", "setObject(3, 3)"), calls);
+    }
+
+    @Test
+    void bindsObjectArraysAsSqlArrays() throws SQLException {
+        java.sql.Connection connection = (java.sql.Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{java.sql.Connection.class},
+            (proxy, method, args) -> {
+                calls.add(method.getName() + "(" + args[0] + ", " + java.util.Arrays.toString((Object[]) args[1]) + ")");
+                return null;
+            });
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+            (proxy, method, args) -> method.getName().equals("getConnection") ? connection : null);
+        StatementBinder.bind(statement, 1, new Object[]{null, 5L, 6L});
+        assertEquals(List.of("createArrayOf(bigint, [null, 5, 6])"), calls);
+    }
+}
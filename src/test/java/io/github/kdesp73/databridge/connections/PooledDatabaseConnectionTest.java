@@ -0,0 +1,241 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledDatabaseConnectionTest {
+
+    private static final List<Fake> OPENED = new CopyOnWriteArrayList<>();
+
+    /**
+     * A connection opened by the pool through its no-arg constructor, backed by a proxy {@link Connection}.
+     */
+    public static class Fake implements DatabaseConnection {
+        private final List<String> calls = new CopyOnWriteArrayList<>();
+        private volatile boolean closed;
+        private volatile boolean valid = true;
+        private volatile boolean autoCommit = true;
+        private final Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "isClosed" -> closed;
+                case "isValid" -> {
+                    calls.add("isValid");
+                    yield valid;
+                }
+                case "getAutoCommit" -> autoCommit;
+                case "setAutoCommit" -> {
+                    autoCommit = (boolean) args[0];
+                    yield null;
+                }
+                case "rollback" -> calls.add("rollback");
+                default -> null;
+            });
+
+        public Fake() {
+            OPENED.add(this);
+        }
+
+        @Override
+        public void connect(String url, String username, String password) {
+            calls.add("connect " + url);
+        }
+
+        @Override
+        public ResultSet executeQuery(String query) {
+            return null;
+        }
+
+        @Override
+        public ResultSet executeQuery(String query, StatementBinder binder) {
+            return null;
+        }
+
+        @Override
+        public QueryResult query(String query, StatementBinder binder) {
+            return null;
+        }
+
+        @Override
+        public StreamingResult executeStream(String query, int fetchSize, StatementBinder binder) {
+            return null;
+        }
+
+        @Override
+        public int executeUpdate(String query) {
+            calls.add(query);
+            return 1;
+        }
+
+        @Override
+        public int executeUpdate(String query, StatementBinder binder) {
+            return executeUpdate(query);
+        }
+
+        @Override
+        public <T> List<int[]> executeBatch(String query, Iterable<T> rows, RowBinder<T> binder, int batchSize) {
+            return List.of();
+        }
+
+        @Override
+        public boolean execute(String query) {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public Connection get() {
+            return connection;
+        }
+    }
+
+    private static PooledDatabaseConnection pool(int minSize, int maxSize, long idleTimeout, long maxLifetime, long acquireTimeout) throws SQLException {
+        OPENED.clear();
+        PooledDatabaseConnection pool = new PooledDatabaseConnection(Fake.class, minSize, maxSize, idleTimeout, maxLifetime, acquireTimeout, 1);
+        pool.connect("jdbc:fake", "user", "secret");
+        return pool;
+    }
+
+    private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean(), message);
+    }
+
+    @Test
+    void returnedConnectionsAreResetAndReused() throws SQLException {
+        try (PooledDatabaseConnection pool = pool(0, 2, 60000, 60000, 1000)) {
+            Connection first;
+            try (PooledDatabaseConnection.Lease lease = pool.lease()) {
+                first = lease.get();
+                first.setAutoCommit(false);
+                assertEquals(1, pool.getActiveConnections());
+                assertEquals(0, pool.getIdleConnections());
+            }
+            assertEquals(List.of("connect jdbc:fake", "rollback"), OPENED.get(0).calls, "An open transaction is rolled back on return.");
+            assertTrue(first.getAutoCommit());
+            assertEquals(1, pool.getIdleConnections());
+
+            try (PooledDatabaseConnection.Lease lease = pool.lease()) {
+                assertSame(first, lease.get());
+                assertEquals(1, lease.executeUpdate("DELETE FROM t"));
+            }
+            assertEquals(1, OPENED.size());
+            assertEquals(1, pool.getTotalConnections());
+            assertEquals(1, pool.executeUpdate("DELETE FROM u"), "The pool borrows a connection per call.");
+            assertEquals(0, pool.getActiveConnections());
+        }
+        assertTrue(OPENED.get(0).closed, "Closing the pool closes its idle connections.");
+    }
+
+    @Test
+    void neverOpensMoreThanMaxSizeAndTimesOut() throws SQLException {
+        try (PooledDatabaseConnection pool = pool(0, 2, 60000, 60000, 50)) {
+            PooledDatabaseConnection.Lease a = pool.lease();
+            PooledDatabaseConnection.Lease b = pool.lease();
+            assertNotSame(a.get(), b.get());
+
+            long start = System.nanoTime();
+            assertThrows(SQLTimeoutException.class, pool::lease);
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50), "lease() waits for the acquire timeout.");
+            assertEquals(2, OPENED.size());
+            assertEquals(2, pool.getActiveConnections());
+
+            b.close();
+            try (PooledDatabaseConnection.Lease c = pool.lease()) {
+                assertSame(b.get(), c.get());
+            }
+            a.close();
+            assertEquals(2, pool.getTotalConnections());
+        }
+    }
+
+    @Test
+    void closingALeaseTwiceReturnsItOnce() throws SQLException {
+        try (PooledDatabaseConnection pool = pool(0, 1, 60000, 60000, 50)) {
+            PooledDatabaseConnection.Lease lease = pool.lease();
+            lease.close();
+            lease.close();
+            assertEquals(0, pool.getActiveConnections());
+            assertEquals(1, pool.getIdleConnections());
+            assertThrows(SQLException.class, () -> lease.executeUpdate("DELETE FROM t"), "A returned lease cannot be used.");
+
+            try (PooledDatabaseConnection.Lease again = pool.lease()) {
+                assertThrows(SQLTimeoutException.class, pool::lease, "A second close must not free a second permit.");
+                assertSame(lease.get(), again.get());
+            }
+        }
+    }
+
+    @Test
+    void expiredConnectionsAreRetired() throws SQLException, InterruptedException {
+        try (PooledDatabaseConnection pool = pool(0, 1, 60000, 50, 1000)) {
+            PooledDatabaseConnection.Lease lease = pool.lease();
+            Thread.sleep(60);
+            lease.close();
+            assertTrue(OPENED.get(0).closed, "A connection past its lifetime is closed when returned.");
+            assertEquals(0, pool.getTotalConnections());
+
+            try (PooledDatabaseConnection.Lease fresh = pool.lease()) {
+                assertNotSame(OPENED.get(0).get(), fresh.get());
+            }
+            assertEquals(2, OPENED.size());
+        }
+    }
+
+    @Test
+    void idleConnectionsAreEvictedDownToMinSize() throws SQLException, InterruptedException {
+        try (PooledDatabaseConnection pool = pool(1, 3, 100, 60000, 1000)) {
+            assertEquals(1, pool.getTotalConnections(), "connect() opens the minimum number of connections.");
+            PooledDatabaseConnection.Lease a = pool.lease();
+            PooledDatabaseConnection.Lease b = pool.lease();
+            PooledDatabaseConnection.Lease c = pool.lease();
+            a.close();
+            b.close();
+            c.close();
+            assertEquals(3, pool.getIdleConnections());
+
+            await(() -> pool.getTotalConnections() == 1, "Idle connections are evicted, but never below minSize.");
+            assertEquals(2, OPENED.stream().filter(fake -> fake.closed).count());
+        }
+    }
+
+    @Test
+    void invalidIdleConnectionsAreReplaced() throws SQLException, InterruptedException {
+        try (PooledDatabaseConnection pool = pool(0, 1, 60000, 60000, 1000)) {
+            pool.lease().close();
+            OPENED.get(0).valid = false;
+            Thread.sleep(600);
+
+            try (PooledDatabaseConnection.Lease lease = pool.lease()) {
+                assertSame(OPENED.get(1).get(), lease.get());
+            }
+            assertTrue(OPENED.get(0).calls.contains("isValid"), "A connection idle for a while is validated before it is handed out.");
+            assertTrue(OPENED.get(0).closed);
+        }
+    }
+
+    @Test
+    void missingResultsFailAndReturnTheLease() throws SQLException {
+        try (PooledDatabaseConnection pool = pool(0, 1, 60000, 60000, 50)) {
+            assertThrows(SQLException.class, () -> pool.query("SELECT 1", StatementBinder.NONE));
+            assertThrows(SQLException.class, () -> pool.executeStream("SELECT 1", 0, StatementBinder.NONE));
+            assertEquals(0, pool.getActiveConnections());
+        }
+    }
+}
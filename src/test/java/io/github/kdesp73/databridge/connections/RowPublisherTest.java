@@ -0,0 +1,164 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import io.github.kdesp73.databridge.helpers.FakeResults;
+import io.github.kdesp73.databridge.helpers.RowMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowPublisherTest {
+
+    private final List<String> events = new ArrayList<>();
+    private final int[] reads = {0};
+
+    private DatabaseConnection connection(int rows) {
+        Object[][] ids = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = new Object[]{i + 1};
+        }
+        ResultSet resultSet = FakeResults.resultSet(new String[]{"id"}, new int[]{Types.INTEGER}, ids, (method, args) -> {
+            if (method.equals("next")) {
+                reads[0]++;
+            }
+        });
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("close")) {
+                    events.add("close");
+                }
+                return FakeResults.defaultValue(method);
+            });
+        return (DatabaseConnection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DatabaseConnection.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "executeStream" -> {
+                    events.add("query");
+                    yield new StreamingResult(resultSet, statement, null, false);
+                }
+                default -> FakeResults.defaultValue(method);
+            });
+    }
+
+    private RowPublisher<Integer> publisher(DatabaseConnection connection, RowMapper<Integer> mapper) {
+        return new RowPublisher<>(connection, "SELECT id FROM t", 0, StatementBinder.NONE, mapper, Runnable::run);
+    }
+
+    private Flow.Subscription subscribe(RowPublisher<Integer> publisher) {
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                events.add("subscribe");
+                subscription[0] = s;
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                events.add("next " + item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                events.add("error " + throwable.getMessage());
+            }
+
+            @Override
+            public void onComplete() {
+                events.add("complete");
+            }
+        });
+        return subscription[0];
+    }
+
+    @Test
+    void emitsOnlyWhatIsRequested() {
+        Flow.Subscription subscription = subscribe(publisher(connection(5), resultSet -> resultSet.getInt(1)));
+        assertEquals(List.of("subscribe"), events, "The query runs on the first request.");
+
+        subscription.request(2);
+        assertEquals(List.of("subscribe", "query", "next 1", "next 2"), events);
+        assertEquals(2, reads[0], "No row is read ahead of the demand.");
+
+        subscription.request(10);
+        assertEquals(List.of("subscribe", "query", "next 1", "next 2", "next 3", "next 4", "next 5", "close", "complete"), events);
+    }
+
+    @Test
+    void cancelClosesTheResultAndStopsEmitting() {
+        Flow.Subscription subscription = subscribe(publisher(connection(5), resultSet -> resultSet.getInt(1)));
+        subscription.request(1);
+        subscription.cancel();
+        subscription.request(3);
+
+        assertEquals(List.of("subscribe", "query", "next 1", "close"), events, "Nothing follows a cancel, not even onComplete.");
+        assertEquals(1, reads[0]);
+    }
+
+    @Test
+    void errorsFollowTheEmittedRowsAndEndTheSubscription() {
+        Flow.Subscription subscription = subscribe(publisher(connection(5), resultSet -> {
+            int id = resultSet.getInt(1);
+            if (id == 3) {
+                throw new SQLException("cannot map row 3");
+            }
+            return id;
+        }));
+        subscription.request(Long.MAX_VALUE);
+        subscription.request(1);
+
+        assertEquals(List.of("subscribe", "query", "next 1", "next 2", "close", "error cannot map row 3"), events,
+            "The result is closed before the error is signalled, and nothing follows the error.");
+    }
+
+    @Test
+    void invalidRequestsAndFailedQueriesAreSignalled() {
+        Flow.Subscription subscription = subscribe(publisher(connection(5), resultSet -> resultSet.getInt(1)));
+        subscription.request(0);
+        assertEquals(List.of("subscribe", "error Requested 0 rows, expected a positive number."), events);
+
+        events.clear();
+        DatabaseConnection failing = (DatabaseConnection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DatabaseConnection.class},
+            (proxy, method, args) -> FakeResults.defaultValue(method));
+        subscribe(publisher(failing, resultSet -> resultSet.getInt(1))).request(1);
+        assertEquals(List.of("subscribe", "error Query failed: SELECT id FROM t"), events);
+    }
+
+    @Test
+    void emitsOnAnotherThreadByDefault() throws InterruptedException {
+        CountDownLatch completed = new CountDownLatch(1);
+        List<Integer> rows = new ArrayList<>();
+        new RowPublisher<>(connection(3), "SELECT id FROM t", StatementBinder.NONE, resultSet -> resultSet.getInt(1)).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                rows.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3), rows);
+    }
+}
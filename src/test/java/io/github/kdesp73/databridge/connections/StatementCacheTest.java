@@ -0,0 +1,207 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCacheTest {
+
+    private final Set<PreparedStatement> closed = new HashSet<>();
+
+    private PreparedStatement statement() {
+        PreparedStatement[] self = new PreparedStatement[1];
+        self[0] = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "close" -> closed.add(self[0]);
+                case "isClosed" -> closed.contains(self[0]);
+                case "executeUpdate" -> 1;
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> null;
+            });
+        return self[0];
+    }
+
+    private Connection connection() {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> "prepareStatement".equals(method.getName()) ? statement() : null);
+    }
+
+    @Test
+    void reusesReleasedStatement() throws SQLException {
+        StatementCache cache = new StatementCache(connection(), 4);
+        cache.executeUpdate("DELETE FROM t", StatementBinder.NONE);
+        cache.executeUpdate("DELETE FROM t", StatementBinder.NONE);
+        assertEquals(1, cache.getMisses(), "First execution should prepare the statement.");
+        assertEquals(1, cache.getHits(), "Second execution should reuse the statement.");
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void preparesNewStatementWhileCachedOneIsLeased() throws SQLException {
+        StatementCache cache = new StatementCache(connection(), 4);
+        PreparedStatement first = cache.acquire("SELECT 1");
+        PreparedStatement second = cache.acquire("SELECT 1");
+        assertNotSame(first, second, "A leased statement must not be handed out twice.");
+        cache.release("SELECT 1", second, null);
+        assertTrue(closed.contains(second), "Uncached statement should be closed on release.");
+        cache.release("SELECT 1", first, null);
+        assertFalse(closed.contains(first), "Cached statement should stay open.");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws SQLException {
+        StatementCache cache = new StatementCache(connection(), 2);
+        PreparedStatement a = cache.acquire("A");
+        cache.release("A", a, null);
+        PreparedStatement b = cache.acquire("B");
+        cache.release("B", b, null);
+        cache.release("A", cache.acquire("A"), null);
+        PreparedStatement c = cache.acquire("C");
+        cache.release("C", c, null);
+
+        assertEquals(1, cache.getEvictions());
+        assertTrue(closed.contains(b), "Least recently used statement should be closed.");
+        assertFalse(closed.contains(a));
+    }
+
+    @Test
+    void disabledCacheClosesStatements() throws SQLException {
+        StatementCache cache = new StatementCache(connection(), 0);
+        PreparedStatement statement = cache.acquire("A");
+        cache.release("A", statement, null);
+        assertTrue(closed.contains(statement));
+        assertEquals(0, cache.size());
+    }
+
+    private final List<String> events = new ArrayList<>();
+    private SQLException failure = new SQLException("deadlock detected", "40P01");
+
+    private Connection batchConnection(boolean autoCommit, int failures, boolean failRollback) {
+        boolean[] auto = {autoCommit};
+        int[] remaining = {failures};
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getAutoCommit" -> auto[0];
+                case "setAutoCommit" -> {
+                    auto[0] = (boolean) args[0];
+                    events.add("autoCommit " + auto[0]);
+                    yield null;
+                }
+                case "commit" -> events.add("commit");
+                case "rollback" -> {
+                    events.add("rollback");
+                    if (failRollback) {
+                        throw new SQLException("connection lost");
+                    }
+                    yield null;
+                }
+                case "prepareStatement" -> {
+                    List<Object> batch = new ArrayList<>();
+                    PreparedStatement[] self = new PreparedStatement[1];
+                    self[0] = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                        (statement, call, values) -> switch (call.getName()) {
+                            case "setObject" -> batch.add(values[1]);
+                            case "executeBatch" -> {
+                                events.add("batch " + batch);
+                                int[] counts = new int[batch.size()];
+                                batch.clear();
+                                if (remaining[0]-- > 0) {
+                                    throw failure;
+                                }
+                                Arrays.fill(counts, 1);
+                                yield counts;
+                            }
+                            case "close" -> closed.add(self[0]);
+                            case "isClosed" -> closed.contains(self[0]);
+                            case "hashCode" -> System.identityHashCode(statement);
+                            case "equals" -> statement == values[0];
+                            default -> null;
+                        });
+                    yield self[0];
+                }
+                default -> null;
+            });
+    }
+
+    private static final RowBinder<Integer> ID = (statement, id) -> statement.setObject(1, id);
+
+    @Test
+    void batchesAreChunkedOnOneCachedStatement() throws SQLException {
+        StatementCache cache = new StatementCache(batchConnection(false, 0, false), 4);
+        List<int[]> counts = cache.executeBatch("INSERT INTO t (id) VALUES (?)", List.of(1, 2, 3, 4, 5), ID, 2);
+
+        assertEquals(3, counts.size());
+        assertArrayEquals(new int[]{1, 1}, counts.get(0));
+        assertArrayEquals(new int[]{1}, counts.get(2));
+        assertEquals(List.of("batch [1, 2]", "batch [3, 4]", "batch [5]"), events, "Without auto-commit the caller owns the transaction.");
+        assertEquals(1, cache.getMisses());
+        assertEquals(2, cache.getHits());
+        assertThrows(IllegalArgumentException.class, () -> cache.executeBatch("INSERT INTO t (id) VALUES (?)", List.of(1), ID, 0));
+    }
+
+    @Test
+    void autoCommitBatchesAreCommittedOneByOne() throws SQLException {
+        StatementCache cache = new StatementCache(batchConnection(true, 1, false), 4);
+        cache.executeBatch("INSERT INTO t (id) VALUES (?)", List.of(1, 2, 3), ID, 2);
+
+        assertEquals(List.of(
+            "autoCommit false", "batch [1, 2]", "rollback", "autoCommit true",
+            "autoCommit false", "batch [1, 2]", "commit", "autoCommit true",
+            "autoCommit false", "batch [3]", "commit", "autoCommit true"), events, "A failed batch is rolled back before it is retried.");
+        assertEquals(1, closed.size(), "The failed statement is discarded.");
+    }
+
+    @Test
+    void batchFailingEveryRetryThrowsTheLastFailure() {
+        StatementCache cache = new StatementCache(batchConnection(true, 2, false), 4);
+        SQLException e = assertThrows(SQLException.class,
+            () -> cache.executeBatch("INSERT INTO t (id) VALUES (?)", List.of(1, 2), ID, 2));
+        assertSame(failure, e, "The driver's failure is thrown, with its SQLState.");
+        assertEquals(2, events.stream().filter("rollback"::equals).count());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void failuresInsideATransactionAreNotRetried() {
+        StatementCache cache = new StatementCache(batchConnection(false, 1, false), 4);
+        SQLException e = assertThrows(SQLException.class,
+            () -> cache.executeBatch("INSERT INTO t (id) VALUES (?)", List.of(1, 2), ID, 2));
+        assertSame(failure, e);
+        assertEquals(List.of("batch [1, 2]"), events, "The caller's transaction may hold the rows already.");
+    }
+
+    @Test
+    void constraintViolationsAreNotRetried() {
+        failure = new BatchUpdateException("duplicate key", "23505", new int[]{1, Statement.EXECUTE_FAILED});
+        StatementCache cache = new StatementCache(batchConnection(true, 1, false), 4);
+        BatchUpdateException e = assertThrows(BatchUpdateException.class,
+            () -> cache.executeBatch("INSERT INTO t (id) VALUES (?)", List.of(1, 1), ID, 2));
+        assertArrayEquals(new int[]{1, Statement.EXECUTE_FAILED}, e.getUpdateCounts());
+        assertEquals(List.of("autoCommit false", "batch [1, 1]", "rollback", "autoCommit true"), events);
+    }
+
+    @Test
+    void failedRollbackIsSuppressedAndNotRetried() {
+        StatementCache cache = new StatementCache(batchConnection(true, 1, true), 4);
+        SQLException e = assertThrows(SQLException.class,
+            () -> cache.executeBatch("INSERT INTO t (id) VALUES (?)", List.of(1), ID, 1));
+        assertEquals("40P01", e.getSQLState(), "The batch failure is reported, not the rollback failure.");
+        assertEquals("connection lost", e.getSuppressed()[0].getMessage());
+        assertEquals(1, events.stream().filter(event -> event.startsWith("batch")).count(), "The batch may have been applied.");
+        assertEquals(1, closed.size());
+        assertEquals(0, cache.size());
+        assertEquals("autoCommit true", events.get(events.size() - 1));
+    }
+}
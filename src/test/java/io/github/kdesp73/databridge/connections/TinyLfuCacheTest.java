@@ -0,0 +1,54 @@
+package io.github.kdesp73.databridge.connections;
+
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TinyLfuCacheTest {
+
+    @Test
+    void frequentEntriesSurviveAScan() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put("hot" + i, i, Set.of(), 0);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                assertEquals(i, (int) cache.get("hot" + i, 0));
+            }
+        }
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("scan" + i, i, Set.of(), 0);
+        }
+
+        int kept = 0;
+        for (int i = 0; i < 50; i++) {
+            kept += cache.get("hot" + i, 0) != null ? 1 : 0;
+        }
+        assertEquals(50, kept, "One-off keys must not evict entries read over and over.");
+        assertEquals(100, cache.size());
+        assertTrue(cache.evictions() > 0);
+    }
+
+    @Test
+    void expiresAndInvalidatesByTag() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(10);
+        cache.put("a", 1, Set.of("users"), 100);
+        cache.put("b", 2, Set.of("users", "orders"), 0);
+        cache.put("c", 3, Set.of("orders"), 0);
+
+        assertEquals(1, (int) cache.get("a", 99));
+        assertNull(cache.get("a", 100));
+        assertEquals(2, cache.invalidate(Set.of("orders")));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.invalidate(Set.of("users")));
+    }
+
+    @Test
+    void zeroCapacityKeepsNothing() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(0);
+        cache.put("a", 1, Set.of(), 0);
+        assertNull(cache.get("a", 0));
+    }
+}
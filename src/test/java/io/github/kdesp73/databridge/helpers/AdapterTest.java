@@ -0,0 +1,301 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import io.github.kdesp73.databridge.connections.OracleConnection;
+import io.github.kdesp73.databridge.connections.RowBinder;
+import io.github.kdesp73.databridge.connections.SQLiteConnection;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdapterTest {
+
+    public enum Status { ACTIVE, BANNED }
+
+    public static class Account {
+        private long balance;
+        private Long credit;
+        private Status status;
+    }
+
+    public record Point(int x, long yCoord, @Column("label") String name, Double weight) {}
+
+    public static final class Temperature {
+        private final double celsius;
+        private final String city;
+
+        @RowConstructor
+        Temperature(@Column("degrees") double celsius, @Column("city") String city) {
+            this.celsius = celsius;
+            this.city = city;
+        }
+    }
+
+    public static class Person {
+        private String firstName;
+        private int age;
+        private String nickname;
+    }
+
+    public static class Event {
+        private OffsetDateTime at;
+    }
+
+    private static ResultSet resultSet(String[] labels, Object[][] rows) {
+        return resultSet(labels, rows, new int[1]);
+    }
+
+    private static ResultSet resultSet(String[] labels, Object[][] rows, int[] reads) {
+        int[] types = new int[labels.length];
+        Arrays.fill(types, Types.OTHER);
+        return FakeResults.resultSet(labels, types, rows, (method, args) -> {
+            if (method.equals("next")) {
+                reads[0]++;
+            } else if (method.equals("close")) {
+                reads[0] = -1;
+            } else if (method.startsWith("get") && args != null && args[0] instanceof String) {
+                throw new SQLException("Columns must be read by index");
+            }
+        });
+    }
+
+    @Test
+    void mapsColumnsBySnakeCaseName() {
+        ResultSet rs = resultSet(new String[]{"FIRST_NAME", "age"}, new Object[][]{{"Ada", 36}, {"Alan", null}});
+        List<Person> people = Adapter.load(rs, Person.class);
+        assertEquals(2, people.size());
+        assertEquals("Ada", people.get(0).firstName);
+        assertEquals(36, people.get(0).age);
+        assertEquals(0, people.get(1).age, "NULL should leave primitive fields untouched.");
+        assertNull(people.get(0).nickname, "Fields without a column should be skipped.");
+    }
+
+    @Test
+    void reusesMapperForSameShape() throws SQLException {
+        ResultSet first = resultSet(new String[]{"age"}, new Object[0][]);
+        ResultSet second = resultSet(new String[]{"AGE"}, new Object[0][]);
+        assertSame(CompiledMapper.of(Person.class, first.getMetaData()), CompiledMapper.of(Person.class, second.getMetaData()));
+    }
+
+    @Test
+    void mapperFollowsResultSet() throws SQLException {
+        RowMapper<Person> mapper = Adapter.mapper(Person.class);
+        ResultSet byName = resultSet(new String[]{"first_name"}, new Object[][]{{"Grace"}});
+        ResultSet byField = resultSet(new String[]{"age", "nickname"}, new Object[][]{{40, "G"}});
+        byName.next();
+        byField.next();
+        assertEquals("Grace", mapper.map(byName).firstName);
+        Person person = mapper.map(byField);
+        assertEquals(40, person.age);
+        assertEquals("G", person.nickname);
+    }
+
+    @Test
+    void streamReadsRowsLazilyAndClosesOnClose() {
+        int[] reads = new int[1];
+        ResultSet rs = resultSet(new String[]{"age"}, new Object[][]{{1}, {2}, {3}, {4}}, reads);
+        try (Stream<Person> people = Adapter.stream(rs, Person.class)) {
+            assertEquals(2, people.filter(p -> p.age >= 2).findFirst().orElseThrow().age);
+            assertEquals(2, reads[0], "Only the rows needed should be read.");
+        }
+        assertEquals(-1, reads[0], "Closing the stream should close the ResultSet.");
+    }
+
+    @Test
+    void streamClosesAfterLastRow() {
+        int[] reads = new int[1];
+        ResultSet rs = resultSet(new String[]{"age"}, new Object[][]{{1}, {2}}, reads);
+        assertEquals(3, Adapter.stream(rs, Person.class).mapToInt(p -> p.age).sum());
+        assertEquals(-1, reads[0]);
+    }
+
+    @Test
+    void convertsColumnsToFieldTypes() {
+        ResultSet rs = resultSet(new String[]{"balance", "credit", "status"},
+            new Object[][]{{new BigDecimal("12"), null, "BANNED"}, {7, 3, "ACTIVE"}});
+        List<Account> accounts = Adapter.load(rs, Account.class);
+        assertEquals(2, accounts.size());
+        assertEquals(12L, accounts.get(0).balance, "BigDecimal should be read into a long field.");
+        assertNull(accounts.get(0).credit, "NULL should stay null for boxed fields.");
+        assertEquals(Status.BANNED, accounts.get(0).status);
+        assertEquals(Long.valueOf(3), accounts.get(1).credit);
+    }
+
+    @Test
+    void offsetDateTimesKeepTheirOffset() {
+        OffsetDateTime at = OffsetDateTime.of(2024, 5, 1, 12, 0, 0, 0, ZoneOffset.ofHours(2));
+        assertEquals(at, Adapter.load(resultSet(new String[]{"at"}, new Object[][]{{at}}), Event.class).get(0).at);
+
+        ResultSet legacy = FakeResults.resultSet(new String[]{"at"}, new int[]{Types.TIMESTAMP}, new Object[][]{{Timestamp.from(at.toInstant())}}, (method, args) -> {
+            if (method.equals("getObject") && args.length == 2) {
+                throw new SQLFeatureNotSupportedException();
+            }
+        });
+        assertEquals(at.withOffsetSameInstant(ZoneOffset.UTC), Adapter.load(legacy, Event.class).get(0).at,
+            "Without getObject(int, Class) the instant is read in UTC.");
+    }
+
+    @Test
+    void usesRegisteredReader() {
+        Converters.register(Status.class, (rs, column) -> Status.valueOf(rs.getString(column).toUpperCase()));
+        try {
+            ResultSet rs = resultSet(new String[]{"status"}, new Object[][]{{"active"}});
+            assertEquals(Status.ACTIVE, Adapter.load(rs, Account.class).get(0).status);
+        } finally {
+            Converters.unregister(Status.class);
+        }
+    }
+
+    @Test
+    void mapsRecordsThroughCanonicalConstructor() {
+        ResultSet rs = resultSet(new String[]{"x", "y_coord", "label"}, new Object[][]{{1, 2L, "a"}, {null, 4L, null}});
+        List<Point> points = Adapter.load(rs, Point.class);
+        assertEquals(new Point(1, 2L, "a", null), points.get(0));
+        assertEquals(new Point(0, 4L, null, null), points.get(1), "NULL and missing columns should get default values.");
+    }
+
+    @Test
+    void mapsThroughAnnotatedConstructor() {
+        ResultSet rs = resultSet(new String[]{"city", "degrees"}, new Object[][]{{"Athens", new BigDecimal("31")}});
+        Temperature temperature = Adapter.load(rs, Temperature.class).get(0);
+        assertEquals("Athens", temperature.city);
+        assertEquals(31.0, temperature.celsius);
+    }
+
+    @Test
+    void forEachReusesOneInstance() throws SQLException {
+        ResultSet rs = resultSet(new String[]{"first_name", "age"}, new Object[][]{{"Ada", 36}, {"Alan", 41}, {"Grace", 85}});
+        Set<Person> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        long[] ages = {0};
+        long rows = Adapter.forEach(rs, Person.class, person -> {
+            instances.add(person);
+            ages[0] += person.age;
+        });
+        assertEquals(3L, rows);
+        assertEquals(162L, ages[0]);
+        assertEquals(1, instances.size(), "Every row should be mapped into the same instance.");
+    }
+
+    @Test
+    void rowViewReadsByResolvedIndex() throws SQLException {
+        RowView row = new RowView(resultSet(new String[]{"name", "AMOUNT"}, new Object[][]{{"a", 5L}, {"b", null}}));
+        int amount = row.column("amount");
+        assertEquals(2, amount);
+        long total = 0;
+        int nulls = 0;
+        while (row.next()) {
+            total += row.getLong(amount);
+            if (row.wasNull()) {
+                nulls++;
+            }
+        }
+        assertEquals(5L, total);
+        assertEquals(1, nulls);
+    }
+
+    public record Employee(long id, String fullName, @Column("dept") Status status) {}
+
+    private static final class CapturingSQLite extends SQLiteConnection {
+        private final List<String> sql = new ArrayList<>();
+        private final List<List<Object>> parameters = new ArrayList<>();
+
+        @Override
+        public <T> List<int[]> executeBatch(String query, Iterable<T> rows, RowBinder<T> binder, int batchSize) throws SQLException {
+            sql.add(query);
+            List<int[]> counts = new ArrayList<>();
+            for (T row : rows) {
+                List<Object> values = new ArrayList<>();
+                PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(AdapterTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        values.add(args[1]);
+                        return null;
+                    });
+                binder.bind(statement, row);
+                parameters.add(values);
+                counts.add(new int[]{1});
+            }
+            return counts;
+        }
+    }
+
+    @Test
+    void insertAllBindsFieldsInOrder() throws SQLException {
+        CapturingSQLite conn = new CapturingSQLite();
+        List<Employee> employees = List.of(new Employee(1, "Ada", Status.ACTIVE), new Employee(2, "Bob", null));
+
+        assertEquals(2, Adapter.insertAll(conn, "employees", employees, 10));
+        assertEquals("INSERT INTO employees (id, full_name, dept) VALUES (?, ?, ?)", conn.sql.get(0));
+        assertEquals(List.of(1L, "Ada", "ACTIVE"), conn.parameters.get(0));
+        assertEquals(2L, conn.parameters.get(1).get(0));
+        assertEquals(0, Adapter.insertAll(conn, "employees", List.of(), 10));
+    }
+
+    @Test
+    void upsertAllPicksTheDialect() throws SQLException {
+        CapturingSQLite sqlite = new CapturingSQLite();
+        Adapter.upsertAll(sqlite, "employees", List.of(new Employee(1, "Ada", Status.ACTIVE)), 10, "id");
+        assertEquals("INSERT INTO employees (id, full_name, dept) VALUES (?, ?, ?) ON CONFLICT (id)"
+            + " DO UPDATE SET full_name = EXCLUDED.full_name, dept = EXCLUDED.dept", sqlite.sql.get(0));
+
+        List<String> merged = new ArrayList<>();
+        OracleConnection oracle = new OracleConnection() {
+            @Override
+            public <T> List<int[]> executeBatch(String query, Iterable<T> rows, RowBinder<T> binder, int batchSize) {
+                merged.add(query);
+                return List.of();
+            }
+        };
+        Adapter.upsertAll(oracle, "employees", List.of(new Employee(1, "Ada", Status.ACTIVE)), 10, "id");
+        assertEquals("MERGE INTO employees t USING (SELECT ? AS id, ? AS full_name, ? AS dept FROM dual) s ON (t.id = s.id)"
+            + " WHEN MATCHED THEN UPDATE SET t.full_name = s.full_name, t.dept = s.dept"
+            + " WHEN NOT MATCHED THEN INSERT (id, full_name, dept) VALUES (s.id, s.full_name, s.dept)", merged.get(0));
+
+        assertThrows(IllegalArgumentException.class, () -> Adapter.upsertAll(sqlite, "employees", List.of(new Employee(1, "Ada", null)), 10, "email"));
+    }
+
+    public static class Badge {
+        static int issued;
+        long id;
+        transient String label;
+    }
+
+    public static class LimitedBadge extends Badge {
+        int remaining;
+    }
+
+    @Test
+    void writesTheFieldsItReads() throws SQLException {
+        List<Badge> read = Adapter.load(resultSet(new String[]{"id", "label"}, new Object[][]{{7L, "gold"}}), Badge.class);
+        assertEquals("gold", read.get(0).label);
+
+        CapturingSQLite conn = new CapturingSQLite();
+        Adapter.insertAll(conn, "badges", read, 10);
+        assertEquals("INSERT INTO badges (id, label) VALUES (?, ?)", conn.sql.get(0), "Every field a read fills is written back.");
+        assertEquals(List.of(7L, "gold"), conn.parameters.get(0));
+    }
+
+    @Test
+    void rowsOfMixedClassesAreRejected() {
+        List<Badge> badges = List.of(new Badge(), new LimitedBadge());
+        CapturingSQLite conn = new CapturingSQLite();
+        assertThrows(IllegalArgumentException.class, () -> Adapter.insertAll(conn, "badges", badges, 10));
+        assertThrows(IllegalArgumentException.class, () -> Adapter.upsertAll(conn, "badges", badges, 10, "id"));
+        assertTrue(conn.sql.isEmpty());
+    }
+}
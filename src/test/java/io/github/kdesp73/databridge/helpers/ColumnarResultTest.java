@@ -0,0 +1,77 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.sql.Types;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarResultTest {
+
+    private static ColumnarResult sales(int rows) throws Exception {
+        String[] regions = {"north", "south", "east"};
+        Object[][] data = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            data[i] = new Object[]{i, (long) i * 10, i % 7 == 0 ? null : i * 0.5, i % 11 == 0 ? null : regions[i % 3]};
+        }
+        return ColumnarResult.from(FakeResults.resultSet(new String[]{"id", "total", "amount", "region"},
+            new int[]{Types.INTEGER, Types.BIGINT, Types.DOUBLE, Types.VARCHAR}, data));
+    }
+
+    @Test
+    void storesColumnsByType() throws Exception {
+        ColumnarResult result = sales(3000);
+
+        assertEquals(3000, result.size());
+        assertEquals(ColumnarResult.Type.INT, result.type(result.column("ID")));
+        assertEquals(ColumnarResult.Type.LONG, result.type(result.column("total")));
+        assertEquals(ColumnarResult.Type.DOUBLE, result.type(result.column("amount")));
+        assertEquals(ColumnarResult.Type.STRING, result.type(result.column("region")));
+        assertEquals(3, result.distinctCount(3));
+        assertEquals(2999, result.getInt(2999, 0));
+        assertEquals("south", result.getString(1, 3));
+        assertTrue(result.isNull(2996, 2));
+        assertFalse(result.isNull(2997, 2));
+        assertNull(result.getString(2992, 3));
+    }
+
+    @Test
+    void filtersAndSums() throws Exception {
+        ColumnarResult result = sales(100);
+
+        int[] even = result.filterLong(0, value -> value % 2 == 0);
+        assertEquals(50, even.length);
+        assertEquals(2450, result.sumLong(0, even));
+        assertEquals(4950, result.sumLong(0));
+        assertEquals(49500, result.sumLong(1));
+
+        int[] positive = result.filterDouble(2, value -> value >= 0);
+        assertEquals(100 - 15, positive.length);
+
+        double expected = 0;
+        for (int i = 0; i < 100; i++) {
+            expected += i % 7 == 0 ? 0 : i * 0.5;
+        }
+        assertEquals(expected, result.sumDouble(2), 1e-9);
+
+        int[] north = result.filterString(3, "north"::equals);
+        for (int row : north) {
+            assertEquals(0, row % 3);
+            assertNotEquals(0, row % 11);
+        }
+    }
+
+    @Test
+    void groupsByDictionary() throws Exception {
+        ColumnarResult result = sales(33);
+
+        Map<String, Long> counts = result.countBy(3);
+        assertEquals(4, counts.size());
+        assertEquals(3L, (long) counts.get(null));
+        assertEquals(33, counts.values().stream().mapToLong(Long::longValue).sum());
+
+        Map<String, Double> sums = result.sumBy(3, 0);
+        assertEquals(0 + 11 + 22, (double) sums.get(null), 1e-9);
+        assertEquals(528, sums.values().stream().mapToDouble(Double::doubleValue).sum(), 1e-9);
+    }
+}
@@ -0,0 +1,144 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * In-memory JDBC fakes shared by the tests: forward-only {@link ResultSet}s over fixed rows and
+ * the default answers of proxied JDBC interfaces.
+ */
+public final class FakeResults {
+
+    private FakeResults() {
+    }
+
+    /**
+     * The answer of a proxied method that a fake does not implement: {@code false} or zero for
+     * primitive return types and {@code null} otherwise.
+     *
+     * @param method the called method.
+     * @return the default value of its return type.
+     */
+    public static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0.0;
+        }
+        return null;
+    }
+
+    /**
+     * A result of {@link Types#OTHER} columns.
+     *
+     * @param labels the column labels.
+     * @param rows the values of each row, one per column.
+     * @return the result set.
+     */
+    public static ResultSet resultSet(String[] labels, Object[][] rows) {
+        int[] types = new int[labels.length];
+        Arrays.fill(types, Types.OTHER);
+        return resultSet(labels, types, rows, (method, args) -> {});
+    }
+
+    /**
+     * A result with the given column types.
+     *
+     * @param labels the column labels.
+     * @param types the {@link Types} of the columns.
+     * @param rows the values of each row, one per column.
+     * @return the result set.
+     */
+    public static ResultSet resultSet(String[] labels, int[] types, Object[][] rows) {
+        return resultSet(labels, types, rows, (method, args) -> {});
+    }
+
+    /**
+     * A result with the given column types that reports every method called on it.
+     * <p>
+     * Columns are read by index or by case-insensitive label. {@code getInt}, {@code getLong},
+     * {@code getDouble}, {@code getString} and {@code getBigDecimal} convert the stored value and
+     * track {@code wasNull}; {@code getObject} and {@code getTimestamp} return it as is.
+     * </p>
+     *
+     * @param labels the column labels.
+     * @param types the {@link Types} of the columns.
+     * @param rows the values of each row, one per column.
+     * @param calls sees each call before it is answered, and can fail it.
+     * @return the result set.
+     */
+    public static ResultSet resultSet(String[] labels, int[] types, Object[][] rows, Calls calls) {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(FakeResults.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getColumnCount" -> labels.length;
+                case "getColumnLabel", "getColumnName" -> labels[(int) args[0] - 1];
+                case "getColumnType" -> types[(int) args[0] - 1];
+                case "getColumnTypeName" -> JDBCType.valueOf(types[(int) args[0] - 1]).getName();
+                default -> defaultValue(method);
+            });
+        int[] cursor = {-1};
+        boolean[] wasNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(FakeResults.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+            (proxy, method, args) -> {
+                calls.accept(method.getName(), args);
+                return switch (method.getName()) {
+                    case "getMetaData" -> metaData;
+                    case "getType" -> ResultSet.TYPE_FORWARD_ONLY;
+                    case "next" -> ++cursor[0] < rows.length;
+                    case "wasNull" -> wasNull[0];
+                    case "getObject", "getTimestamp", "getInt", "getLong", "getDouble", "getString", "getBigDecimal" -> {
+                        Object value = rows[cursor[0]][column(labels, args[0]) - 1];
+                        wasNull[0] = value == null;
+                        yield switch (method.getName()) {
+                            case "getInt" -> value == null ? 0 : ((Number) value).intValue();
+                            case "getLong" -> value == null ? 0L : ((Number) value).longValue();
+                            case "getDouble" -> value == null ? 0.0 : ((Number) value).doubleValue();
+                            case "getString" -> value == null ? null : value.toString();
+                            case "getBigDecimal" -> value == null ? null : new BigDecimal(value.toString());
+                            default -> value;
+                        };
+                    }
+                    default -> defaultValue(method);
+                };
+            });
+    }
+
+    private static int column(String[] labels, Object column) throws SQLException {
+        if (column instanceof Integer index) {
+            return index;
+        }
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase((String) column)) {
+                return i + 1;
+            }
+        }
+        throw new SQLException("No column " + column);
+    }
+
+    /**
+     * Sees the calls made on a fake {@link ResultSet}.
+     */
+    @FunctionalInterface
+    public interface Calls {
+        /**
+         * Called before the result set answers a call.
+         *
+         * @param method the name of the called method.
+         * @param args the arguments of the call, or {@code null} if it has none.
+         * @throws SQLException to fail the call.
+         */
+        void accept(String method, Object[] args) throws SQLException;
+    }
+}
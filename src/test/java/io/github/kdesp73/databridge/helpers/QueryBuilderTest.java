@@ -1,5 +1,9 @@
 package io.github.kdesp73.databridge.helpers;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import io.github.kdesp73.databridge.connections.AvailableConnections;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -84,4 +88,155 @@ class QueryBuilderTest {
         QueryBuilder qb = new QueryBuilder();
         assertThrows(IllegalStateException.class, qb::build, "Building an empty query did not throw an exception.");
     }
+
+    @Test
+    void escapesQuotesInLiterals() {
+        QueryBuilder qb = new QueryBuilder();
+        String query = qb.insertInto("people").columns("name").values("O'Brien").build();
+        assertEquals("INSERT INTO people (name) VALUES ('O''Brien')", query, "Quotes were not escaped.");
+    }
+
+    @Test
+    void multipleSetsAreCommaSeparated() {
+        QueryBuilder qb = new QueryBuilder();
+        String query = qb.update("my_table").set("col1", 1).set("col2", "x").where("id = ?", 7).build();
+        assertEquals("UPDATE my_table SET col1 = 1, col2 = 'x' WHERE id = 7", query, "UPDATE with several columns failed.");
+    }
+
+    @Test
+    void prepareUsesPlaceholders() {
+        QueryBuilder qb = new QueryBuilder();
+        PreparedQuery query = qb.update("my_table").set("name", "O'Brien").where("id = ? AND note <> '?'", 3).prepare();
+        assertEquals("UPDATE my_table SET name = ? WHERE id = ? AND note <> '?'", query.getSql(), "Prepared SQL failed.");
+        assertEquals(Arrays.asList("O'Brien", 3), query.getParameters(), "Prepared parameters failed.");
+
+        PreparedQuery rebound = query.bind("Smith", 4);
+        assertSame(query.getSql(), rebound.getSql(), "Rebinding should keep the SQL text.");
+        assertEquals(Arrays.asList("Smith", 4), rebound.getParameters(), "Rebound parameters failed.");
+        assertThrows(IllegalArgumentException.class, () -> query.bind(1), "Wrong parameter count was accepted.");
+    }
+
+    @Test
+    void sameShapeSameSql() {
+        PreparedQuery first = new QueryBuilder().insertInto("t").columns("a", "b").values(1, null).prepare();
+        PreparedQuery second = new QueryBuilder().insertInto("t").columns("a", "b").values("x", 2.5).prepare();
+        assertEquals(first.getSql(), second.getSql(), "Queries of the same shape should share their SQL.");
+        assertEquals("INSERT INTO t (a, b) VALUES (?, ?)", first.getSql());
+    }
+
+    @Test
+    void multiRowInsert() {
+        List<Object[]> rows = List.of(new Object[]{1, "a"}, new Object[]{2, "b'c"});
+        String query = new QueryBuilder().insertInto("t").columns("id", "name").rows(rows).build();
+        assertEquals("INSERT INTO t (id, name) VALUES (1, 'a'), (2, 'b''c')", query, "Multi-row INSERT failed.");
+
+        PreparedQuery oracle = new QueryBuilder(AvailableConnections.ORACLE)
+            .insertInto("t").columns("id", "name").rows(rows).prepare();
+        assertEquals("INSERT ALL INTO t (id, name) VALUES (?, ?) INTO t (id, name) VALUES (?, ?) SELECT 1 FROM dual", oracle.getSql());
+        assertEquals(Arrays.asList(1, "a", 2, "b'c"), oracle.getParameters());
+    }
+
+    @Test
+    void multiRowInsertIsChunkedByParameterLimit() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 700; i++) {
+            rows.add(new Object[]{i, "n" + i, i * 2});
+        }
+        List<PreparedQuery> statements = new QueryBuilder(AvailableConnections.SQLITE)
+            .insertInto("t").columns("a", "b", "c").rows(rows).prepareAll();
+
+        assertEquals(3, statements.size(), "700 rows of 3 columns need 3 statements of at most 999 parameters.");
+        assertEquals(999, statements.get(0).getParameterCount());
+        assertSame(statements.get(0).getSql(), statements.get(1).getSql(), "Full chunks should share their SQL.");
+        assertEquals(34 * 3, statements.get(2).getParameterCount());
+        assertEquals(699, statements.get(2).getParameters().get(33 * 3));
+    }
+
+    @Test
+    void oracleInsertAllIsChunkedByTargetColumns() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            rows.add(new Object[]{i, "n" + i, i * 2});
+        }
+        List<PreparedQuery> statements = new QueryBuilder(AvailableConnections.ORACLE)
+            .insertInto("t").columns("a", "b", "c").rows(rows).prepareAll();
+
+        assertEquals(16, statements.size(), "INSERT ALL allows 999 target columns, 333 rows of 3 columns, despite 65535 binds.");
+        for (PreparedQuery statement : statements) {
+            assertTrue(statement.getParameterCount() <= 999);
+        }
+        assertEquals(333 * 3, statements.get(0).getParameterCount());
+        assertEquals(5000 - 15 * 333, statements.get(15).getParameterCount() / 3);
+        assertEquals(4999, statements.get(15).getParameters().get(statements.get(15).getParameterCount() - 3));
+    }
+
+    @Test
+    void upsertPerDialect() {
+        String postgres = new QueryBuilder(AvailableConnections.POSTGRES)
+            .upsert("users").keys("id").columns("id", "name").values(1, "O'Brien").build();
+        assertEquals("INSERT INTO users (id, name) VALUES (1, 'O''Brien') ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name", postgres);
+
+        PreparedQuery oracle = new QueryBuilder(AvailableConnections.ORACLE)
+            .upsert("users").keys("id").columns("id", "name").prepare();
+        assertEquals("MERGE INTO users t USING (SELECT ? AS id, ? AS name FROM dual) s ON (t.id = s.id)"
+            + " WHEN MATCHED THEN UPDATE SET t.name = s.name WHEN NOT MATCHED THEN INSERT (id, name) VALUES (s.id, s.name)", oracle.getSql());
+        assertEquals(List.of(), oracle.getParameters(), "A template without values should be unbound.");
+
+        String keysOnly = new QueryBuilder(AvailableConnections.SQLITE)
+            .upsert("tags").keys("name").columns("name").prepare().getSql();
+        assertEquals("INSERT INTO tags (name) VALUES (?) ON CONFLICT (name) DO NOTHING", keysOnly);
+
+        assertThrows(UnsupportedOperationException.class, () -> new QueryBuilder(AvailableConnections.MSACCESS)
+            .upsert("users").keys("id").columns("id").build());
+        assertThrows(IllegalStateException.class, () -> new QueryBuilder().upsert("users").keys("id").columns("id").build());
+    }
+
+    @Test
+    void orderByAndLimitPerDialect() {
+        assertEquals("SELECT * FROM t WHERE id > 5 ORDER BY id LIMIT 10",
+            new QueryBuilder().select().from("t").where("id > ?", 5).orderBy("id").limit(10).build());
+        assertEquals("SELECT * FROM t ORDER BY id FETCH FIRST 10 ROWS ONLY",
+            new QueryBuilder(AvailableConnections.ORACLE).select().from("t").orderBy("id").limit(10).build());
+        assertEquals("SELECT TOP 10 * FROM t WHERE id > 'a' ORDER BY id",
+            new QueryBuilder(AvailableConnections.MSACCESS).select().from("t").where("id > ?", "a").orderBy("id").limit(10).build());
+    }
+
+    @Test
+    void inPerDialect() {
+        PreparedQuery postgres = new QueryBuilder(AvailableConnections.POSTGRES)
+            .select().from("t").where("active = ?", true).in("id", Arrays.asList(1, null, 2)).prepare();
+        assertEquals("SELECT * FROM t WHERE active = ? AND id = ANY(?)", postgres.getSql());
+        assertArrayEquals(new Object[]{1, 2}, (Object[]) postgres.getParameters().get(1));
+        assertEquals("SELECT * FROM t WHERE id = ANY(ARRAY[1, 2])",
+            new QueryBuilder(AvailableConnections.POSTGRES).select().from("t").in("id", List.of(1, 2)).build());
+
+        PreparedQuery sqlite = new QueryBuilder(AvailableConnections.SQLITE)
+            .select().from("t").in("name", List.of("a\"b", 3)).prepare();
+        assertEquals("SELECT * FROM t WHERE name IN (SELECT value FROM json_each(?))", sqlite.getSql());
+        assertEquals(List.of("[\"a\\\"b\",3]"), sqlite.getParameters());
+
+        assertEquals("SELECT * FROM t WHERE 1 = 0", new QueryBuilder().select().from("t").in("id", List.of()).build());
+    }
+
+    @Test
+    void inListsArePaddedAndChunked() {
+        assertEquals("SELECT * FROM t WHERE id IN (1, 2, 3, 3)",
+            new QueryBuilder(AvailableConnections.ORACLE).select().from("t").in("id", List.of(1, 2, 3)).build());
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 1003; i++) {
+            ids.add(i);
+        }
+        PreparedQuery oracle = new QueryBuilder(AvailableConnections.ORACLE)
+            .select().from("t").in("id", ids).prepare();
+        assertEquals(1004, oracle.getParameterCount(), "1003 values should be one list of 1000 and one of 3 padded to 4.");
+        assertTrue(oracle.getSql().startsWith("SELECT * FROM t WHERE (id IN (?"));
+        assertTrue(oracle.getSql().endsWith(") OR id IN (?, ?, ?, ?))"));
+        assertEquals(1002, oracle.getParameters().get(1003));
+
+        assertEquals(1, QueryBuilder.bucket(1));
+        assertEquals(8, QueryBuilder.bucket(5));
+        assertEquals(512, QueryBuilder.bucket(512));
+        assertEquals(1000, QueryBuilder.bucket(513));
+    }
 }
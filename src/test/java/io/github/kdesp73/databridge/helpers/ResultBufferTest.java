@@ -0,0 +1,54 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultBufferTest {
+
+    private static Object[][] rows(int count) {
+        Object[][] rows = new Object[count][];
+        for (int i = 0; i < count; i++) {
+            rows[i] = new Object[]{i, "name-" + i, i % 5 == 0 ? null : new BigDecimal(i).movePointLeft(2), new Timestamp(1_700_000_000_000L + i), (long) i << 33, i % 2 == 0};
+        }
+        return rows;
+    }
+
+    private static void assertRows(ResultBuffer buffer, Object[][] expected) {
+        assertEquals(expected.length, buffer.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], buffer.get(i));
+        }
+        assertEquals(expected[17][3], buffer.get(17, 3));
+        assertNull(buffer.get(10, 2));
+        int index = 0;
+        for (Object[] row : buffer) {
+            assertArrayEquals(expected[index++], row);
+        }
+        assertEquals(expected.length, index);
+    }
+
+    @Test
+    void keepsSmallResultsInHeap() throws Exception {
+        Object[][] rows = rows(50);
+        try (ResultBuffer buffer = ResultBuffer.from(FakeResults.resultSet(new String[]{"id", "name", "price", "at", "big", "flag"}, rows), 1 << 20)) {
+            assertFalse(buffer.isSpilled());
+            assertEquals(2, buffer.column("PRICE"));
+            assertRows(buffer, rows);
+        }
+    }
+
+    @Test
+    void spillsToMappedFile() throws Exception {
+        Object[][] rows = rows(500);
+        ResultBuffer buffer = ResultBuffer.from(FakeResults.resultSet(new String[]{"id", "name", "price", "at", "big", "flag"}, rows), 1024, 4096);
+        assertTrue(buffer.isSpilled());
+        assertTrue(buffer.byteSize() > 4096);
+        assertRows(buffer, rows);
+
+        buffer.close();
+        assertThrows(IllegalStateException.class, () -> buffer.get(0));
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks of {@link SqlFingerprint} over short, joined and bulk insert statements.
+ * <p>
+ * Run after {@code mvn test-compile} with the test classpath:
+ * {@code java -cp target/test-classes:target/classes:<test dependencies> org.openjdk.jmh.Main SqlFingerprintBenchmark}
+ * </p>
+ *
+ * @author KDesp73
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlFingerprintBenchmark {
+
+    @Param({"point", "join", "insert"})
+    public String shape;
+
+    private String sql;
+
+    @Setup
+    public void setup() {
+        sql = switch (shape) {
+            case "point" -> "SELECT * FROM users WHERE id = 42";
+            case "join" -> "SELECT u.id, u.name, count(o.id) FROM users u JOIN orders o ON o.user_id = u.id "
+                + "WHERE u.created_at > '2024-01-01' AND o.status IN ('new', 'paid', 'shipped') -- report\n"
+                + "GROUP BY u.id, u.name ORDER BY 3 DESC LIMIT 50";
+            default -> {
+                StringBuilder insert = new StringBuilder("INSERT INTO events (id, kind, payload) VALUES ");
+                for (int i = 0; i < 100; i++) {
+                    insert.append(i == 0 ? "" : ", ").append('(').append(i).append(", 'click', '{\"x\": ").append(i).append("}')");
+                }
+                yield insert.toString();
+            }
+        };
+    }
+
+    @Benchmark
+    public String normalize() {
+        return SqlFingerprint.normalize(sql);
+    }
+
+    @Benchmark
+    public long fingerprint() {
+        return SqlFingerprint.fingerprint(sql);
+    }
+
+    @Benchmark
+    public SqlFingerprint of() {
+        return SqlFingerprint.of(sql);
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.kdesp73.databridge.helpers;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlFingerprintTest {
+
+    @Test
+    void replacesLiteralsAndCanonicalizesSpacing() {
+        assertEquals("select * from users where id = ? and name = ?",
+            SqlFingerprint.normalize("SELECT  *\n\tFROM users WHERE id=42 AND name = 'O''Brien';"));
+        assertEquals("select count (*) from t where x > ? and y < ?",
+            SqlFingerprint.normalize("select count( * ) from t where x > -1.5e3 and y < 0x1F"));
+        assertEquals("select a.b from \"Mixed\".t a where a.c = ?",
+            SqlFingerprint.normalize("SELECT A . B FROM \"Mixed\".T A WHERE a.c = $1"));
+    }
+
+    @Test
+    void keepsSubtractionApartFromNegativeNumbers() {
+        assertEquals("select a - ? from t", SqlFingerprint.normalize("select a - 1 from t"));
+        assertEquals("select (a) - ? from t", SqlFingerprint.normalize("select (a)-1 from t"));
+        assertEquals("select * from t where a = ?", SqlFingerprint.normalize("select * from t where a = -1"));
+    }
+
+    @Test
+    void stripsComments() {
+        assertEquals("select a from t where b = ?",
+            SqlFingerprint.normalize("/* report */ select a -- the column\nfrom t where b = 'x' -- done"));
+    }
+
+    @Test
+    void collapsesInListsAndValueRows() {
+        String one = SqlFingerprint.normalize("select * from t where id in (1)");
+        String three = SqlFingerprint.normalize("select * from t where id IN (1, 2, ?)");
+        assertEquals("select * from t where id in (?+)", one);
+        assertEquals(one, three);
+
+        assertEquals("insert into t (a, b) values (?, ?)",
+            SqlFingerprint.normalize("INSERT INTO t (a, b) VALUES (1, 'x'), (2, 'y'), (3, 'z')"));
+        assertEquals("select * from t where id in (select id from u)",
+            SqlFingerprint.normalize("select * from t where id in (select id from u)"));
+    }
+
+    @Test
+    void fingerprintIgnoresLiteralsButKeepsThem() {
+        SqlFingerprint a = SqlFingerprint.of("SELECT * FROM t WHERE a = 1 AND b = 'it''s'");
+        SqlFingerprint b = SqlFingerprint.of("select * from t where a = 2 and b = 'other'");
+        assertEquals(a, b);
+        assertEquals(a.getHash(), b.getHash());
+        assertEquals(a.getHash(), SqlFingerprint.fingerprint("select * from t where a = 3 and b = ''"));
+        assertEquals(List.of("1", "'it''s'"), a.getLiterals());
+        assertEquals(16, a.getHex().length());
+        assertNotEquals(a.getHash(), SqlFingerprint.fingerprint("select * from t where a = 1"));
+    }
+
+    @Test
+    void fingerprintIsLossyButCanonicalFormIsNot() {
+        SqlFingerprint a = SqlFingerprint.of("SELECT * FROM t WHERE a IN (1, 2) AND b IN (3)");
+        SqlFingerprint b = SqlFingerprint.of("SELECT * FROM t WHERE a IN (1) AND b IN (2, 3)");
+        assertEquals(a, b);
+        assertEquals(a.getLiterals(), b.getLiterals());
+
+        assertEquals("select * from t where a in (1, 2) and b in (3)",
+            SqlFingerprint.canonicalize("SELECT *  FROM t /* x */ WHERE a IN (1,2) AND b IN (3);"));
+        assertNotEquals(SqlFingerprint.canonicalize("select * from t where a in (?, ?) and b in (?)"),
+            SqlFingerprint.canonicalize("select * from t where a in (?) and b in (?, ?)"));
+        assertNotEquals(SqlFingerprint.canonicalize("select * from t where a = 1 and b = ?"),
+            SqlFingerprint.canonicalize("select * from t where a = ? and b = 1"));
+        assertEquals("select * from t where name = 'O''Brien'",
+            SqlFingerprint.canonicalize("select * from t where NAME = 'O''Brien'"));
+    }
+
+    @Test
+    void hashIsStable() {
+        assertEquals(0xcbf29ce484222325L, SqlFingerprint.hash(""));
+        assertEquals(SqlFingerprint.hash("select ?"), SqlFingerprint.fingerprint("SELECT 1"));
+    }
+}